@@ -0,0 +1,311 @@
+package com.bigdata.hive.udf.arrow;
+
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.TimeZone;
+
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.TimeStampMilliVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.VarCharVector;
+
+import com.bigdata.hive.udf.engine.BoundaryTable;
+import com.bigdata.hive.udf.engine.EpochDays;
+import com.bigdata.hive.udf.engine.ParsedDateCache;
+import com.bigdata.hive.udf.engine.PeriodCalculator;
+import com.bigdata.hive.udf.engine.PeriodKernel;
+import com.bigdata.hive.udf.engine.PeriodRenderer;
+import com.bigdata.hive.udf.engine.TimeUnit;
+
+/*
+ * FIRST_DAY_OF/LAST_DAY_OF over whole Arrow vectors: DATE (DateDayVector), TIMESTAMP
+ * (TimeStampMilliVector, wall-clock millis without a zone, as Hive's TIMESTAMP) and STRING
+ * (VarCharVector in the input format) in, either the boundary day as a DateDayVector or the
+ * boundary rendered in the output format, with the interval, as a VarCharVector.
+ *
+ * Values are read from the input buffers and written to the output in place, nothing is boxed.
+ * Strings in yyyy-MM-dd are parsed from their bytes, as local midnight; other input formats go
+ * through SimpleDateFormat and the parsed date cache, as in the UDF. A null or unparsable input is
+ * a null output. The output must be allocated for the input's value count; its value count is set.
+ *
+ * DATE and TIMESTAMP vectors are copied in chunks of epoch days through the JVM's PeriodKernel, the
+ * SIMD one when it is enabled, so their boundaries are looked up a chunk at a time.
+ *
+ * An instance keeps per-call state and must not be shared across threads.
+ */
+public final class ArrowPeriodEvaluator {
+
+	private final TimeUnit unit;
+	private final boolean last;
+	private final String inputFormat;
+	private final String outputFormat;
+	private final boolean includeInterval;
+	private final int interval;
+	private final TimeZone timeZone;
+
+	private final boolean isoInput;
+	private final ParsedDateCache parsedDates = new ParsedDateCache(1024);
+	private final PeriodRenderer renderer = new PeriodRenderer();
+	private SimpleDateFormat inputFormatter;
+	private byte[] scratch = new byte[32];
+	// one chunk of the epoch days of a DATE or TIMESTAMP vector, then their boundaries
+	private final int[] days = new int[CHUNK];
+
+	private static final int CHUNK = 1024;
+
+	public ArrowPeriodEvaluator(TimeUnit unit, boolean last) {
+		this(unit, last, PeriodCalculator.DEFAULT_DATE_FORMAT, null, false, PeriodRenderer.NO_INTERVAL,
+				PeriodRenderer.defaultZone());
+	}
+
+	/*
+	 * The arguments of the UDF after the unit, the interval as millis of day or
+	 * PeriodRenderer.NO_INTERVAL; the time zone is the one of strings and of the offset and zone
+	 * name letters in the output format.
+	 */
+	public ArrowPeriodEvaluator(TimeUnit unit, boolean last, String inputFormat, String outputFormat,
+			boolean includeInterval, int interval, TimeZone timeZone) {
+		this.unit = unit;
+		this.last = last;
+		this.inputFormat = inputFormat;
+		this.outputFormat = outputFormat;
+		this.includeInterval = includeInterval;
+		this.interval = interval;
+		this.timeZone = timeZone;
+		renderer.setTimeZone(timeZone);
+		this.isoInput = PeriodCalculator.DEFAULT_DATE_FORMAT.equals(inputFormat);
+	}
+
+	public void boundaries(DateDayVector input, DateDayVector output) {
+		int count = prepare(input, output);
+		for (int start = 0; start < count; start += CHUNK) {
+			int length = Math.min(CHUNK, count - start);
+			boundaries(input, start, length);
+			for (int i = 0; i < length; i++) {
+				if (input.isNull(start + i)) {
+					output.setNull(start + i);
+				} else {
+					output.set(start + i, days[i]);
+				}
+			}
+		}
+		output.setValueCount(count);
+	}
+
+	public void boundaries(TimeStampMilliVector input, DateDayVector output) {
+		int count = prepare(input, output);
+		for (int start = 0; start < count; start += CHUNK) {
+			int length = Math.min(CHUNK, count - start);
+			boundaries(input, start, length);
+			for (int i = 0; i < length; i++) {
+				if (input.isNull(start + i)) {
+					output.setNull(start + i);
+				} else {
+					output.set(start + i, days[i]);
+				}
+			}
+		}
+		output.setValueCount(count);
+	}
+
+	public void boundaries(VarCharVector input, DateDayVector output) {
+		int count = prepare(input, output);
+		BoundaryTable table = BoundaryTable.get();
+		for (int i = 0; i < count; i++) {
+			long localMillis = input.isNull(i) ? Long.MIN_VALUE : parse(input, i);
+			if (localMillis == Long.MIN_VALUE) {
+				output.setNull(i);
+			} else {
+				output.set(i, boundary(table, PeriodRenderer.epochDay(localMillis)));
+			}
+		}
+		output.setValueCount(count);
+	}
+
+	public void render(DateDayVector input, VarCharVector output) {
+		int count = prepare(input, output);
+		for (int start = 0; start < count; start += CHUNK) {
+			int length = Math.min(CHUNK, count - start);
+			boundaries(input, start, length);
+			for (int i = 0; i < length; i++) {
+				if (input.isNull(start + i)) {
+					output.setNull(start + i);
+				} else {
+					renderBoundary(start + i, days[i], 0, output);
+				}
+			}
+		}
+		output.setValueCount(count);
+	}
+
+	public void render(TimeStampMilliVector input, VarCharVector output) {
+		int count = prepare(input, output);
+		ArrowBuf millis = input.getDataBuffer();
+		for (int start = 0; start < count; start += CHUNK) {
+			int length = Math.min(CHUNK, count - start);
+			boundaries(input, start, length);
+			for (int i = 0; i < length; i++) {
+				if (input.isNull(start + i)) {
+					output.setNull(start + i);
+				} else {
+					long localMillis = millis.getLong((long) (start + i) * TimeStampMilliVector.TYPE_WIDTH);
+					renderBoundary(start + i, days[i], PeriodRenderer.millisOfDay(localMillis), output);
+				}
+			}
+		}
+		output.setValueCount(count);
+	}
+
+	public void render(VarCharVector input, VarCharVector output) {
+		int count = prepare(input, output);
+		for (int i = 0; i < count; i++) {
+			long localMillis = input.isNull(i) ? Long.MIN_VALUE : parse(input, i);
+			if (localMillis == Long.MIN_VALUE) {
+				output.setNull(i);
+			} else {
+				render(i, localMillis, output);
+			}
+		}
+		output.setValueCount(count);
+	}
+
+	private int boundary(BoundaryTable table, int epochDay) {
+		return last ? table.lastDay(unit, epochDay) : table.firstDay(unit, epochDay);
+	}
+
+	/*
+	 * Fills days with the boundaries of the length values from start; a null value takes a lane of
+	 * day 0, and its boundary is not used.
+	 */
+	private void boundaries(DateDayVector input, int start, int length) {
+		ArrowBuf data = input.getDataBuffer();
+		for (int i = 0; i < length; i++) {
+			days[i] = input.isNull(start + i) ? 0 : data.getInt((long) (start + i) * DateDayVector.TYPE_WIDTH);
+		}
+		kernel(length);
+	}
+
+	private void boundaries(TimeStampMilliVector input, int start, int length) {
+		ArrowBuf data = input.getDataBuffer();
+		for (int i = 0; i < length; i++) {
+			days[i] = input.isNull(start + i) ? 0
+					: PeriodRenderer.epochDay(data.getLong((long) (start + i) * TimeStampMilliVector.TYPE_WIDTH));
+		}
+		kernel(length);
+	}
+
+	private void kernel(int length) {
+		PeriodKernel kernel = PeriodKernel.get();
+		if (last) {
+			kernel.lastDays(unit, days, days, 0, length);
+		} else {
+			kernel.firstDays(unit, days, days, 0, length);
+		}
+	}
+
+	private void renderBoundary(int index, int boundaryDay, int millisOfDay, VarCharVector output) {
+		renderer.renderBoundaryDay(unit, last, boundaryDay, millisOfDay, outputFormat, includeInterval, interval);
+		output.setSafe(index, renderer.bytes(), 0, renderer.length());
+	}
+
+	private void render(int index, long localMillis, VarCharVector output) {
+		int epochDay = PeriodRenderer.epochDay(localMillis);
+		int millisOfDay = PeriodRenderer.millisOfDay(localMillis);
+		if (last) {
+			renderer.renderLastDay(unit, epochDay, millisOfDay, outputFormat, includeInterval, interval);
+		} else {
+			renderer.renderFirstDay(unit, epochDay, millisOfDay, outputFormat, includeInterval, interval);
+		}
+		// only grows the data buffer when the caller allocated too few bytes
+		output.setSafe(index, renderer.bytes(), 0, renderer.length());
+	}
+
+	/*
+	 * Returns the local millis of the string at the index, or Long.MIN_VALUE when it does not parse.
+	 */
+	private long parse(VarCharVector input, int index) {
+		ArrowBuf offsets = input.getOffsetBuffer();
+		int start = offsets.getInt((long) index * VarCharVector.OFFSET_WIDTH);
+		int length = offsets.getInt((long) (index + 1) * VarCharVector.OFFSET_WIDTH) - start;
+		ArrowBuf data = input.getDataBuffer();
+
+		if (isoInput && length == 10) {
+			int epochDay = isoDate(data, start);
+			if (epochDay != Integer.MIN_VALUE) {
+				return epochDay * (long) PeriodRenderer.MILLIS_PER_DAY;
+			}
+		}
+
+		if (scratch.length < length) {
+			scratch = new byte[Math.max(length, scratch.length * 2)];
+		}
+		data.getBytes(start, scratch, 0, length);
+		String date = new String(scratch, 0, length, StandardCharsets.UTF_8);
+		long localMillis = parsedDates.get(date, Long.MIN_VALUE);
+		if (localMillis != Long.MIN_VALUE) {
+			return localMillis;
+		}
+		try {
+			localMillis = PeriodRenderer.toLocalMillis(inputFormatter().parse(date).getTime(), timeZone);
+		} catch (ParseException e) {
+			return Long.MIN_VALUE;
+		}
+		parsedDates.put(date, localMillis);
+		return localMillis;
+	}
+
+	/*
+	 * Returns the epoch day of a well-formed yyyy-MM-dd, or Integer.MIN_VALUE for anything the
+	 * lenient formatter has to interpret, and for years before 1583, which it reads as Julian.
+	 */
+	private static int isoDate(ArrowBuf data, long start) {
+		int year = 0;
+		int month = 0;
+		int day = 0;
+		for (int i = 0; i < 10; i++) {
+			int c = data.getByte(start + i);
+			if (i == 4 || i == 7) {
+				if (c != '-') {
+					return Integer.MIN_VALUE;
+				}
+				continue;
+			}
+			if (c < '0' || c > '9') {
+				return Integer.MIN_VALUE;
+			}
+			if (i < 4) {
+				year = year * 10 + c - '0';
+			} else if (i < 7) {
+				month = month * 10 + c - '0';
+			} else {
+				day = day * 10 + c - '0';
+			}
+		}
+		if (year < 1583 || month < 1 || month > 12 || day < 1) {
+			return Integer.MIN_VALUE;
+		}
+		int epochDay = EpochDays.of(year, month, day);
+		// days past the end of the month roll over
+		return EpochDays.yearMonthDay(epochDay) == (year << 9 | month << 5 | day) ? epochDay : Integer.MIN_VALUE;
+	}
+
+	private SimpleDateFormat inputFormatter() {
+		if (inputFormatter == null) {
+			inputFormatter = new SimpleDateFormat(inputFormat);
+			inputFormatter.setTimeZone(timeZone);
+		}
+		return inputFormatter;
+	}
+
+	private static int prepare(ValueVector input, ValueVector output) {
+		int count = input.getValueCount();
+		if (output.getValueCapacity() < count) {
+			throw new IllegalArgumentException(
+					"Output vector holds " + output.getValueCapacity() + " values, the input has " + count);
+		}
+		return count;
+	}
+
+}
@@ -0,0 +1,186 @@
+package unit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.TimeZone;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.TimeStampMilliVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.bigdata.hive.udf.arrow.ArrowPeriodEvaluator;
+import com.bigdata.hive.udf.engine.EpochDays;
+import com.bigdata.hive.udf.engine.PeriodKernel;
+import com.bigdata.hive.udf.engine.PeriodRenderer;
+import com.bigdata.hive.udf.engine.TimeUnit;
+
+public class ArrowPeriodEvaluatorTest {
+
+	private BufferAllocator allocator;
+
+	@Before
+	public void createAllocator() {
+		allocator = new RootAllocator();
+	}
+
+	@After
+	public void closeAllocator() {
+		// fails when a vector was leaked
+		allocator.close();
+	}
+
+	@Test
+	public void shouldWriteBoundaryDaysOfDatesAndTimestamps() {
+		try (DateDayVector dates = new DateDayVector("d", allocator);
+				TimeStampMilliVector timestamps = new TimeStampMilliVector("t", allocator);
+				DateDayVector output = new DateDayVector("out", allocator)) {
+			dates.allocateNew(3);
+			dates.set(0, EpochDays.of(2016, 2, 10));
+			dates.setNull(1);
+			dates.set(2, EpochDays.of(1969, 12, 31));
+			dates.setValueCount(3);
+			output.allocateNew(3);
+
+			new ArrowPeriodEvaluator(TimeUnit.MONTH, true).boundaries(dates, output);
+
+			assertThat(output.getValueCount(), is(3));
+			assertThat(output.get(0), is(EpochDays.of(2016, 2, 29)));
+			assertThat(output.isNull(1), is(true));
+			assertThat(output.get(2), is(EpochDays.of(1969, 12, 31)));
+
+			timestamps.allocateNew(2);
+			// 2011-08-17 23:59:59.999 and 1969-12-31 12:00:00
+			timestamps.set(0, 1313625599999L);
+			timestamps.set(1, -43200000L);
+			timestamps.setValueCount(2);
+
+			new ArrowPeriodEvaluator(TimeUnit.QUARTER, false).boundaries(timestamps, output);
+
+			assertThat(output.getValueCount(), is(2));
+			assertThat(output.get(0), is(EpochDays.of(2011, 7, 1)));
+			assertThat(output.get(1), is(EpochDays.of(1969, 10, 1)));
+		}
+	}
+
+	@Test
+	public void shouldRenderStringsLikeTheUdf() {
+		try (VarCharVector strings = new VarCharVector("s", allocator);
+				VarCharVector output = new VarCharVector("out", allocator)) {
+			String[] values = { "2016-02-10", "2016-02-30", "not a date", null, "2011-12-31", "1500-06-15" };
+			strings.allocateNew(values.length);
+			for (int i = 0; i < values.length; i++) {
+				if (values[i] == null) {
+					strings.setNull(i);
+				} else {
+					strings.setSafe(i, values[i].getBytes(StandardCharsets.UTF_8));
+				}
+			}
+			strings.setValueCount(values.length);
+			output.allocateNew(values.length);
+
+			new ArrowPeriodEvaluator(TimeUnit.WEEK, false, "yyyy-MM-dd", "dd/MM/yyyy", false,
+					PeriodRenderer.NO_INTERVAL, TimeZone.getTimeZone("UTC")).render(strings, output);
+
+			// the lenient formatter rolls 30 February over, and reads 1500-06-15 as Julian, 1500-06-25 Gregorian
+			assertThat(text(output, 0), is("08/02/2016"));
+			assertThat(text(output, 1), is("29/02/2016"));
+			assertThat(text(output, 2), is(nullValue()));
+			assertThat(text(output, 3), is(nullValue()));
+			assertThat(text(output, 4), is("26/12/2011"));
+			assertThat(text(output, 5), is("25/06/1500"));
+		}
+	}
+
+	@Test
+	public void shouldParseOtherInputFormatsWithIntervals() {
+		try (VarCharVector strings = new VarCharVector("s", allocator);
+				DateDayVector days = new DateDayVector("days", allocator);
+				VarCharVector output = new VarCharVector("out", allocator)) {
+			strings.allocateNew(2);
+			strings.setSafe(0, "22-02-2011".getBytes(StandardCharsets.UTF_8));
+			strings.setSafe(1, "22/02/2011".getBytes(StandardCharsets.UTF_8));
+			strings.setValueCount(2);
+			days.allocateNew(2);
+			output.allocateNew(2);
+
+			ArrowPeriodEvaluator evaluator = new ArrowPeriodEvaluator(TimeUnit.YEAR, true, "dd-MM-yyyy", null, true,
+					PeriodRenderer.parseInterval("10:20:30"), TimeZone.getTimeZone("UTC"));
+			evaluator.boundaries(strings, days);
+			evaluator.render(strings, output);
+
+			assertThat(days.get(0), is(EpochDays.of(2011, 12, 31)));
+			assertThat(text(output, 0), is("2011-12-31 10:20:30"));
+			assertThat(text(output, 1), is(nullValue()));
+		}
+	}
+
+	@Test
+	public void shouldAgreeAcrossKernelChunksWithEitherKernel() {
+		int count = 2500;
+		int from = EpochDays.of(2010, 3, 17);
+		try (DateDayVector dates = new DateDayVector("d", allocator);
+				TimeStampMilliVector timestamps = new TimeStampMilliVector("t", allocator);
+				DateDayVector days = new DateDayVector("days", allocator);
+				VarCharVector output = new VarCharVector("out", allocator)) {
+			dates.allocateNew(count);
+			timestamps.allocateNew(count);
+			for (int i = 0; i < count; i++) {
+				if (i % 5 == 1) {
+					dates.setNull(i);
+					timestamps.setNull(i);
+				} else {
+					dates.set(i, from + i);
+					timestamps.set(i, (from + i) * (long) PeriodRenderer.MILLIS_PER_DAY + 3723000L);
+				}
+			}
+			dates.setValueCount(count);
+			timestamps.setValueCount(count);
+			days.allocateNew(count);
+			output.allocateNew(count);
+
+			try {
+				for (boolean simd : new boolean[] { false, true }) {
+					PeriodKernel.setSimdEnabled(simd);
+					ArrowPeriodEvaluator evaluator = new ArrowPeriodEvaluator(TimeUnit.QUARTER, true);
+
+					evaluator.boundaries(dates, days);
+					for (int i = 0; i < count; i++) {
+						int expected = EpochDays.lastDay(TimeUnit.QUARTER, from + i);
+						assertThat(PeriodKernel.get() + " at " + i, days.isNull(i) ? null : days.get(i),
+								is(i % 5 == 1 ? null : expected));
+					}
+
+					evaluator.boundaries(timestamps, days);
+					for (int i = 0; i < count; i += 5) {
+						assertThat(days.get(i), is(EpochDays.lastDay(TimeUnit.QUARTER, from + i)));
+					}
+
+					new ArrowPeriodEvaluator(TimeUnit.MONTH, false, "yyyy-MM-dd", "yyyy-MM-dd HH:mm:ss", false,
+							PeriodRenderer.NO_INTERVAL, TimeZone.getTimeZone("UTC")).render(timestamps, output);
+					for (int i = 0; i < count; i++) {
+						int ymd = EpochDays.yearMonthDay(EpochDays.firstDay(TimeUnit.MONTH, from + i));
+						String expected = i % 5 == 1 ? null
+								: String.format("%04d-%02d-01 01:02:03", EpochDays.year(ymd), EpochDays.month(ymd));
+						assertThat(text(output, i), is(expected));
+					}
+				}
+			} finally {
+				PeriodKernel.setSimdEnabled(!"false".equalsIgnoreCase(System.getProperty(PeriodKernel.SIMD_PROPERTY)));
+			}
+		}
+	}
+
+	private static String text(VarCharVector vector, int index) {
+		byte[] bytes = vector.get(index);
+		return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,580 @@
+package com.bigdata.hive.udf.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.bigdata.hive.udf.engine.EpochDays;
+import com.bigdata.hive.udf.engine.ParsedDateCache;
+import com.bigdata.hive.udf.engine.PeriodCalculator;
+import com.bigdata.hive.udf.engine.PeriodRenderer;
+import com.bigdata.hive.udf.engine.TimeUnit;
+
+/*
+ * Rewrites one date column of a large CSV/TSV file to the first or last day of a unit, with the
+ * same semantics as FIRST_DAY_OF/LAST_DAY_OF on a STRING date.
+ *
+ * The input is memory-mapped in chunks split at line boundaries, chunks are processed in parallel
+ * into direct buffers and written to the output in input order. The buffers are reused, and those
+ * in flight kept within half of the direct memory limit, which is the maximum heap by default. The
+ * output file only appears once complete.
+ *
+ * Fields are split as in RFC 4180: a field starting with a double quote runs to the closing quote,
+ * with "" for a quote, and may hold the delimiter. A line break always ends a row, as chunks are
+ * split at line breaks. A quoted date is written back quoted, as is any output that needs it.
+ *
+ * Dates in yyyy-MM-dd are parsed from their bytes, other input formats through SimpleDateFormat and
+ * a parsed date cache. An unparsable date follows --error-mode, by default the
+ * dayextremes.error.mode system property, as in the UDFs: current_time renders the current time,
+ * null leaves the field empty, both counting the row as rejected, and fail stops the rewrite.
+ */
+public final class DayExtremesCli {
+
+	private static final String USAGE = "Usage: DayExtremesCli (--first | --last) --unit <DAY|WEEK|MONTH|QUARTER|YEAR> --column <n>"
+			+ " [--delimiter <char|tab>] [--input-format <pattern>] [--output-format <pattern>]"
+			+ " [--include-interval] [--interval <HH:mm:ss>] [--error-mode <current_time|null|fail>] [--header]"
+			+ " [--threads <n>] [--chunk-mb <n>]"
+			+ " <input file> <output file>";
+
+	private static final int NEWLINE_SCAN_BYTES = 64 * 1024;
+	private static final int PARSED_DATE_CACHE_CAPACITY = 1024;
+	// the largest direct buffer a chunk's output can grow to
+	private static final int MAX_OUTPUT_BYTES = Integer.MAX_VALUE - 8;
+	private static final long UNPARSABLE = Long.MIN_VALUE;
+
+	private enum ErrorMode {
+		CURRENT_TIME,
+		NULL,
+		FAIL
+	}
+
+	private final boolean first;
+	private final TimeUnit unit;
+	private final int column;
+	private final byte delimiter;
+	private final String inputFormat;
+	private final String outputFormat;
+	private final boolean includeInterval;
+	private final int interval;
+	private final ErrorMode errorMode;
+	private final boolean header;
+	private final int threads;
+	private final long chunkBytes;
+
+	private DayExtremesCli(boolean first, TimeUnit unit, int column, byte delimiter, String inputFormat,
+			String outputFormat, boolean includeInterval, int interval, ErrorMode errorMode, boolean header,
+			int threads, long chunkBytes) {
+		this.first = first;
+		this.unit = unit;
+		this.column = column;
+		this.delimiter = delimiter;
+		this.inputFormat = inputFormat;
+		this.outputFormat = outputFormat;
+		this.includeInterval = includeInterval;
+		this.interval = interval;
+		this.errorMode = errorMode;
+		this.header = header;
+		this.threads = threads;
+		this.chunkBytes = chunkBytes;
+	}
+
+	public static void main(String[] args) throws Exception {
+		DayExtremesCli cli;
+		String[] files = new String[2];
+		try {
+			cli = parse(args, files);
+		} catch (IllegalArgumentException exception) {
+			System.err.println(exception.getMessage());
+			System.err.println(USAGE);
+			System.exit(2);
+			return;
+		}
+
+		long start = System.nanoTime();
+		long[] counts = cli.rewrite(new File(files[0]), new File(files[1]));
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		double megabytes = counts[0] / (1024.0 * 1024.0);
+		System.err.println(String.format(Locale.ROOT,
+				"%d rows (%d rejected), %.1f MB in %.3f s: %.1f MB/s, %.0f rows/s", counts[1], counts[2], megabytes,
+				seconds, megabytes / seconds, counts[1] / seconds));
+	}
+
+	static DayExtremesCli parse(String[] args, String[] files) {
+		Boolean first = null;
+		TimeUnit unit = null;
+		int column = -1;
+		byte delimiter = ',';
+		String inputFormat = PeriodCalculator.DEFAULT_DATE_FORMAT;
+		String outputFormat = null;
+		boolean includeInterval = false;
+		int interval = PeriodRenderer.NO_INTERVAL;
+		String errorMode = System.getProperty("dayextremes.error.mode", ErrorMode.CURRENT_TIME.name());
+		boolean header = false;
+		int threads = Runtime.getRuntime().availableProcessors();
+		long chunkBytes = 64L * 1024 * 1024;
+		int fileCount = 0;
+
+		for (int i = 0; i < args.length; i++) {
+			String arg = args[i];
+			switch (arg) {
+			case "--first":
+				first = Boolean.TRUE;
+				break;
+			case "--last":
+				first = Boolean.FALSE;
+				break;
+			case "--unit":
+				try {
+					unit = TimeUnit.valueOf(value(args, ++i).trim().toUpperCase());
+				} catch (IllegalArgumentException exception) {
+					throw new IllegalArgumentException("unit can only be one of DAY, WEEK, MONTH, QUARTER, YEAR");
+				}
+				break;
+			case "--column":
+				column = Integer.parseInt(value(args, ++i)) - 1;
+				break;
+			case "--delimiter":
+				String value = value(args, ++i);
+				if ("tab".equalsIgnoreCase(value) || "\\t".equals(value)) {
+					delimiter = '\t';
+				} else if (value.length() == 1 && value.charAt(0) < 128) {
+					delimiter = (byte) value.charAt(0);
+				} else {
+					throw new IllegalArgumentException("delimiter must be a single ASCII character or 'tab'");
+				}
+				break;
+			case "--input-format":
+				inputFormat = value(args, ++i);
+				break;
+			case "--output-format":
+				outputFormat = value(args, ++i);
+				break;
+			case "--include-interval":
+				includeInterval = true;
+				break;
+			case "--interval":
+				interval = PeriodRenderer.parseInterval(value(args, ++i));
+				break;
+			case "--error-mode":
+				errorMode = value(args, ++i);
+				break;
+			case "--header":
+				header = true;
+				break;
+			case "--threads":
+				threads = Integer.parseInt(value(args, ++i));
+				break;
+			case "--chunk-mb":
+				chunkBytes = Long.parseLong(value(args, ++i)) * 1024 * 1024;
+				break;
+			default:
+				if (arg.startsWith("--") || fileCount == 2) {
+					throw new IllegalArgumentException("Unexpected argument " + arg);
+				}
+				files[fileCount++] = arg;
+			}
+		}
+
+		if (first == null || unit == null || column < 0 || fileCount != 2) {
+			throw new IllegalArgumentException("--first/--last, --unit, --column and both files are required");
+		}
+		if (threads < 1 || chunkBytes < 1 || chunkBytes > 1024L * 1024 * 1024) {
+			throw new IllegalArgumentException("--threads must be positive and --chunk-mb between 1 and 1024");
+		}
+		ErrorMode mode;
+		try {
+			mode = ErrorMode.valueOf(errorMode.trim().toUpperCase());
+		} catch (IllegalArgumentException exception) {
+			throw new IllegalArgumentException("error mode can only be one of CURRENT_TIME, NULL, FAIL");
+		}
+		return new DayExtremesCli(first, unit, column, delimiter, inputFormat, outputFormat, includeInterval,
+				interval, mode, header, threads, chunkBytes);
+	}
+
+	/*
+	 * Returns input bytes, rows and rejected rows. The output is written to a temporary file next to
+	 * it and renamed when complete, so a failed rewrite leaves no partial output.
+	 */
+	long[] rewrite(File input, File output) throws IOException, InterruptedException {
+		File partial = File.createTempFile(output.getName() + ".", ".tmp", output.getAbsoluteFile().getParentFile());
+		long[] counts;
+		try {
+			counts = rewriteTo(input, partial);
+			Files.move(partial.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			partial.delete();
+		}
+		return counts;
+	}
+
+	private long[] rewriteTo(File input, File output) throws IOException, InterruptedException {
+		long[] counts = new long[3];
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		// direct memory is bounded by the maximum heap unless set otherwise: keep to half of it
+		int outputBytes = outputBytes(chunkBytes);
+		long maxInFlight = Math.max(1, Math.min(threads * 2L, Runtime.getRuntime().maxMemory() / 2 / outputBytes));
+		// output buffers of written chunks, reused by the next ones
+		Deque<ByteBuffer> spareBuffers = new ArrayDeque<ByteBuffer>();
+
+		try (RandomAccessFile in = new RandomAccessFile(input, "r");
+				RandomAccessFile out = new RandomAccessFile(output, "rw")) {
+			FileChannel inChannel = in.getChannel();
+			FileChannel outChannel = out.getChannel();
+			out.setLength(0);
+			counts[0] = inChannel.size();
+
+			long position = 0;
+			if (header) {
+				position = nextLineStart(inChannel, 0);
+				ByteBuffer headerLine = inChannel.map(MapMode.READ_ONLY, 0, position);
+				while (headerLine.hasRemaining()) {
+					outChannel.write(headerLine);
+				}
+			}
+
+			// keep a bounded number of chunks in flight and write them back in input order
+			Deque<Future<ChunkResult>> inFlight = new ArrayDeque<Future<ChunkResult>>();
+			while (position < counts[0] || !inFlight.isEmpty()) {
+				while (position < counts[0] && inFlight.size() < maxInFlight) {
+					long end = nextLineStart(inChannel, Math.min(position + chunkBytes, counts[0]));
+					final MappedByteBuffer chunk = inChannel.map(MapMode.READ_ONLY, position, end - position);
+					final ByteBuffer spare = spareBuffers.pollFirst();
+					inFlight.addLast(executor.submit(new Callable<ChunkResult>() {
+						@Override
+						public ChunkResult call() {
+							return process(chunk, spare);
+						}
+					}));
+					position = end;
+				}
+
+				ChunkResult result = await(inFlight.removeFirst());
+				((Buffer) result.output).flip();
+				while (result.output.hasRemaining()) {
+					outChannel.write(result.output);
+				}
+				((Buffer) result.output).clear();
+				spareBuffers.addLast(result.output);
+				counts[1] += result.rows;
+				counts[2] += result.rejected;
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		return counts;
+	}
+
+	/*
+	 * Rewrites the rows of a chunk into the spare buffer, or a new one if it is null or too small.
+	 */
+	ChunkResult process(ByteBuffer chunk, ByteBuffer spare) {
+		int capacity = outputBytes(chunk.remaining());
+		ChunkResult result = new ChunkResult(
+				spare != null && spare.capacity() >= capacity ? spare : ByteBuffer.allocateDirect(capacity));
+		DateParser parser = new DateParser(inputFormat);
+		PeriodRenderer renderer = new PeriodRenderer();
+		ByteBuffer view = chunk.duplicate();
+		int limit = chunk.limit();
+		int lineStart = chunk.position();
+
+		while (lineStart < limit) {
+			int lineEnd = lineStart;
+			while (lineEnd < limit && chunk.get(lineEnd) != '\n') {
+				lineEnd++;
+			}
+			int contentEnd = lineEnd > lineStart && chunk.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+			int nextLine = lineEnd < limit ? lineEnd + 1 : lineEnd;
+
+			// the bounds of the column, the delimiter only counts outside quotes
+			int fieldStart = lineStart;
+			int fieldEnd = contentEnd;
+			int field = 0;
+			boolean quoted = false;
+			for (int i = lineStart; i < contentEnd; i++) {
+				byte c = chunk.get(i);
+				if (quoted) {
+					if (c == '"') {
+						if (i + 1 < contentEnd && chunk.get(i + 1) == '"') {
+							i++;
+						} else {
+							quoted = false;
+						}
+					}
+				} else if (c == '"' && i == fieldStart) {
+					quoted = true;
+				} else if (c == delimiter) {
+					if (field == column) {
+						fieldEnd = i;
+						break;
+					}
+					field++;
+					fieldStart = i + 1;
+				}
+			}
+
+			if (field < column || contentEnd == lineStart) {
+				// short or blank line, nothing to rewrite
+				result.copy(view, lineStart, nextLine);
+			} else {
+				result.copy(view, lineStart, fieldStart);
+				rewriteField(parser, renderer, chunk, fieldStart, fieldEnd, result);
+				result.copy(view, fieldEnd, nextLine);
+				result.rows++;
+			}
+			lineStart = nextLine;
+		}
+		return result;
+	}
+
+	private void rewriteField(DateParser parser, PeriodRenderer renderer, ByteBuffer chunk, int start, int end,
+			ChunkResult result) {
+		boolean quoted = end - start >= 2 && chunk.get(start) == '"' && chunk.get(end - 1) == '"';
+		long localMillis = quoted ? parser.parse(chunk, start + 1, end - 1) : parser.parse(chunk, start, end);
+		if (localMillis == UNPARSABLE) {
+			result.rejected++;
+			switch (errorMode) {
+			case NULL:
+				return;
+			case FAIL:
+				throw new IllegalArgumentException("Unparsable date " + parser.text(chunk, start, end)
+						+ " for input format " + inputFormat);
+			default:
+				localMillis = PeriodRenderer.toLocalMillis(System.currentTimeMillis());
+			}
+		}
+
+		int epochDay = PeriodRenderer.epochDay(localMillis);
+		int millisOfDay = PeriodRenderer.millisOfDay(localMillis);
+		if (first) {
+			renderer.renderFirstDay(unit, epochDay, millisOfDay, outputFormat, includeInterval, interval);
+		} else {
+			renderer.renderLastDay(unit, epochDay, millisOfDay, outputFormat, includeInterval, interval);
+		}
+		if (quoted || needsQuotes(renderer.bytes(), renderer.length())) {
+			result.putQuoted(renderer.bytes(), renderer.length());
+		} else {
+			result.put(renderer.bytes(), renderer.length());
+		}
+	}
+
+	private boolean needsQuotes(byte[] bytes, int length) {
+		for (int i = 0; i < length; i++) {
+			byte c = bytes[i];
+			if (c == delimiter || c == '"' || c == '\n' || c == '\r') {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * Room for the output of a chunk: rewritten dates may be longer than the input ones.
+	 */
+	private static int outputBytes(long chunkBytes) {
+		return (int) Math.min(chunkBytes + chunkBytes / 4 + 1024, MAX_OUTPUT_BYTES);
+	}
+
+	/*
+	 * Returns the start of the line following the one that contains position - 1.
+	 */
+	private static long nextLineStart(FileChannel channel, long position) throws IOException {
+		long size = channel.size();
+		ByteBuffer window = ByteBuffer.allocate(NEWLINE_SCAN_BYTES);
+		long offset = Math.max(position - 1, 0);
+
+		while (offset < size) {
+			((Buffer) window).clear();
+			int read = channel.read(window, offset);
+			if (read <= 0) {
+				break;
+			}
+			for (int i = 0; i < read; i++) {
+				if (window.get(i) == '\n') {
+					return offset + i + 1;
+				}
+			}
+			offset += read;
+		}
+		return size;
+	}
+
+	private static ChunkResult await(Future<ChunkResult> future) throws IOException, InterruptedException {
+		try {
+			return future.get();
+		} catch (ExecutionException exception) {
+			throw new IOException("Failed to rewrite chunk: " + exception.getCause().getMessage(),
+					exception.getCause());
+		}
+	}
+
+	private static String value(String[] args, int index) {
+		if (index >= args.length) {
+			throw new IllegalArgumentException(args[index - 1] + " needs a value");
+		}
+		return args[index];
+	}
+
+	/*
+	 * The date parsing of one chunk: yyyy-MM-dd from the bytes, other formats through the cache.
+	 */
+	private static final class DateParser {
+
+		private final boolean isoInput;
+		private final SimpleDateFormat formatter;
+		private final ParsedDateCache parsedDates = new ParsedDateCache(PARSED_DATE_CACHE_CAPACITY);
+		private byte[] scratch = new byte[32];
+
+		DateParser(String inputFormat) {
+			isoInput = PeriodCalculator.DEFAULT_DATE_FORMAT.equals(inputFormat);
+			formatter = new SimpleDateFormat(inputFormat);
+		}
+
+		/*
+		 * Returns the local millis of the date between start and end, or UNPARSABLE.
+		 */
+		long parse(ByteBuffer chunk, int start, int end) {
+			if (isoInput && end - start == 10) {
+				int epochDay = isoDate(chunk, start);
+				if (epochDay != Integer.MIN_VALUE) {
+					return epochDay * (long) PeriodRenderer.MILLIS_PER_DAY;
+				}
+			}
+
+			String date = text(chunk, start, end);
+			long localMillis = parsedDates.get(date, UNPARSABLE);
+			if (localMillis != UNPARSABLE) {
+				return localMillis;
+			}
+			try {
+				localMillis = PeriodRenderer.toLocalMillis(formatter.parse(date).getTime());
+			} catch (ParseException exception) {
+				return UNPARSABLE;
+			}
+			parsedDates.put(date, localMillis);
+			return localMillis;
+		}
+
+		String text(ByteBuffer chunk, int start, int end) {
+			int length = end - start;
+			if (scratch.length < length) {
+				scratch = new byte[Math.max(length, scratch.length * 2)];
+			}
+			int count = 0;
+			for (int i = start; i < end; i++) {
+				byte c = chunk.get(i);
+				// a quote inside a quoted field is doubled
+				if (c == '"' && i + 1 < end && chunk.get(i + 1) == '"') {
+					i++;
+				}
+				scratch[count++] = c;
+			}
+			return new String(scratch, 0, count, StandardCharsets.UTF_8);
+		}
+
+		/*
+		 * Returns the epoch day of a well-formed yyyy-MM-dd, or Integer.MIN_VALUE for anything the
+		 * lenient formatter has to interpret, and for years before 1583, which it reads as Julian.
+		 */
+		private static int isoDate(ByteBuffer chunk, int start) {
+			int year = 0;
+			int month = 0;
+			int day = 0;
+			for (int i = 0; i < 10; i++) {
+				int c = chunk.get(start + i);
+				if (i == 4 || i == 7) {
+					if (c != '-') {
+						return Integer.MIN_VALUE;
+					}
+					continue;
+				}
+				if (c < '0' || c > '9') {
+					return Integer.MIN_VALUE;
+				}
+				if (i < 4) {
+					year = year * 10 + c - '0';
+				} else if (i < 7) {
+					month = month * 10 + c - '0';
+				} else {
+					day = day * 10 + c - '0';
+				}
+			}
+			if (year < 1583 || month < 1 || month > 12 || day < 1) {
+				return Integer.MIN_VALUE;
+			}
+			int epochDay = EpochDays.of(year, month, day);
+			// days past the end of the month roll over
+			return EpochDays.yearMonthDay(epochDay) == (year << 9 | month << 5 | day) ? epochDay : Integer.MIN_VALUE;
+		}
+	}
+
+	static final class ChunkResult {
+
+		ByteBuffer output;
+		long rows;
+		long rejected;
+
+		ChunkResult(ByteBuffer output) {
+			this.output = output;
+		}
+
+		void copy(ByteBuffer view, int from, int to) {
+			ensure(to - from);
+			// through Buffer, as the ByteBuffer overrides only exist from Java 9
+			((Buffer) view).limit(to);
+			((Buffer) view).position(from);
+			output.put(view);
+		}
+
+		void put(byte[] bytes, int length) {
+			ensure(length);
+			output.put(bytes, 0, length);
+		}
+
+		void putQuoted(byte[] bytes, int length) {
+			ensure(length * 2L + 2);
+			output.put((byte) '"');
+			for (int i = 0; i < length; i++) {
+				if (bytes[i] == '"') {
+					output.put((byte) '"');
+				}
+				output.put(bytes[i]);
+			}
+			output.put((byte) '"');
+		}
+
+		private void ensure(long bytes) {
+			if (output.remaining() < bytes) {
+				// sized in longs, as doubling a chunk over 1 GB overflows an int
+				long needed = output.position() + bytes;
+				if (needed > MAX_OUTPUT_BYTES) {
+					throw new IllegalStateException("A chunk's output exceeds 2 GB, use a smaller --chunk-mb");
+				}
+				ByteBuffer grown = ByteBuffer.allocateDirect(
+						(int) Math.min(Math.max(output.capacity() * 2L, needed), MAX_OUTPUT_BYTES));
+				((Buffer) output).flip();
+				grown.put(output);
+				output = grown;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,240 @@
+package com.bigdata.hive.udf.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/*
+ * Per-day lookup of the first/last day of every WEEK, MONTH, QUARTER and YEAR over a fixed range
+ * of years.
+ *
+ * Layout (big endian): magic, version, first epoch day, day count, followed by one block of
+ * day count shorts per (unit, first/last) pair holding the signed distance in days from the
+ * indexed day to its boundary. A 1900-2099 table is a little over 1 MB.
+ *
+ * The table is either memory-mapped read-only from a file written by BoundaryTableGenerator, so
+ * that every task JVM on a node shares the same page-cache pages, or computed on the heap when
+ * no file is available. The shared heap table is filled in segments of 256 days on first lookup,
+ * so a short task only pays for the dates it actually sees. Days outside the covered range fall
+ * back to EpochDays.
+ */
+public final class BoundaryTable {
+
+	public static final int DEFAULT_FIRST_YEAR = 1900;
+	public static final int DEFAULT_LAST_YEAR = 2099;
+
+	static final int MAGIC = 0x44584254;
+	static final int VERSION = 1;
+	static final int HEADER_BYTES = 16;
+
+	private static final int SEGMENT_SHIFT = 8;
+
+	private static final TimeUnit[] UNITS = { TimeUnit.WEEK, TimeUnit.MONTH, TimeUnit.QUARTER, TimeUnit.YEAR };
+
+	private static volatile BoundaryTable shared;
+	private static int heapFirstYear = DEFAULT_FIRST_YEAR;
+	private static int heapLastYear = DEFAULT_LAST_YEAR;
+
+	private final ByteBuffer buffer;
+	private final int firstEpochDay;
+	private final int dayCount;
+	private final boolean mapped;
+	// non-zero once a segment of a lazily computed table is filled, null when the table is complete
+	private final AtomicIntegerArray filledSegments;
+
+	private BoundaryTable(ByteBuffer buffer, boolean mapped, boolean lazy) throws IOException {
+		if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+			throw new IOException("Not a day-extremes boundary table");
+		}
+		this.buffer = buffer;
+		this.firstEpochDay = buffer.getInt(8);
+		this.dayCount = buffer.getInt(12);
+		this.mapped = mapped;
+		if (buffer.capacity() != HEADER_BYTES + UNITS.length * 2 * dayCount * 2) {
+			throw new IOException("Truncated day-extremes boundary table");
+		}
+		this.filledSegments = lazy ? new AtomicIntegerArray((dayCount >>> SEGMENT_SHIFT) + 1) : null;
+	}
+
+	/*
+	 * Returns the table shared by all UDF instances of this JVM, computing it on the heap as days
+	 * are looked up if nothing has been loaded.
+	 */
+	public static BoundaryTable get() {
+		BoundaryTable table = shared;
+		if (table == null) {
+			synchronized (BoundaryTable.class) {
+				table = shared;
+				if (table == null) {
+					table = allocate(heapFirstYear, heapLastYear, true);
+					shared = table;
+				}
+			}
+		}
+		return table;
+	}
+
+	/*
+	 * Maps the given file as the shared table. Returns false and keeps the current table if the
+	 * file does not exist or cannot be read.
+	 */
+	public static boolean load(File file) {
+		if (!file.isFile()) {
+			return false;
+		}
+		synchronized (BoundaryTable.class) {
+			if (shared != null && shared.mapped) {
+				return true;
+			}
+			try {
+				shared = map(file);
+				return true;
+			} catch (IOException exception) {
+				return false;
+			}
+		}
+	}
+
+	/*
+	 * Sets the years covered by the table computed on the heap when nothing is loaded, replacing
+	 * a heap table of other years. A mapped table is kept, its file defines its own years.
+	 */
+	public static void setHeapYears(int firstYear, int lastYear) {
+		if (firstYear > lastYear) {
+			throw new IllegalArgumentException("First year " + firstYear + " is after last year " + lastYear);
+		}
+		synchronized (BoundaryTable.class) {
+			heapFirstYear = firstYear;
+			heapLastYear = lastYear;
+			if (shared != null && !shared.mapped && (shared.firstEpochDay != EpochDays.of(firstYear, 1, 1)
+					|| shared.firstEpochDay + shared.dayCount != EpochDays.of(lastYear + 1, 1, 1))) {
+				shared = null;
+			}
+		}
+	}
+
+	public static BoundaryTable map(File file) throws IOException {
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = randomAccessFile.getChannel();
+			// the mapping stays valid once the channel is closed
+			return new BoundaryTable(channel.map(MapMode.READ_ONLY, 0, channel.size()), true, false);
+		} finally {
+			randomAccessFile.close();
+		}
+	}
+
+	public static BoundaryTable compute(int firstYear, int lastYear) {
+		BoundaryTable table = allocate(firstYear, lastYear, false);
+		table.fill(0, table.dayCount);
+		return table;
+	}
+
+	private static BoundaryTable allocate(int firstYear, int lastYear, boolean lazy) {
+		int firstEpochDay = EpochDays.of(firstYear, 1, 1);
+		int dayCount = EpochDays.of(lastYear, 12, 31) - firstEpochDay + 1;
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + UNITS.length * 2 * dayCount * 2)
+				.order(ByteOrder.BIG_ENDIAN);
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(firstEpochDay).putInt(dayCount);
+		((Buffer) buffer).clear();
+
+		try {
+			return new BoundaryTable(buffer, false, lazy);
+		} catch (IOException exception) {
+			throw new IllegalStateException(exception);
+		}
+	}
+
+	private void fill(int fromIndex, int toIndex) {
+		for (TimeUnit unit : UNITS) {
+			for (int index = fromIndex; index < toIndex; index++) {
+				int epochDay = firstEpochDay + index;
+				buffer.putShort(offset(unit, 0, index), (short) (EpochDays.firstDay(unit, epochDay) - epochDay));
+				buffer.putShort(offset(unit, 1, index), (short) (EpochDays.lastDay(unit, epochDay) - epochDay));
+			}
+		}
+	}
+
+	private void ensureFilled(int index) {
+		int segment = index >>> SEGMENT_SHIFT;
+		if (filledSegments.get(segment) == 0) {
+			// racing threads write identical values, the volatile set publishes them
+			int from = segment << SEGMENT_SHIFT;
+			fill(from, Math.min(from + (1 << SEGMENT_SHIFT), dayCount));
+			filledSegments.set(segment, 1);
+		}
+	}
+
+	public int firstDay(TimeUnit unit, int epochDay) {
+		return unit == TimeUnit.DAY ? epochDay : day(column(unit, false), unit, epochDay);
+	}
+
+	public int lastDay(TimeUnit unit, int epochDay) {
+		return unit == TimeUnit.DAY ? epochDay : day(column(unit, true), unit, epochDay);
+	}
+
+	/*
+	 * Returns the column of the first or last days of a unit other than DAY, for callers that look
+	 * up the same one on every row.
+	 */
+	static int column(TimeUnit unit, boolean last) {
+		// UNITS holds WEEK..YEAR which are ordinals 1..4
+		return (unit.ordinal() - 1) * 2 + (last ? 1 : 0);
+	}
+
+	int day(int column, TimeUnit unit, int epochDay) {
+		int index = epochDay - firstEpochDay;
+		if (index < 0 || index >= dayCount) {
+			return (column & 1) == 0 ? EpochDays.firstDay(unit, epochDay) : EpochDays.lastDay(unit, epochDay);
+		}
+		if (filledSegments != null) {
+			ensureFilled(index);
+		}
+		return epochDay + buffer.getShort(HEADER_BYTES + (column * dayCount + index) * 2);
+	}
+
+	/*
+	 * Returns whether the day is answered from the table rather than computed.
+	 */
+	public boolean covers(int epochDay) {
+		int index = epochDay - firstEpochDay;
+		return index >= 0 && index < dayCount;
+	}
+
+	public boolean isMapped() {
+		return mapped;
+	}
+
+	/*
+	 * Writes the table in its on-disk layout.
+	 */
+	public void writeTo(File file) throws IOException {
+		if (filledSegments != null) {
+			fill(0, dayCount);
+		}
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+		try {
+			randomAccessFile.setLength(0);
+			FileChannel channel = randomAccessFile.getChannel();
+			ByteBuffer source = buffer.duplicate();
+			// through Buffer, as ByteBuffer.clear() only exists from Java 9
+			((Buffer) source).clear();
+			while (source.hasRemaining()) {
+				channel.write(source);
+			}
+		} finally {
+			randomAccessFile.close();
+		}
+	}
+
+	private int offset(TimeUnit unit, int boundary, int index) {
+		return HEADER_BYTES + (column(unit, boundary == 1) * dayCount + index) * 2;
+	}
+
+}
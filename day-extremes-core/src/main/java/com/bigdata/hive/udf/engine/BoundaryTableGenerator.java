@@ -0,0 +1,34 @@
+package com.bigdata.hive.udf.engine;
+
+import java.io.File;
+import java.io.IOException;
+
+/*
+ * Writes a boundary table file to be shipped through the distributed cache.
+ *
+ * Usage: BoundaryTableGenerator <output file> [first year] [last year]
+ */
+public final class BoundaryTableGenerator {
+
+	private BoundaryTableGenerator() {
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 1 && args.length != 3) {
+			System.err.println("Usage: BoundaryTableGenerator <output file> [first year] [last year]");
+			System.exit(1);
+		}
+
+		int firstYear = args.length == 3 ? Integer.parseInt(args[1]) : BoundaryTable.DEFAULT_FIRST_YEAR;
+		int lastYear = args.length == 3 ? Integer.parseInt(args[2]) : BoundaryTable.DEFAULT_LAST_YEAR;
+		if (firstYear > lastYear) {
+			throw new IllegalArgumentException("first year must not be after last year");
+		}
+
+		File output = new File(args[0]);
+		BoundaryTable.compute(firstYear, lastYear).writeTo(output);
+		System.out.println("Wrote boundary table for " + firstYear + "-" + lastYear + " to " + output + " ("
+				+ output.length() + " bytes)");
+	}
+
+}
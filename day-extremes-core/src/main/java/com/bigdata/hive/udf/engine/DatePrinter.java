@@ -0,0 +1,164 @@
+package com.bigdata.hive.udf.engine;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/*
+ * Prints a local date-time as ASCII straight into a caller-owned buffer, without allocating.
+ *
+ * Only patterns made of yyyy, MM, dd, HH, mm, ss and unquoted punctuation are supported, which
+ * covers the default formats; compile() returns null for anything else and callers fall back to
+ * PeriodCalculator.format. Output is identical to the Joda-Time/java.time formatters for years
+ * 0 to 9999; print() returns -1 outside that range.
+ */
+public final class DatePrinter {
+
+	private static final int LITERAL = 0;
+	private static final int YEAR = 1;
+	private static final int MONTH = 2;
+	private static final int DAY = 3;
+	private static final int HOUR = 4;
+	private static final int MINUTE = 5;
+	private static final int SECOND = 6;
+
+	// compiled printers are immutable and shared by every renderer of the JVM
+	private static final int MAX_CACHED_PATTERNS = 256;
+	private static final ConcurrentMap<String, DatePrinter> COMPILED = new ConcurrentHashMap<String, DatePrinter>();
+	private static final DatePrinter UNSUPPORTED = new DatePrinter(new int[0], new byte[0], 0);
+
+	private final int[] fields;
+	private final byte[] literals;
+	private final int length;
+
+	private DatePrinter(int[] fields, byte[] literals, int length) {
+		this.fields = fields;
+		this.literals = literals;
+		this.length = length;
+	}
+
+	/*
+	 * Same as compile() but compiles each pattern once per JVM.
+	 */
+	public static DatePrinter forPattern(String pattern) {
+		DatePrinter printer = COMPILED.get(pattern);
+		if (printer == null) {
+			printer = compile(pattern);
+			if (printer == null) {
+				printer = UNSUPPORTED;
+			}
+			if (COMPILED.size() < MAX_CACHED_PATTERNS) {
+				COMPILED.putIfAbsent(pattern, printer);
+			}
+		}
+		return printer == UNSUPPORTED ? null : printer;
+	}
+
+	public static DatePrinter compile(String pattern) {
+		int[] fields = new int[pattern.length()];
+		byte[] literals = new byte[pattern.length()];
+		int count = 0;
+		int length = 0;
+
+		for (int i = 0; i < pattern.length();) {
+			char c = pattern.charAt(i);
+			int run = 1;
+			while (i + run < pattern.length() && pattern.charAt(i + run) == c) {
+				run++;
+			}
+
+			int field = field(c, run);
+			if (field < 0) {
+				return null;
+			}
+			if (field == LITERAL) {
+				for (int j = 0; j < run; j++) {
+					literals[count] = (byte) c;
+					fields[count++] = LITERAL;
+				}
+				length += run;
+			} else {
+				fields[count++] = field;
+				length += field == YEAR ? 4 : 2;
+			}
+			i += run;
+		}
+
+		int[] compiledFields = new int[count];
+		byte[] compiledLiterals = new byte[count];
+		System.arraycopy(fields, 0, compiledFields, 0, count);
+		System.arraycopy(literals, 0, compiledLiterals, 0, count);
+		return new DatePrinter(compiledFields, compiledLiterals, length);
+	}
+
+	public int length() {
+		return length;
+	}
+
+	/*
+	 * Writes the date-time at offset and returns the number of bytes written, or -1 if the year
+	 * cannot be printed with four digits. The buffer must have length() bytes available.
+	 */
+	public int print(int epochDay, int millisOfDay, byte[] buffer, int offset) {
+		int yearMonthDay = EpochDays.yearMonthDay(epochDay);
+		int year = EpochDays.year(yearMonthDay);
+		if (year < 0 || year > 9999) {
+			return -1;
+		}
+
+		int secondOfDay = millisOfDay / 1000;
+		int position = offset;
+		for (int i = 0; i < fields.length; i++) {
+			switch (fields[i]) {
+			case YEAR:
+				position = twoDigits(buffer, twoDigits(buffer, position, year / 100), year % 100);
+				break;
+			case MONTH:
+				position = twoDigits(buffer, position, EpochDays.month(yearMonthDay));
+				break;
+			case DAY:
+				position = twoDigits(buffer, position, EpochDays.dayOfMonth(yearMonthDay));
+				break;
+			case HOUR:
+				position = twoDigits(buffer, position, secondOfDay / 3600);
+				break;
+			case MINUTE:
+				position = twoDigits(buffer, position, secondOfDay / 60 % 60);
+				break;
+			case SECOND:
+				position = twoDigits(buffer, position, secondOfDay % 60);
+				break;
+			default:
+				buffer[position++] = literals[i];
+				break;
+			}
+		}
+		return position - offset;
+	}
+
+	private static int twoDigits(byte[] buffer, int position, int value) {
+		buffer[position] = (byte) ('0' + value / 10);
+		buffer[position + 1] = (byte) ('0' + value % 10);
+		return position + 2;
+	}
+
+	private static int field(char c, int run) {
+		switch (c) {
+		case 'y':
+			return run == 4 ? YEAR : -1;
+		case 'M':
+			return run == 2 ? MONTH : -1;
+		case 'd':
+			return run == 2 ? DAY : -1;
+		case 'H':
+			return run == 2 ? HOUR : -1;
+		case 'm':
+			return run == 2 ? MINUTE : -1;
+		case 's':
+			return run == 2 ? SECOND : -1;
+		default:
+			boolean letter = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+			return letter || c == '\'' || c > 127 ? -1 : LITERAL;
+		}
+	}
+
+}
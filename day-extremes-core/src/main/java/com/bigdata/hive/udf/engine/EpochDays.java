@@ -0,0 +1,194 @@
+package com.bigdata.hive.udf.engine;
+
+/*
+ * Proleptic Gregorian calendar arithmetic on days since 1970-01-01.
+ *
+ * Everything here is integer math with no allocation, so it is shared by both builds of
+ * PeriodCalculator and by the boundary table generator. Weeks start on Monday (ISO).
+ */
+public final class EpochDays {
+
+	/*
+	 * Returned by nthDayOfWeek when the period has no such day.
+	 */
+	public static final int NO_DAY = Integer.MIN_VALUE;
+
+	private static final int DAYS_PER_ERA = 146097;
+	private static final int DAYS_0000_TO_1970 = 719468;
+
+	private EpochDays() {
+	}
+
+	public static int of(int year, int month, int dayOfMonth) {
+		int y = month <= 2 ? year - 1 : year;
+		int era = floorDiv(y, 400);
+		int yearOfEra = y - era * 400;
+		int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + dayOfMonth - 1;
+		int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * DAYS_PER_ERA + dayOfEra - DAYS_0000_TO_1970;
+	}
+
+	/*
+	 * Returns year, month and day of month packed as (year << 9) | (month << 5) | day.
+	 */
+	public static int yearMonthDay(int epochDay) {
+		int z = epochDay + DAYS_0000_TO_1970;
+		int era = floorDiv(z, DAYS_PER_ERA);
+		int dayOfEra = z - era * DAYS_PER_ERA;
+		int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		int mp = (5 * dayOfYear + 2) / 153;
+		int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+		int month = mp < 10 ? mp + 3 : mp - 9;
+		int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+		return (year << 9) | (month << 5) | day;
+	}
+
+	public static int year(int yearMonthDay) {
+		return yearMonthDay >> 9;
+	}
+
+	public static int month(int yearMonthDay) {
+		return (yearMonthDay >> 5) & 15;
+	}
+
+	public static int dayOfMonth(int yearMonthDay) {
+		return yearMonthDay & 31;
+	}
+
+	/*
+	 * ISO day of week, 1 (Monday) to 7 (Sunday).
+	 */
+	public static int dayOfWeek(int epochDay) {
+		return floorMod(epochDay + 3, 7) + 1;
+	}
+
+	public static boolean isLeapYear(int year) {
+		return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+	}
+
+	public static int lengthOfMonth(int year, int month) {
+		switch (month) {
+		case 2:
+			return isLeapYear(year) ? 29 : 28;
+		case 4:
+		case 6:
+		case 9:
+		case 11:
+			return 30;
+		default:
+			return 31;
+		}
+	}
+
+	public static int firstDay(TimeUnit unit, int epochDay) {
+		int ymd;
+		switch (unit) {
+		case WEEK:
+			return epochDay - dayOfWeek(epochDay) + 1;
+		case MONTH:
+			return epochDay - dayOfMonth(yearMonthDay(epochDay)) + 1;
+		case QUARTER:
+			ymd = yearMonthDay(epochDay);
+			return of(year(ymd), (month(ymd) - 1) / 3 * 3 + 1, 1);
+		case YEAR:
+			return of(year(yearMonthDay(epochDay)), 1, 1);
+		default:
+			return epochDay;
+		}
+	}
+
+	public static int lastDay(TimeUnit unit, int epochDay) {
+		int ymd;
+		switch (unit) {
+		case WEEK:
+			return epochDay + 7 - dayOfWeek(epochDay);
+		case MONTH:
+			ymd = yearMonthDay(epochDay);
+			return epochDay - dayOfMonth(ymd) + lengthOfMonth(year(ymd), month(ymd));
+		case QUARTER:
+			ymd = yearMonthDay(epochDay);
+			int lastMonth = (month(ymd) - 1) / 3 * 3 + 3;
+			return of(year(ymd), lastMonth, lengthOfMonth(year(ymd), lastMonth));
+		case YEAR:
+			return of(year(yearMonthDay(epochDay)), 12, 31);
+		default:
+			return epochDay;
+		}
+	}
+
+	/*
+	 * Returns a day of the period the given number of units after the one containing the day, or
+	 * before it when negative: the same day of the week for WEEK, and the first of the month for
+	 * MONTH, QUARTER and YEAR, whose periods are counted as months since year 0.
+	 */
+	public static int shift(TimeUnit unit, int epochDay, int periods) {
+		switch (unit) {
+		case WEEK:
+			return epochDay + 7 * periods;
+		case MONTH:
+			return shiftMonths(epochDay, periods);
+		case QUARTER:
+			return shiftMonths(epochDay, 3 * periods);
+		case YEAR:
+			return shiftMonths(epochDay, 12 * periods);
+		default:
+			return epochDay + periods;
+		}
+	}
+
+	private static int shiftMonths(int epochDay, int months) {
+		int ymd = yearMonthDay(epochDay);
+		int month = year(ymd) * 12 + month(ymd) - 1 + months;
+		return of(floorDiv(month, 12), floorMod(month, 12) + 1, 1);
+	}
+
+	/*
+	 * Returns the number of whole units from the period containing 1970-01-01 to the one containing
+	 * the day, negative before it. Weeks are counted from Monday 1969-12-29.
+	 */
+	public static int periodIndex(TimeUnit unit, int epochDay) {
+		switch (unit) {
+		case WEEK:
+			return floorDiv(epochDay + 3, 7);
+		case MONTH:
+			return monthIndex(epochDay);
+		case QUARTER:
+			return floorDiv(monthIndex(epochDay), 3);
+		case YEAR:
+			return year(yearMonthDay(epochDay)) - 1970;
+		default:
+			return epochDay;
+		}
+	}
+
+	/*
+	 * Returns the ordinal-th day of the given ISO day of week between the two days inclusive,
+	 * counted from the first day when the ordinal is positive and back from the last day when it is
+	 * negative, so -1 is the last one. Returns NO_DAY when the range has fewer of them.
+	 */
+	public static int nthDayOfWeek(int firstDay, int lastDay, int dayOfWeek, int ordinal) {
+		int day;
+		if (ordinal > 0) {
+			day = firstDay + floorMod(dayOfWeek - dayOfWeek(firstDay), 7) + 7 * (ordinal - 1);
+			return day <= lastDay ? day : NO_DAY;
+		}
+		day = lastDay - floorMod(dayOfWeek(lastDay) - dayOfWeek, 7) + 7 * (ordinal + 1);
+		return ordinal < 0 && day >= firstDay ? day : NO_DAY;
+	}
+
+	private static int monthIndex(int epochDay) {
+		int ymd = yearMonthDay(epochDay);
+		return (year(ymd) - 1970) * 12 + month(ymd) - 1;
+	}
+
+	static int floorDiv(int x, int y) {
+		int q = x / y;
+		return (x % y != 0 && ((x ^ y) < 0)) ? q - 1 : q;
+	}
+
+	static int floorMod(int x, int y) {
+		return x - floorDiv(x, y) * y;
+	}
+
+}
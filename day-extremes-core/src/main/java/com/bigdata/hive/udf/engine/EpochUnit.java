@@ -0,0 +1,32 @@
+package com.bigdata.hive.udf.engine;
+
+/*
+ * What an integer date counts since 1970-01-01T00:00Z.
+ */
+public enum EpochUnit {
+	SECONDS, MILLIS, MICROS;
+
+	/*
+	 * Returns the value as epoch millis, rounding micros down so that instants before 1970 fall
+	 * on the right day.
+	 */
+	public long toMillis(long value) {
+		switch (this) {
+		case SECONDS:
+			return value * 1000;
+		case MICROS:
+			return value >= 0 ? value / 1000 : (value + 1) / 1000 - 1;
+		default:
+			return value;
+		}
+	}
+
+	public static EpochUnit parse(String unit) {
+		try {
+			return valueOf(unit.trim().toUpperCase());
+		} catch (IllegalArgumentException exception) {
+			throw new IllegalArgumentException("epoch unit can only be one of SECONDS, MILLIS, MICROS, got " + unit);
+		}
+	}
+
+}
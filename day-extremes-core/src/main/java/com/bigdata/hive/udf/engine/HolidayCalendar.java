@@ -0,0 +1,247 @@
+package com.bigdata.hive.udf.engine;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Business days of one named calendar: Monday to Friday except its holidays.
+ *
+ * The days from January 1 of the first holiday's year to December 31 of the last one's are a
+ * bitset indexed by epoch day, one bit per day set for business days, so a year takes 6 longs and
+ * the nearest business day is a scan of whole words. Outside that range only weekends are skipped.
+ *
+ * Calendars are read from a text file of "calendar,yyyy-MM-dd" lines, blank lines and lines
+ * starting with '#' ignored. The calendars of a file are read once per JVM and kept by its qualified
+ * path, so that sessions naming different files each look their own calendars up. Names are case
+ * insensitive.
+ */
+public final class HolidayCalendar {
+
+	// the calendars of every file loaded, by qualified path
+	private static final Map<String, Map<String, HolidayCalendar>> LOADED = new HashMap<String, Map<String, HolidayCalendar>>();
+
+	private final String name;
+	// epoch day of bit 0, a multiple of 64 so that words line up with the epoch
+	private final int firstEpochDay;
+	private final long[] businessDays;
+
+	private HolidayCalendar(String name, List<Integer> holidays) {
+		this.name = name;
+		int first = Integer.MAX_VALUE;
+		int last = Integer.MIN_VALUE;
+		for (int holiday : holidays) {
+			first = Math.min(first, holiday);
+			last = Math.max(last, holiday);
+		}
+		int start = EpochDays.of(EpochDays.year(EpochDays.yearMonthDay(first)), 1, 1);
+		int end = EpochDays.of(EpochDays.year(EpochDays.yearMonthDay(last)), 12, 31);
+		this.firstEpochDay = EpochDays.floorDiv(start, 64) * 64;
+		this.businessDays = new long[(end - firstEpochDay >> 6) + 1];
+		for (int day = firstEpochDay; day < firstEpochDay + (businessDays.length << 6); day++) {
+			if (EpochDays.dayOfWeek(day) <= 5) {
+				set(day);
+			}
+		}
+		for (int holiday : holidays) {
+			clear(holiday);
+		}
+	}
+
+	/*
+	 * Returns the calendar of that name among the calendars of one file, or null.
+	 */
+	public static HolidayCalendar get(Map<String, HolidayCalendar> calendars, String name) {
+		return calendars.get(name.trim().toUpperCase());
+	}
+
+	/*
+	 * Returns the calendars of the given file, read unless they are already loaded. Returns null if
+	 * the file does not exist, and fails if it is not a calendar file.
+	 */
+	public static Map<String, HolidayCalendar> load(File file) throws IOException {
+		if (!file.isFile()) {
+			return null;
+		}
+		String path = file.getCanonicalPath();
+		synchronized (LOADED) {
+			Map<String, HolidayCalendar> calendars = LOADED.get(path);
+			if (calendars == null) {
+				calendars = read(file);
+				LOADED.put(path, calendars);
+			}
+			return calendars;
+		}
+	}
+
+	/*
+	 * Same as load(File) for a file of another file system, e.g. HDFS, named by its qualified path.
+	 * The stream is only read if the calendars of that path are not loaded yet, and is not closed.
+	 */
+	public static Map<String, HolidayCalendar> load(String path, InputStream in) throws IOException {
+		synchronized (LOADED) {
+			Map<String, HolidayCalendar> calendars = LOADED.get(path);
+			if (calendars == null) {
+				calendars = read(in, path);
+				LOADED.put(path, calendars);
+			}
+			return calendars;
+		}
+	}
+
+	public static Map<String, HolidayCalendar> read(File file) throws IOException {
+		InputStream in = new FileInputStream(file);
+		try {
+			return read(in, file.getPath());
+		} finally {
+			in.close();
+		}
+	}
+
+	private static Map<String, HolidayCalendar> read(InputStream in, String source) throws IOException {
+		Map<String, List<Integer>> holidays = new HashMap<String, List<Integer>>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+		int lineNumber = 0;
+		String line;
+		while ((line = reader.readLine()) != null) {
+			lineNumber++;
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+			int comma = line.indexOf(',');
+			String name = comma > 0 ? line.substring(0, comma).trim().toUpperCase() : "";
+			int holiday = comma > 0 ? parseDay(line.substring(comma + 1).trim()) : EpochDays.NO_DAY;
+			if (name.isEmpty() || holiday == EpochDays.NO_DAY) {
+				throw new IOException("Expected calendar,yyyy-MM-dd at line " + lineNumber + " of " + source
+						+ " but got " + line);
+			}
+			List<Integer> days = holidays.get(name);
+			if (days == null) {
+				days = new ArrayList<Integer>();
+				holidays.put(name, days);
+			}
+			days.add(holiday);
+		}
+
+		Map<String, HolidayCalendar> calendars = new HashMap<String, HolidayCalendar>();
+		for (Map.Entry<String, List<Integer>> entry : holidays.entrySet()) {
+			calendars.put(entry.getKey(), new HolidayCalendar(entry.getKey(), entry.getValue()));
+		}
+		return Collections.unmodifiableMap(calendars);
+	}
+
+	private static int parseDay(String date) {
+		if (date.length() != 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+			return EpochDays.NO_DAY;
+		}
+		try {
+			int year = Integer.parseInt(date.substring(0, 4));
+			int month = Integer.parseInt(date.substring(5, 7));
+			int day = Integer.parseInt(date.substring(8, 10));
+			if (month < 1 || month > 12 || day < 1 || day > EpochDays.lengthOfMonth(year, month)) {
+				return EpochDays.NO_DAY;
+			}
+			return EpochDays.of(year, month, day);
+		} catch (NumberFormatException exception) {
+			return EpochDays.NO_DAY;
+		}
+	}
+
+	public String name() {
+		return name;
+	}
+
+	public boolean isBusinessDay(int epochDay) {
+		if (!covers(epochDay)) {
+			return EpochDays.dayOfWeek(epochDay) <= 5;
+		}
+		int offset = epochDay - firstEpochDay;
+		return (businessDays[offset >> 6] & 1L << offset) != 0;
+	}
+
+	/*
+	 * Returns the first business day on or after the given day.
+	 */
+	public int nextBusinessDay(int epochDay) {
+		if (epochDay < firstEpochDay) {
+			int weekday = nextWeekday(epochDay);
+			if (weekday < firstEpochDay) {
+				return weekday;
+			}
+			epochDay = firstEpochDay;
+		}
+		int offset = epochDay - firstEpochDay;
+		int index = offset >> 6;
+		if (index < businessDays.length) {
+			long word = businessDays[index] & -1L << offset;
+			while (word == 0 && ++index < businessDays.length) {
+				word = businessDays[index];
+			}
+			if (word != 0) {
+				return firstEpochDay + (index << 6) + Long.numberOfTrailingZeros(word);
+			}
+		}
+		return nextWeekday(Math.max(epochDay, firstEpochDay + (businessDays.length << 6)));
+	}
+
+	/*
+	 * Returns the last business day on or before the given day.
+	 */
+	public int previousBusinessDay(int epochDay) {
+		int end = firstEpochDay + (businessDays.length << 6);
+		if (epochDay >= end) {
+			int weekday = previousWeekday(epochDay);
+			if (weekday >= end) {
+				return weekday;
+			}
+			epochDay = end - 1;
+		}
+		int offset = epochDay - firstEpochDay;
+		int index = offset >> 6;
+		if (index >= 0) {
+			long word = businessDays[index] & -1L >>> 63 - (offset & 63);
+			while (word == 0 && --index >= 0) {
+				word = businessDays[index];
+			}
+			if (word != 0) {
+				return firstEpochDay + (index << 6) + 63 - Long.numberOfLeadingZeros(word);
+			}
+		}
+		return previousWeekday(Math.min(epochDay, firstEpochDay - 1));
+	}
+
+	private boolean covers(int epochDay) {
+		return epochDay >= firstEpochDay && epochDay - firstEpochDay < businessDays.length << 6;
+	}
+
+	private void set(int epochDay) {
+		int offset = epochDay - firstEpochDay;
+		businessDays[offset >> 6] |= 1L << offset;
+	}
+
+	private void clear(int epochDay) {
+		int offset = epochDay - firstEpochDay;
+		businessDays[offset >> 6] &= ~(1L << offset);
+	}
+
+	private static int nextWeekday(int epochDay) {
+		int dayOfWeek = EpochDays.dayOfWeek(epochDay);
+		return dayOfWeek <= 5 ? epochDay : epochDay + 8 - dayOfWeek;
+	}
+
+	private static int previousWeekday(int epochDay) {
+		int dayOfWeek = EpochDays.dayOfWeek(epochDay);
+		return dayOfWeek <= 5 ? epochDay : epochDay + 5 - dayOfWeek;
+	}
+
+}
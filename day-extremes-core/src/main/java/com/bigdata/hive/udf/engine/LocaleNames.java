@@ -0,0 +1,69 @@
+package com.bigdata.hive.udf.engine;
+
+import java.text.DateFormatSymbols;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/*
+ * The locale texts OutputPattern prints, in the JVM default locale, from java.text only so that
+ * the core module has no dependencies. The jar is multi-release and META-INF/versions/9 carries a
+ * java.time build of this class, which newer runtimes pick up automatically.
+ */
+final class LocaleNames implements OutputPattern.Names {
+
+	private static volatile LocaleSymbols symbols;
+
+	@Override
+	public String era(int era) {
+		return symbols().getEras()[era];
+	}
+
+	@Override
+	public String month(int month, boolean full) {
+		return (full ? symbols().getMonths() : symbols().getShortMonths())[month - 1];
+	}
+
+	@Override
+	public String dayOfWeek(int dayOfWeek, boolean full) {
+		// java.text counts from Sunday = 1
+		return (full ? symbols().getWeekdays() : symbols().getShortWeekdays())[dayOfWeek % 7 + 1];
+	}
+
+	@Override
+	public String halfday(int halfday) {
+		return symbols().getAmPmStrings()[halfday];
+	}
+
+	@Override
+	public String zone(TimeZone zone, long instant, boolean full) {
+		return zone.getDisplayName(zone.inDaylightTime(new Date(instant)), full ? TimeZone.LONG : TimeZone.SHORT,
+				Locale.getDefault());
+	}
+
+	private static DateFormatSymbols symbols() {
+		LocaleSymbols current = symbols;
+		Locale locale = Locale.getDefault();
+		if (current == null || !current.locale.equals(locale)) {
+			current = new LocaleSymbols(locale);
+			symbols = current;
+		}
+		return current.symbols;
+	}
+
+	/*
+	 * The names of the default locale, only read so shared by every thread until it changes.
+	 */
+	private static final class LocaleSymbols {
+
+		final Locale locale;
+		final DateFormatSymbols symbols;
+
+		LocaleSymbols(Locale locale) {
+			this.locale = locale;
+			this.symbols = DateFormatSymbols.getInstance(locale);
+		}
+
+	}
+
+}
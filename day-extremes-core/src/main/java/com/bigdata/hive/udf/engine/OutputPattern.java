@@ -0,0 +1,323 @@
+package com.bigdata.hive.udf.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/*
+ * An output format compiled the way Joda-Time reads it, which is how the UDFs have always
+ * rendered: 'Y' is year of era, 'x' the ISO week year, 'w' the ISO week, 'e' the ISO day of week,
+ * 'C' the century, 'S' a truncated fraction of second, 'Z'/'ZZ'/'ZZZ' the offset without and with
+ * a colon and the zone id, and any other letter outside the ones Joda knows is an error.
+ *
+ * Numbers and offsets are printed here so that both builds of PeriodCalculator give the same
+ * output; only era, month, day of week, halfday and zone names come from the build's Names. The
+ * wall time is taken as an instant in the given zone for the offset and zone name letters.
+ */
+final class OutputPattern {
+
+	/*
+	 * Locale texts, in the JVM default locale as Joda uses.
+	 */
+	interface Names {
+
+		// 0 BC, 1 AD
+		String era(int era);
+
+		// 1 (January) to 12
+		String month(int month, boolean full);
+
+		// 1 (Monday) to 7
+		String dayOfWeek(int dayOfWeek, boolean full);
+
+		// 0 AM, 1 PM
+		String halfday(int halfday);
+
+		String zone(TimeZone zone, long instant, boolean full);
+
+	}
+
+	private static final char LITERAL = 0;
+	private static final String LETTERS = "GCYxweEyDMdaKhHkmsSzZ";
+	private static final String TIME_LETTERS = "aKhHkmsSzZ";
+
+	// compiled patterns are immutable and shared by every thread, like DatePrinter's
+	private static final int MAX_CACHED_PATTERNS = 256;
+	private static final ConcurrentMap<String, OutputPattern> COMPILED = new ConcurrentHashMap<String, OutputPattern>();
+
+	private final char[] letters;
+	private final int[] counts;
+	private final String[] literals;
+	private final boolean zoned;
+
+	private OutputPattern(char[] letters, int[] counts, String[] literals) {
+		this.letters = letters;
+		this.counts = counts;
+		this.literals = literals;
+		boolean zoned = false;
+		for (char letter : letters) {
+			zoned |= letter == 'z' || letter == 'Z';
+		}
+		this.zoned = zoned;
+	}
+
+	/*
+	 * Same as compile() but compiles each pattern once per JVM.
+	 */
+	static OutputPattern forPattern(String pattern) {
+		OutputPattern compiled = COMPILED.get(pattern);
+		if (compiled == null) {
+			compiled = compile(pattern);
+			if (COMPILED.size() < MAX_CACHED_PATTERNS) {
+				COMPILED.putIfAbsent(pattern, compiled);
+			}
+		}
+		return compiled;
+	}
+
+	/*
+	 * Splits the pattern as Joda does: runs of one letter are fields, anything else is literal text
+	 * with '' for a quote and letters quoted. Fails on a letter Joda does not know.
+	 */
+	static OutputPattern compile(String pattern) {
+		List<Character> letters = new ArrayList<Character>();
+		List<Integer> counts = new ArrayList<Integer>();
+		List<String> literals = new ArrayList<String>();
+
+		int length = pattern.length();
+		for (int i = 0; i < length;) {
+			char c = pattern.charAt(i);
+			if (isLetter(c)) {
+				int run = 1;
+				while (i + run < length && pattern.charAt(i + run) == c) {
+					run++;
+				}
+				if (LETTERS.indexOf(c) < 0) {
+					throw new IllegalArgumentException("Illegal pattern component: " + pattern.substring(i, i + run));
+				}
+				letters.add(c);
+				counts.add(run);
+				literals.add(null);
+				i += run;
+				continue;
+			}
+
+			StringBuilder literal = new StringBuilder();
+			boolean quoted = false;
+			for (; i < length; i++) {
+				c = pattern.charAt(i);
+				if (c == '\'') {
+					if (i + 1 < length && pattern.charAt(i + 1) == '\'') {
+						literal.append(c);
+						i++;
+					} else {
+						quoted = !quoted;
+					}
+				} else if (!quoted && isLetter(c)) {
+					break;
+				} else {
+					literal.append(c);
+				}
+			}
+			letters.add(LITERAL);
+			counts.add(0);
+			literals.add(literal.toString());
+		}
+
+		char[] compiledLetters = new char[letters.size()];
+		int[] compiledCounts = new int[counts.size()];
+		for (int i = 0; i < compiledLetters.length; i++) {
+			compiledLetters[i] = letters.get(i);
+			compiledCounts[i] = counts.get(i);
+		}
+		return new OutputPattern(compiledLetters, compiledCounts, literals.toArray(new String[literals.size()]));
+	}
+
+	/*
+	 * Returns whether the pattern has a letter that depends on the time of day: one of the time
+	 * fields, or an offset or zone name, which can change within a day.
+	 */
+	static boolean printsTime(String pattern) {
+		boolean quoted = false;
+		for (int i = 0; i < pattern.length(); i++) {
+			char c = pattern.charAt(i);
+			if (c == '\'') {
+				quoted = !quoted;
+			} else if (!quoted && TIME_LETTERS.indexOf(c) >= 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	String format(int epochDay, int millisOfDay, TimeZone zone, Names names) {
+		int yearMonthDay = EpochDays.yearMonthDay(epochDay);
+		int year = EpochDays.year(yearMonthDay);
+		int hour = millisOfDay / 3600000;
+		long localMillis = epochDay * (long) PeriodRenderer.MILLIS_PER_DAY + millisOfDay;
+		int offset = zoned ? offsetAt(zone, localMillis) : 0;
+
+		StringBuilder out = new StringBuilder(32);
+		for (int i = 0; i < letters.length; i++) {
+			int count = counts[i];
+			switch (letters[i]) {
+			case 'G':
+				out.append(names.era(year > 0 ? 1 : 0));
+				break;
+			case 'C':
+				number(out, yearOfEra(year) / 100, count);
+				break;
+			case 'Y':
+				year(out, count, yearOfEra(year), year);
+				break;
+			case 'y':
+				year(out, count, year, year);
+				break;
+			case 'x':
+				year(out, count, weekYear(epochDay), weekYear(epochDay));
+				break;
+			case 'w':
+				number(out, (epochDay - firstDayOfWeekYear(weekYear(epochDay))) / 7 + 1, count);
+				break;
+			case 'e':
+				number(out, EpochDays.dayOfWeek(epochDay), count);
+				break;
+			case 'E':
+				out.append(names.dayOfWeek(EpochDays.dayOfWeek(epochDay), count >= 4));
+				break;
+			case 'D':
+				number(out, epochDay - EpochDays.of(year, 1, 1) + 1, count);
+				break;
+			case 'M':
+				if (count >= 3) {
+					out.append(names.month(EpochDays.month(yearMonthDay), count >= 4));
+				} else {
+					number(out, EpochDays.month(yearMonthDay), count);
+				}
+				break;
+			case 'd':
+				number(out, EpochDays.dayOfMonth(yearMonthDay), count);
+				break;
+			case 'a':
+				out.append(names.halfday(hour < 12 ? 0 : 1));
+				break;
+			case 'K':
+				number(out, hour % 12, count);
+				break;
+			case 'h':
+				number(out, hour % 12 == 0 ? 12 : hour % 12, count);
+				break;
+			case 'H':
+				number(out, hour, count);
+				break;
+			case 'k':
+				number(out, hour == 0 ? 24 : hour, count);
+				break;
+			case 'm':
+				number(out, millisOfDay / 60000 % 60, count);
+				break;
+			case 's':
+				number(out, millisOfDay / 1000 % 60, count);
+				break;
+			case 'S':
+				fraction(out, millisOfDay % 1000, count);
+				break;
+			case 'z':
+				out.append(names.zone(zone, localMillis - offset, count >= 4));
+				break;
+			case 'Z':
+				if (count >= 3) {
+					out.append(zone.getID());
+				} else {
+					offset(out, offset, count == 2);
+				}
+				break;
+			default:
+				out.append(literals[i]);
+				break;
+			}
+		}
+		return out.toString();
+	}
+
+	/*
+	 * Returns the offset of the zone at a wall time: the earlier of two instants in an overlap, as
+	 * Joda resolves it, and the offset after the transition in a gap.
+	 */
+	static int offsetAt(TimeZone zone, long localMillis) {
+		int offset = zone.getOffset(localMillis - zone.getOffset(localMillis));
+		int earlier = zone.getOffset(localMillis - offset - 6 * 3600000L);
+		if (earlier > offset && zone.getOffset(localMillis - earlier) == earlier) {
+			return earlier;
+		}
+		return offset;
+	}
+
+	private static boolean isLetter(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+	}
+
+	private static int yearOfEra(int year) {
+		return year > 0 ? year : 1 - year;
+	}
+
+	private static int weekYear(int epochDay) {
+		// the ISO week belongs to the year of its Thursday
+		return EpochDays.year(EpochDays.yearMonthDay(epochDay - EpochDays.dayOfWeek(epochDay) + 4));
+	}
+
+	private static int firstDayOfWeekYear(int weekYear) {
+		int january4 = EpochDays.of(weekYear, 1, 4);
+		return january4 - EpochDays.dayOfWeek(january4) + 1;
+	}
+
+	/*
+	 * Two letters are the last two digits of the signed year, any other count the whole value.
+	 */
+	private static void year(StringBuilder out, int count, int value, int signedYear) {
+		if (count == 2) {
+			number(out, Math.abs(signedYear) % 100, 2);
+		} else {
+			number(out, value, count);
+		}
+	}
+
+	private static void number(StringBuilder out, int value, int minDigits) {
+		if (value < 0) {
+			out.append('-');
+			value = -value;
+		}
+		String digits = Integer.toString(value);
+		for (int i = digits.length(); i < minDigits; i++) {
+			out.append('0');
+		}
+		out.append(digits);
+	}
+
+	/*
+	 * The first count digits of the fraction of second, not rounded.
+	 */
+	private static void fraction(StringBuilder out, int millis, int count) {
+		if (count < 3) {
+			number(out, millis / (count == 1 ? 100 : 10), count);
+		} else {
+			number(out, millis, 3);
+			for (int i = 3; i < count; i++) {
+				out.append('0');
+			}
+		}
+	}
+
+	private static void offset(StringBuilder out, int offset, boolean colon) {
+		out.append(offset < 0 ? '-' : '+');
+		int minutes = Math.abs(offset) / 60000;
+		number(out, minutes / 60, 2);
+		if (colon) {
+			out.append(':');
+		}
+		number(out, minutes % 60, 2);
+	}
+
+}
@@ -0,0 +1,62 @@
+package com.bigdata.hive.udf.engine;
+
+/*
+ * Remembers the value parsed from recent date strings, so that a column repeating the same few
+ * dates is parsed once per distinct value rather than once per row.
+ *
+ * Direct-mapped on the string's hash: a colliding string replaces the one in its slot, nothing is
+ * allocated after construction. A capacity of 0 disables the cache. Not thread-safe.
+ */
+public final class ParsedDateCache {
+
+	private final String[] keys;
+	private final long[] values;
+	private final int mask;
+
+	public ParsedDateCache(int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Negative cache capacity " + capacity);
+		}
+		// rounded up to a power of two
+		int slots = capacity <= 1 ? capacity : Integer.highestOneBit(capacity - 1) << 1;
+		keys = new String[slots];
+		values = new long[slots];
+		mask = slots - 1;
+	}
+
+	/*
+	 * Returns the value stored for the string, or missing.
+	 */
+	public long get(String key, long missing) {
+		if (keys.length == 0) {
+			return missing;
+		}
+		int slot = slot(key);
+		return key.equals(keys[slot]) ? values[slot] : missing;
+	}
+
+	public void put(String key, long value) {
+		if (keys.length == 0) {
+			return;
+		}
+		int slot = slot(key);
+		keys[slot] = key;
+		values[slot] = value;
+	}
+
+	public void clear() {
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = null;
+		}
+	}
+
+	public int capacity() {
+		return keys.length;
+	}
+
+	private int slot(String key) {
+		int hash = key.hashCode();
+		return (hash ^ hash >>> 16) & mask;
+	}
+
+}
@@ -0,0 +1,43 @@
+package com.bigdata.hive.udf.engine;
+
+import java.util.TimeZone;
+
+/*
+ * Renders a local date-time with an arbitrary output format, for the patterns DatePrinter cannot
+ * print directly.
+ *
+ * Patterns are read as Joda-Time reads them and printed by OutputPattern, with the locale texts of
+ * LocaleNames: java.text on Java 7/8, java.time from the multi-release build on newer runtimes.
+ * The output is the same either way.
+ */
+public final class PeriodCalculator {
+
+	public static final String DEFAULT_DATE_FORMAT = "yyyy-MM-dd";
+	public static final String DEFAULT_INTERVAL_FORMAT = "HH:mm:ss";
+
+	private static final OutputPattern.Names NAMES = new LocaleNames();
+
+	private PeriodCalculator() {
+	}
+
+	/*
+	 * Renders the wall time in the JVM default zone, for the letters that print it.
+	 */
+	public static String format(int epochDay, int millisOfDay, String pattern) {
+		return format(epochDay, millisOfDay, pattern, PeriodRenderer.defaultZone());
+	}
+
+	public static String format(int epochDay, int millisOfDay, String pattern, TimeZone zone) {
+		return OutputPattern.forPattern(pattern).format(epochDay, millisOfDay, zone, NAMES);
+	}
+
+	public static String resolveOutputFormat(String outputFormat, boolean includeInterval) {
+		String format = outputFormat != null ? outputFormat : DEFAULT_DATE_FORMAT;
+
+		if (includeInterval && !(format.contains("HH") || format.contains("mm") || format.contains("ss"))) {
+			format = format + " " + DEFAULT_INTERVAL_FORMAT;
+		}
+		return format;
+	}
+
+}
@@ -0,0 +1,114 @@
+package com.bigdata.hive.udf.engine;
+
+/*
+ * First/last day of a unit for a whole batch of epoch days, for callers that hold dates in
+ * primitive arrays rather than one row at a time: the server's batches and the Arrow evaluator's
+ * DATE and TIMESTAMP vectors.
+ *
+ * The scalar kernel looks every day up in the shared BoundaryTable. On Java 17 and later, when
+ * the JVM runs with --add-modules jdk.incubator.vector, get() returns the SIMD kernel from
+ * META-INF/versions/17 instead, which does EpochDays' arithmetic on whole vector lanes. Both
+ * return exactly the same days; -Ddayextremes.simd=false or setSimdEnabled(false) forces the
+ * scalar kernel.
+ */
+public abstract class PeriodKernel {
+
+	public static final String SIMD_PROPERTY = "dayextremes.simd";
+
+	static final String VECTOR_KERNEL = "com.bigdata.hive.udf.engine.VectorPeriodKernel";
+
+	private static volatile PeriodKernel selected;
+
+	/*
+	 * Writes the first day of the unit containing epochDays[i] to result[i], for i in
+	 * [offset, offset + length). The two arrays may be the same.
+	 */
+	public abstract void firstDays(TimeUnit unit, int[] epochDays, int[] result, int offset, int length);
+
+	public abstract void lastDays(TimeUnit unit, int[] epochDays, int[] result, int offset, int length);
+
+	public abstract String name();
+
+	@Override
+	public String toString() {
+		return name();
+	}
+
+	/*
+	 * Returns the kernel selected for this JVM.
+	 */
+	public static PeriodKernel get() {
+		PeriodKernel kernel = selected;
+		if (kernel == null) {
+			kernel = select(!"false".equalsIgnoreCase(System.getProperty(SIMD_PROPERTY)));
+			selected = kernel;
+		}
+		return kernel;
+	}
+
+	/*
+	 * Selects the SIMD kernel for this JVM when it can run it, or the scalar kernel.
+	 */
+	public static void setSimdEnabled(boolean enabled) {
+		selected = select(enabled);
+	}
+
+	public static PeriodKernel scalar() {
+		return Scalar.INSTANCE;
+	}
+
+	/*
+	 * Returns the SIMD kernel, or null when this JVM cannot run it.
+	 */
+	public static PeriodKernel vector() {
+		return Simd.KERNEL;
+	}
+
+	private static PeriodKernel select(boolean simd) {
+		return simd && Simd.KERNEL != null ? Simd.KERNEL : Scalar.INSTANCE;
+	}
+
+	private static final class Simd {
+
+		static final PeriodKernel KERNEL = load();
+
+		private static PeriodKernel load() {
+			try {
+				// the kernel's static initializer links the Vector API, so a missing module fails here
+				return (PeriodKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+			} catch (ReflectiveOperationException | LinkageError e) {
+				// before Java 17 the class is not in the jar, without the incubator module it does not link
+				return null;
+			}
+		}
+
+	}
+
+	private static final class Scalar extends PeriodKernel {
+
+		static final Scalar INSTANCE = new Scalar();
+
+		@Override
+		public void firstDays(TimeUnit unit, int[] epochDays, int[] result, int offset, int length) {
+			BoundaryTable table = BoundaryTable.get();
+			for (int i = offset, end = offset + length; i < end; i++) {
+				result[i] = table.firstDay(unit, epochDays[i]);
+			}
+		}
+
+		@Override
+		public void lastDays(TimeUnit unit, int[] epochDays, int[] result, int offset, int length) {
+			BoundaryTable table = BoundaryTable.get();
+			for (int i = offset, end = offset + length; i < end; i++) {
+				result[i] = table.lastDay(unit, epochDays[i]);
+			}
+		}
+
+		@Override
+		public String name() {
+			return "scalar";
+		}
+
+	}
+
+}
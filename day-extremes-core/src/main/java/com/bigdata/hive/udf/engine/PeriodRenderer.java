@@ -0,0 +1,361 @@
+package com.bigdata.hive.udf.engine;
+
+import java.nio.charset.StandardCharsets;
+import java.util.TimeZone;
+
+/*
+ * Renders the first/last day of a unit for a local date-time given as days since epoch and
+ * milliseconds of day, into a reused byte buffer.
+ *
+ * Output formats supported by DatePrinter are written without allocating; others go through
+ * PeriodCalculator.format, where offset and zone name letters print the wall time as an instant
+ * in the renderer's zone. An instance keeps per-call state and must not be shared across threads.
+ *
+ * The period of the last boundary rendered is kept with its output, so that on input sorted by
+ * date the following days of the same period are answered by a range check, without looking the
+ * boundary up or rendering it again.
+ *
+ * A call site whose unit, boundary and formats are the same on every row resolves them once into a
+ * Boundary, which then renders each row without comparing them.
+ */
+public final class PeriodRenderer {
+
+	public static final int MILLIS_PER_DAY = 24 * 60 * 60 * 1000;
+	// an interval is the millis of day the boundary is rendered at; without one it keeps its time
+	public static final int NO_INTERVAL = -1;
+
+	private final BoundaryTable boundaryTable;
+	private TimeZone timeZone = defaultZone();
+	private byte[] buffer = new byte[32];
+	private int length;
+	private boolean reused;
+	private boolean printed;
+
+	private String outputFormat;
+	private boolean includeInterval;
+	private String resolvedFormat;
+	private DatePrinter printer;
+	// whether the resolved format prints the time of day, or an offset that may change with it
+	private boolean printsTime;
+
+	// days of the period whose boundary is in the buffer, empty when start > end
+	private int periodStart = 1;
+	private int periodEnd;
+	private TimeUnit periodUnit;
+	private boolean periodLast;
+	private int periodInterval;
+	// time of day the boundary was rendered with, -1 when an interval replaces it or it is not printed
+	private int periodTime;
+	// the Boundary whose output is in the buffer, null after any other call
+	private Boundary current;
+
+	/*
+	 * Uses the JVM-wide table, read on every call so that a table loaded later is picked up.
+	 */
+	public PeriodRenderer() {
+		this(null);
+	}
+
+	public PeriodRenderer(BoundaryTable boundaryTable) {
+		this.boundaryTable = boundaryTable;
+	}
+
+	/*
+	 * Sets the zone of the date-times rendered, the JVM default until set.
+	 */
+	public void setTimeZone(TimeZone timeZone) {
+		if (!timeZone.equals(this.timeZone)) {
+			this.timeZone = timeZone;
+			periodStart = 1;
+			periodEnd = 0;
+			current = null;
+		}
+	}
+
+	/*
+	 * Renders the first day of the unit containing the given day. Returns false when the output of
+	 * the previous call is the answer, which is then left in the buffer as it is.
+	 */
+	public boolean renderFirstDay(TimeUnit unit, int epochDay, int millisOfDay, String outputFormat,
+			boolean includeInterval, int interval) {
+		return renderBoundary(unit, false, epochDay, millisOfDay, outputFormat, includeInterval, interval, false);
+	}
+
+	public boolean renderLastDay(TimeUnit unit, int epochDay, int millisOfDay, String outputFormat,
+			boolean includeInterval, int interval) {
+		return renderBoundary(unit, true, epochDay, millisOfDay, outputFormat, includeInterval, interval, false);
+	}
+
+	/*
+	 * Renders a first (last = false) or last day the caller has already looked up, e.g. for a whole
+	 * batch through PeriodKernel. Returns false when the output of the previous call is the answer.
+	 */
+	public boolean renderBoundaryDay(TimeUnit unit, boolean last, int boundaryDay, int millisOfDay,
+			String outputFormat, boolean includeInterval, int interval) {
+		// a boundary day is its own boundary, so it is kept as a period of that one day
+		return renderBoundary(unit, last, boundaryDay, millisOfDay, outputFormat, includeInterval, interval, true);
+	}
+
+	/*
+	 * Resolves the first (last = false) or last day of a unit rendered in the given format once, for
+	 * a caller passing the same arguments on every row.
+	 */
+	public Boundary boundary(TimeUnit unit, boolean last, String outputFormat, boolean includeInterval,
+			int interval) {
+		return new Boundary(unit, last, outputFormat, includeInterval, interval);
+	}
+
+	private boolean renderBoundary(TimeUnit unit, boolean last, int epochDay, int millisOfDay, String outputFormat,
+			boolean includeInterval, int interval, boolean boundary) {
+		int time = unit == TimeUnit.QUARTER ? 0 : millisOfDay;
+		if (epochDay >= periodStart && epochDay <= periodEnd && (periodTime < 0 || time == periodTime)
+				&& unit == periodUnit && last == periodLast && interval == periodInterval
+				&& includeInterval == this.includeInterval
+				&& (outputFormat == null ? this.outputFormat == null : outputFormat.equals(this.outputFormat))) {
+			reused = true;
+			return false;
+		}
+
+		int start = epochDay;
+		int end = epochDay;
+		if (!boundary) {
+			BoundaryTable table = boundaryTable();
+			start = table.firstDay(unit, epochDay);
+			end = table.lastDay(unit, epochDay);
+		}
+		render(last ? end : start, time, outputFormat, includeInterval, interval);
+		periodStart = start;
+		periodEnd = end;
+		periodUnit = unit;
+		periodLast = last;
+		periodInterval = interval;
+		periodTime = includeInterval && interval != NO_INTERVAL || !printsTime ? -1 : time;
+		return true;
+	}
+
+	/*
+	 * Renders the given day as is. With includeInterval the time of day is replaced by the interval,
+	 * or truncated to whole seconds when there is none.
+	 */
+	public void render(int epochDay, int millisOfDay, String outputFormat, boolean includeInterval,
+			int interval) {
+		periodStart = 1;
+		periodEnd = 0;
+		current = null;
+		reused = false;
+		int time = millisOfDay;
+		if (includeInterval) {
+			time = interval == NO_INTERVAL ? millisOfDay - millisOfDay % 1000 : interval;
+		}
+
+		resolve(outputFormat, includeInterval);
+		print(epochDay, time, printer, resolvedFormat);
+	}
+
+	private void print(int epochDay, int time, DatePrinter printer, String resolvedFormat) {
+		if (printer != null) {
+			ensureCapacity(printer.length());
+			length = printer.print(epochDay, time, buffer, 0);
+			printed = length >= 0;
+			if (printed) {
+				return;
+			}
+		}
+		printed = false;
+
+		byte[] formatted = PeriodCalculator.format(epochDay, time, resolvedFormat, timeZone).getBytes(StandardCharsets.UTF_8);
+		ensureCapacity(formatted.length);
+		System.arraycopy(formatted, 0, buffer, 0, formatted.length);
+		length = formatted.length;
+	}
+
+	public byte[] bytes() {
+		return buffer;
+	}
+
+	public int length() {
+		return length;
+	}
+
+	/*
+	 * Returns whether the last call left the previous output in the buffer rather than rendering.
+	 */
+	public boolean lastRenderReused() {
+		return reused;
+	}
+
+	/*
+	 * Returns whether the last render used DatePrinter rather than a formatter.
+	 */
+	public boolean lastPrinted() {
+		return printed;
+	}
+
+	/*
+	 * Returns the unit of the last boundary rendered, or null before the first.
+	 */
+	public TimeUnit lastUnit() {
+		return periodUnit;
+	}
+
+	@Override
+	public String toString() {
+		return new String(buffer, 0, length, StandardCharsets.UTF_8);
+	}
+
+	/*
+	 * Shifts milliseconds since epoch into the JVM default time zone, which is looked up once per
+	 * JVM on first use.
+	 */
+	public static long toLocalMillis(long millis) {
+		return millis + LocalZone.ZONE.getOffset(millis);
+	}
+
+	public static long toLocalMillis(long millis, TimeZone zone) {
+		return millis + zone.getOffset(millis);
+	}
+
+	public static TimeZone defaultZone() {
+		return LocalZone.ZONE;
+	}
+
+	/*
+	 * Parses an HH:mm:ss interval into millis of day.
+	 */
+	public static int parseInterval(String interval) {
+		String[] chunks = interval.split(":");
+		if (chunks.length != 3) {
+			throw new IllegalArgumentException("Invalid interval value. Supported format is HH:MM:SS");
+		}
+		int[] maximums = { 23, 59, 59 };
+		int parsed = 0;
+		for (int i = 0; i < chunks.length; i++) {
+			int value;
+			try {
+				value = Integer.parseInt(chunks[i]);
+			} catch (NumberFormatException exception) {
+				throw new IllegalArgumentException("Unparsable interval value. Supported format is HH:MM:SS");
+			}
+			if (value < 0 || value > maximums[i]) {
+				throw new IllegalArgumentException("Invalid interval value " + interval);
+			}
+			parsed = parsed * 60 + value;
+		}
+		return parsed * 1000;
+	}
+
+	public static int epochDay(long localMillis) {
+		long day = localMillis / MILLIS_PER_DAY;
+		return (int) (localMillis % MILLIS_PER_DAY < 0 ? day - 1 : day);
+	}
+
+	public static int millisOfDay(long localMillis) {
+		int millis = (int) (localMillis % MILLIS_PER_DAY);
+		return millis < 0 ? millis + MILLIS_PER_DAY : millis;
+	}
+
+	private BoundaryTable boundaryTable() {
+		return boundaryTable != null ? boundaryTable : BoundaryTable.get();
+	}
+
+	private void resolve(String outputFormat, boolean includeInterval) {
+		if (resolvedFormat != null && includeInterval == this.includeInterval
+				&& (outputFormat == null ? this.outputFormat == null : outputFormat.equals(this.outputFormat))) {
+			return;
+		}
+		this.outputFormat = outputFormat;
+		this.includeInterval = includeInterval;
+		resolvedFormat = PeriodCalculator.resolveOutputFormat(outputFormat, includeInterval);
+		printer = DatePrinter.forPattern(resolvedFormat);
+		printsTime = OutputPattern.printsTime(resolvedFormat);
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (buffer.length < capacity) {
+			buffer = new byte[Math.max(capacity, buffer.length * 2)];
+		}
+	}
+
+	/*
+	 * A unit, boundary, time of day and printer fixed for a call site. It renders into the buffer of
+	 * the renderer it came from, which is left to it until another render or boundary call.
+	 */
+	public final class Boundary {
+
+		private final TimeUnit unit;
+		private final boolean last;
+		// column of the unit's first days in the boundary table, -1 for DAY which is its own boundary
+		private final int column;
+		private final String resolvedFormat;
+		private final DatePrinter printer;
+		// millis of day every row is rendered at, -1 when the time of the row is printed
+		private final int fixedTime;
+		// 1000 when the time of the row is truncated to whole seconds
+		private final int precision;
+
+		// days of the period whose boundary is in the buffer, and the time it was rendered at
+		private int start = 1;
+		private int end;
+		private int time;
+
+		private Boundary(TimeUnit unit, boolean last, String outputFormat, boolean includeInterval, int interval) {
+			this.unit = unit;
+			this.last = last;
+			this.column = unit == TimeUnit.DAY ? -1 : BoundaryTable.column(unit, false);
+			this.resolvedFormat = PeriodCalculator.resolveOutputFormat(outputFormat, includeInterval);
+			this.printer = DatePrinter.forPattern(resolvedFormat);
+			if (includeInterval && interval != NO_INTERVAL) {
+				fixedTime = interval;
+			} else if (unit == TimeUnit.QUARTER || !OutputPattern.printsTime(resolvedFormat)) {
+				fixedTime = 0;
+			} else {
+				fixedTime = -1;
+			}
+			this.precision = includeInterval ? 1000 : 1;
+		}
+
+		/*
+		 * Renders the boundary of the period containing the given day. Returns false when the output
+		 * of the previous call is the answer, which is then left in the buffer as it is.
+		 */
+		public boolean render(int epochDay, int millisOfDay) {
+			int time = fixedTime >= 0 ? fixedTime : millisOfDay - millisOfDay % precision;
+			if (current == this && epochDay >= start && epochDay <= end && time == this.time) {
+				reused = true;
+				return false;
+			}
+
+			if (column < 0) {
+				start = epochDay;
+				end = epochDay;
+			} else {
+				BoundaryTable table = boundaryTable();
+				start = table.day(column, unit, epochDay);
+				end = table.day(column + 1, unit, epochDay);
+			}
+			this.time = time;
+			print(last ? end : start, time, printer, resolvedFormat);
+			periodStart = 1;
+			periodEnd = 0;
+			periodUnit = unit;
+			current = this;
+			reused = false;
+			return true;
+		}
+
+		/*
+		 * Returns whether rows are written by DatePrinter rather than a formatter.
+		 */
+		public boolean printable() {
+			return printer != null;
+		}
+
+	}
+
+	private static final class LocalZone {
+
+		static final TimeZone ZONE = TimeZone.getDefault();
+
+	}
+
+}
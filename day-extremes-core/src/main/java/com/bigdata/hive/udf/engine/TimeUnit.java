@@ -1,4 +1,4 @@
-package com.bigdata.hive.udf.impl;
+package com.bigdata.hive.udf.engine;
 
 /*
  * @Author: Manoj Kumar Vohra
@@ -0,0 +1,248 @@
+package com.bigdata.hive.udf.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+/*
+ * Sampled latency, throughput and cache statistics of one UDF call site, exposed over JMX under
+ * com.bigdata.hive.udf:type=CallSite,function=<name>,signature=<name(types)>.
+ *
+ * Every UDF instance of a function and signature shares one CallSiteMetrics, counted by acquire()
+ * and release(), so the MBeans are bounded by the signatures in use. Hive creates instances that
+ * are never closed, e.g. to fold constants while compiling a query, and they only hold a reference.
+ *
+ * The owning UDF counts rows itself and reports every samplingInterval-th row with its latency,
+ * so unsampled rows cost a counter increment and a comparison. Reporting is lock-free and
+ * allocation-free, and may race with JMX readers on other threads.
+ *
+ * Starting the platform MBean server costs a few hundred milliseconds in a fresh JVM, so
+ * registration happens on a shared daemon thread and never delays the first row.
+ */
+public final class CallSiteMetrics implements CallSiteMetricsMXBean {
+
+	public static final String DOMAIN = "com.bigdata.hive.udf";
+
+	// guarded by the class
+	private static final Map<String, CallSiteMetrics> SHARED = new HashMap<String, CallSiteMetrics>();
+
+	private final String function;
+	private final String signature;
+	private final int samplingInterval;
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final AtomicLong rows = new AtomicLong();
+	private final AtomicLong cacheHits = new AtomicLong();
+	private final AtomicLong cacheLookups = new AtomicLong();
+	private volatile String codePath = "none";
+	private volatile long startNanos = System.nanoTime();
+	private ObjectName objectName;
+	private boolean registering;
+	// guarded by the class
+	private int references;
+
+	private CallSiteMetrics(String function, String signature, int samplingInterval) {
+		this.function = function;
+		this.signature = signature;
+		this.samplingInterval = samplingInterval;
+	}
+
+	/*
+	 * Returns the metrics of the call site, created with the sampling interval of its first user.
+	 * Each call is matched by one release().
+	 */
+	public static synchronized CallSiteMetrics acquire(String function, String signature, int samplingInterval) {
+		String key = key(function, signature);
+		CallSiteMetrics metrics = SHARED.get(key);
+		if (metrics == null) {
+			metrics = new CallSiteMetrics(function, signature, samplingInterval);
+			SHARED.put(key, metrics);
+		}
+		metrics.references++;
+		return metrics;
+	}
+
+	/*
+	 * Drops one reference, unregistering the MBean with the last one.
+	 */
+	public void release() {
+		synchronized (CallSiteMetrics.class) {
+			if (--references > 0) {
+				return;
+			}
+			SHARED.remove(key(function, signature));
+			// before a later acquire() registers the same name
+			unregister();
+		}
+	}
+
+	public static ObjectName objectName(String function, String signature) throws MalformedObjectNameException {
+		return new ObjectName(DOMAIN + ":type=CallSite,function=" + ObjectName.quote(function) + ",signature="
+				+ ObjectName.quote(signature));
+	}
+
+	private static String key(String function, String signature) {
+		return function + '\n' + signature;
+	}
+
+	/*
+	 * Records one sampled row, accounting for the rows evaluated since the previous sample.
+	 */
+	public void sample(long latencyNanos, long rowsSinceLastSample, boolean cacheHit, String codePath) {
+		latency.record(latencyNanos);
+		rows.addAndGet(rowsSinceLastSample);
+		cacheLookups.incrementAndGet();
+		if (cacheHit) {
+			cacheHits.incrementAndGet();
+		}
+		this.codePath = codePath;
+	}
+
+	/*
+	 * Registers this call site with the platform MBean server in the background. Failures are
+	 * ignored, metrics are then still recorded but not exposed.
+	 */
+	public synchronized void register() {
+		if (registering || objectName != null) {
+			return;
+		}
+		registering = true;
+		Registrar.EXECUTOR.execute(new Runnable() {
+			@Override
+			public void run() {
+				registerNow();
+			}
+		});
+	}
+
+	private synchronized void registerNow() {
+		if (!registering) {
+			// unregistered before the registrar got to it
+			return;
+		}
+		registering = false;
+		try {
+			ObjectName name = objectName(function, signature);
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+			objectName = name;
+		} catch (JMException exception) {
+			// best effort, e.g. under a restrictive security manager
+		}
+	}
+
+	private synchronized void unregister() {
+		registering = false;
+		if (objectName == null) {
+			return;
+		}
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			if (server.isRegistered(objectName)) {
+				server.unregisterMBean(objectName);
+			}
+		} catch (JMException exception) {
+			// already gone
+		}
+		objectName = null;
+	}
+
+	public synchronized ObjectName getObjectName() {
+		return objectName;
+	}
+
+	@Override
+	public String getFunction() {
+		return function;
+	}
+
+	@Override
+	public String getSignature() {
+		return signature;
+	}
+
+	@Override
+	public String getCodePath() {
+		return codePath;
+	}
+
+	@Override
+	public int getSamplingInterval() {
+		return samplingInterval;
+	}
+
+	@Override
+	public long getRows() {
+		return rows.get();
+	}
+
+	@Override
+	public long getSampledRows() {
+		return cacheLookups.get();
+	}
+
+	@Override
+	public double getRowsPerSecond() {
+		double seconds = (System.nanoTime() - startNanos) / 1e9;
+		return seconds <= 0 ? 0 : rows.get() / seconds;
+	}
+
+	@Override
+	public long getLatencyP50Nanos() {
+		return latency.percentile(0.5);
+	}
+
+	@Override
+	public long getLatencyP99Nanos() {
+		return latency.percentile(0.99);
+	}
+
+	@Override
+	public long getLatencyP999Nanos() {
+		return latency.percentile(0.999);
+	}
+
+	@Override
+	public long getLatencyMaxNanos() {
+		return latency.max();
+	}
+
+	@Override
+	public double getCacheHitRatio() {
+		long lookups = cacheLookups.get();
+		return lookups == 0 ? 0 : (double) cacheHits.get() / lookups;
+	}
+
+	@Override
+	public void reset() {
+		latency.reset();
+		rows.set(0);
+		cacheHits.set(0);
+		cacheLookups.set(0);
+		startNanos = System.nanoTime();
+	}
+
+	/*
+	 * Loaded with the first registration only.
+	 */
+	private static final class Registrar {
+
+		static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "day-extremes-jmx");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+	}
+
+}
@@ -0,0 +1,36 @@
+package com.bigdata.hive.udf.metrics;
+
+/*
+ * Management view of one UDF call site, registered under
+ * com.bigdata.hive.udf:type=CallSite,function=<name>,id=<n>.
+ */
+public interface CallSiteMetricsMXBean {
+
+	String getFunction();
+
+	String getSignature();
+
+	String getCodePath();
+
+	int getSamplingInterval();
+
+	long getRows();
+
+	long getSampledRows();
+
+	double getRowsPerSecond();
+
+	long getLatencyP50Nanos();
+
+	long getLatencyP99Nanos();
+
+	long getLatencyP999Nanos();
+
+	long getLatencyMaxNanos();
+
+	// share of sampled rows that reused the previous row's output instead of rendering
+	double getCacheHitRatio();
+
+	void reset();
+
+}
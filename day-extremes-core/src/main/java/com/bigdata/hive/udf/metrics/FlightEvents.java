@@ -0,0 +1,53 @@
+package com.bigdata.hive.udf.metrics;
+
+/*
+ * Java Flight Recorder events for the hot path, so that a recording attributes time to a call
+ * site, unit and input type rather than to generic Hive frames.
+ *
+ * This is the build for runtimes without JFR and does nothing: enabled() is a constant false, so
+ * callers skip taking timestamps and the JIT removes the calls. META-INF/versions/11 carries the
+ * build that emits the events, each of them disabled until a recording turns it on.
+ */
+public final class FlightEvents {
+
+	public static final String SLOW_PARSE_PROPERTY = "dayextremes.jfr.slow.parse.micros";
+
+	private FlightEvents() {
+	}
+
+	/*
+	 * Returns whether this runtime can emit the events at all.
+	 */
+	public static boolean available() {
+		return false;
+	}
+
+	/*
+	 * Returns whether a recording has any of the events on, and callers should time their work.
+	 */
+	public static boolean enabled() {
+		return false;
+	}
+
+	/*
+	 * One sampled row, standing for the rows evaluated since the previous sample.
+	 */
+	public static void evaluated(String function, String unit, String inputType, String codePath, long rows,
+			long nanos) {
+	}
+
+	/*
+	 * One date string that was not in the parsed date cache, and how long parsing it took. Parses
+	 * slower than dayextremes.jfr.slow.parse.micros (100 by default) are also reported as slow.
+	 */
+	public static void parsed(String function, String unit, String inputType, String pattern, long nanos) {
+	}
+
+	/*
+	 * The input formatter of a call site replaced for another pattern, which empties its date cache.
+	 */
+	public static void formatEvicted(String function, String unit, String inputType, String evictedPattern,
+			String pattern, long nanos) {
+	}
+
+}
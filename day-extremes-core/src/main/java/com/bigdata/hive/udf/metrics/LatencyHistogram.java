@@ -0,0 +1,93 @@
+package com.bigdata.hive.udf.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * Lock-free histogram of nanosecond latencies with log-linear buckets: every power of two is split
+ * into 8 sub-buckets, so any reported percentile is within 12.5% of the recorded value.
+ *
+ * Recording is a single atomic increment and never allocates. Percentiles are computed from a
+ * racy but monotonic view of the counters, which is good enough for monitoring.
+ */
+public final class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+	public void record(long nanos) {
+		counts.incrementAndGet(bucket(Math.max(nanos, 0)));
+	}
+
+	public long count() {
+		long count = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			count += counts.get(i);
+		}
+		return count;
+	}
+
+	/*
+	 * Returns the midpoint of the bucket holding the given quantile (0..1), or 0 when empty.
+	 */
+	public long percentile(double quantile) {
+		long[] snapshot = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = counts.get(i);
+			total += snapshot[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+
+		long rank = Math.max(1, (long) Math.ceil(quantile * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				return lowerBound(i) + (width(i) - 1) / 2;
+			}
+		}
+		return lowerBound(BUCKETS - 1);
+	}
+
+	public long max() {
+		for (int i = BUCKETS - 1; i >= 0; i--) {
+			if (counts.get(i) > 0) {
+				return lowerBound(i) + width(i) - 1;
+			}
+		}
+		return 0;
+	}
+
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+	}
+
+	static int bucket(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	static long lowerBound(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+	}
+
+	private static long width(int bucket) {
+		return bucket < SUB_BUCKETS ? 1 : 1L << (bucket / SUB_BUCKETS - 1);
+	}
+
+}
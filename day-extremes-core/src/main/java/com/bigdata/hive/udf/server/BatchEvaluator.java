@@ -0,0 +1,97 @@
+package com.bigdata.hive.udf.server;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.TimeZone;
+
+import com.bigdata.hive.udf.engine.ParsedDateCache;
+import com.bigdata.hive.udf.engine.PeriodKernel;
+import com.bigdata.hive.udf.engine.PeriodRenderer;
+
+/*
+ * The per-thread engine of the server: the same parsing, date cache and renderer as a UDF call
+ * site, except that an unparsable date is NULL (dayextremes.error.mode=null). The boundaries of a
+ * batch are looked up at once through the JVM's PeriodKernel, the SIMD one when it is enabled.
+ */
+final class BatchEvaluator {
+
+	static final long UNPARSABLE = Long.MIN_VALUE;
+
+	private final TimeZone timeZone;
+	private final ParsedDateCache parsedDates;
+	private final PeriodRenderer renderer = new PeriodRenderer();
+
+	private SimpleDateFormat inputFormatter;
+	private String inputFormatterPattern;
+
+	BatchEvaluator(TimeZone timeZone, int cacheCapacity) {
+		this.timeZone = timeZone;
+		renderer.setTimeZone(timeZone);
+		this.parsedDates = new ParsedDateCache(cacheCapacity);
+	}
+
+	/*
+	 * Returns the local millis of a date string, or UNPARSABLE.
+	 */
+	long parse(String date, String format) {
+		SimpleDateFormat formatter = inputFormatter(format);
+		long localMillis = parsedDates.get(date, UNPARSABLE);
+		if (localMillis != UNPARSABLE) {
+			return localMillis;
+		}
+		try {
+			localMillis = PeriodRenderer.toLocalMillis(formatter.parse(date).getTime(), timeZone);
+		} catch (ParseException e) {
+			return UNPARSABLE;
+		}
+		parsedDates.put(date, localMillis);
+		return localMillis;
+	}
+
+	/*
+	 * Shifts milliseconds since epoch into the server's time zone, like a TIMESTAMP argument.
+	 */
+	long localMillis(long millis) {
+		return PeriodRenderer.toLocalMillis(millis, timeZone);
+	}
+
+	/*
+	 * Replaces the first count epoch days with their boundary.
+	 */
+	void boundaries(BatchRequest request, int[] epochDays, int count) {
+		PeriodKernel kernel = PeriodKernel.get();
+		if (request.last) {
+			kernel.lastDays(request.unit, epochDays, epochDays, 0, count);
+		} else {
+			kernel.firstDays(request.unit, epochDays, epochDays, 0, count);
+		}
+	}
+
+	/*
+	 * Renders a boundary from boundaries() at the time of day of its date; the result is in bytes()
+	 * and length().
+	 */
+	void render(BatchRequest request, int boundaryDay, int millisOfDay) {
+		renderer.renderBoundaryDay(request.unit, request.last, boundaryDay, millisOfDay, request.outputFormat,
+				request.includeInterval, request.interval);
+	}
+
+	byte[] bytes() {
+		return renderer.bytes();
+	}
+
+	int length() {
+		return renderer.length();
+	}
+
+	private SimpleDateFormat inputFormatter(String format) {
+		if (inputFormatter == null || !format.equals(inputFormatterPattern)) {
+			inputFormatter = new SimpleDateFormat(format);
+			inputFormatter.setTimeZone(timeZone);
+			inputFormatterPattern = format;
+			parsedDates.clear();
+		}
+		return inputFormatter;
+	}
+
+}
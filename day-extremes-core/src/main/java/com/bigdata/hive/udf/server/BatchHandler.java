@@ -0,0 +1,214 @@
+package com.bigdata.hive.udf.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.TimeZone;
+
+import com.bigdata.hive.udf.engine.PeriodRenderer;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+/*
+ * Answers POST /first and /last with the boundary of every date in the request body, in order.
+ *
+ * application/json bodies are an array of date strings in input_format, answered by an array of
+ * strings in output_format, with null for a null or unparsable date. application/octet-stream
+ * bodies are big-endian 64-bit milliseconds since epoch (Long.MIN_VALUE for null), taken as a
+ * TIMESTAMP in the server's time zone, and are answered by one value per date: a big-endian
+ * 16-bit length followed by that many UTF-8 bytes, 0xFFFF for null.
+ *
+ * Each executor thread keeps its own evaluator and buffers, so a batch allocates only its date
+ * strings and nothing per value in the binary form. The dates of a batch are read first, then
+ * their boundaries looked up in one kernel call, then rendered.
+ */
+final class BatchHandler implements HttpHandler {
+
+	static final String JSON = "application/json";
+	static final String BINARY = "application/octet-stream";
+	static final int NULL_LENGTH = 0xFFFF;
+
+	private final String path;
+	private final boolean last;
+	private final int maxBatchBytes;
+	private final ThreadLocal<Worker> workers;
+
+	BatchHandler(String path, boolean last, int maxBatchBytes, final TimeZone timeZone, final int cacheCapacity) {
+		this.path = path;
+		this.last = last;
+		this.maxBatchBytes = maxBatchBytes;
+		this.workers = new ThreadLocal<Worker>() {
+			@Override
+			protected Worker initialValue() {
+				return new Worker(new BatchEvaluator(timeZone, cacheCapacity));
+			}
+		};
+	}
+
+	@Override
+	public void handle(HttpExchange exchange) throws IOException {
+		try {
+			if (!path.equals(exchange.getRequestURI().getPath())) {
+				send(exchange, 404, "Unknown path " + exchange.getRequestURI().getPath());
+				return;
+			}
+			if (!"POST".equals(exchange.getRequestMethod())) {
+				exchange.getResponseHeaders().set("Allow", "POST");
+				send(exchange, 405, "Batches are POSTed");
+				return;
+			}
+
+			BatchRequest request = BatchRequest.parse(last, exchange.getRequestURI().getRawQuery());
+			Worker worker = workers.get();
+			if (!worker.read(exchange, maxBatchBytes)) {
+				send(exchange, 413, "Batches are limited to " + maxBatchBytes + " bytes");
+				return;
+			}
+
+			String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+			boolean binary = contentType != null && contentType.startsWith(BINARY);
+			worker.output.reset();
+			if (binary) {
+				worker.answerBinary(request);
+			} else {
+				worker.answerJson(request);
+			}
+
+			exchange.getResponseHeaders().set("Content-Type", binary ? BINARY : JSON);
+			exchange.sendResponseHeaders(200, worker.output.length);
+			OutputStream body = exchange.getResponseBody();
+			body.write(worker.output.bytes, 0, worker.output.length);
+			body.flush();
+		} catch (IllegalArgumentException exception) {
+			send(exchange, 400, exception.getMessage());
+		} catch (RuntimeException exception) {
+			send(exchange, 500, String.valueOf(exception));
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private static void send(HttpExchange exchange, int status, String message) throws IOException {
+		byte[] bytes = (message + "\n").getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		exchange.getResponseBody().write(bytes);
+	}
+
+	private static final class Worker {
+
+		private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+
+		final BatchEvaluator evaluator;
+		final ResponseBuffer output = new ResponseBuffer();
+		byte[] input = new byte[64 * 1024];
+		int inputLength;
+		// the dates of the batch, as epoch day and millis of day, and which of them are null
+		int[] epochDays = new int[1024];
+		int[] millisOfDay = new int[1024];
+		boolean[] nulls = new boolean[1024];
+		int count;
+
+		Worker(BatchEvaluator evaluator) {
+			this.evaluator = evaluator;
+		}
+
+		/*
+		 * Reads the request body into input, or returns false when it is larger than the limit.
+		 */
+		boolean read(HttpExchange exchange, int maxBytes) throws IOException {
+			String declared = exchange.getRequestHeaders().getFirst("Content-Length");
+			if (declared != null && Long.parseLong(declared.trim()) > maxBytes) {
+				return false;
+			}
+			inputLength = 0;
+			InputStream body = exchange.getRequestBody();
+			while (true) {
+				if (inputLength == input.length) {
+					if (input.length >= maxBytes) {
+						return body.read() < 0;
+					}
+					byte[] grown = new byte[(int) Math.min((long) input.length * 2, maxBytes)];
+					System.arraycopy(input, 0, grown, 0, inputLength);
+					input = grown;
+				}
+				int read = body.read(input, inputLength, input.length - inputLength);
+				if (read < 0) {
+					return true;
+				}
+				inputLength += read;
+			}
+		}
+
+		void answerJson(BatchRequest request) {
+			JsonStringArray dates = new JsonStringArray(input, inputLength);
+			count = 0;
+			while (dates.hasNext()) {
+				String date = dates.next();
+				add(date == null ? BatchEvaluator.UNPARSABLE : evaluator.parse(date, request.inputFormat));
+			}
+			evaluator.boundaries(request, epochDays, count);
+
+			output.put((byte) '[');
+			for (int i = 0; i < count; i++) {
+				if (i > 0) {
+					output.put((byte) ',');
+				}
+				if (nulls[i]) {
+					output.put(NULL, 0, NULL.length);
+				} else {
+					evaluator.render(request, epochDays[i], millisOfDay[i]);
+					JsonStringArray.write(evaluator.bytes(), evaluator.length(), output);
+				}
+			}
+			output.put((byte) ']');
+		}
+
+		void answerBinary(BatchRequest request) {
+			if (inputLength % 8 != 0) {
+				throw new IllegalArgumentException("Binary batches are 8 bytes per date, got " + inputLength + " bytes");
+			}
+			count = 0;
+			for (int i = 0; i < inputLength; i += 8) {
+				long millis = 0;
+				for (int b = 0; b < 8; b++) {
+					millis = millis << 8 | input[i + b] & 0xFF;
+				}
+				add(millis == Long.MIN_VALUE ? BatchEvaluator.UNPARSABLE : evaluator.localMillis(millis));
+			}
+			evaluator.boundaries(request, epochDays, count);
+
+			for (int i = 0; i < count; i++) {
+				if (nulls[i]) {
+					output.putShort(NULL_LENGTH);
+				} else {
+					evaluator.render(request, epochDays[i], millisOfDay[i]);
+					output.putShort(evaluator.length());
+					output.put(evaluator.bytes(), 0, evaluator.length());
+				}
+			}
+		}
+
+		/*
+		 * Appends a date of the batch, UNPARSABLE for a null one.
+		 */
+		private void add(long localMillis) {
+			if (count == epochDays.length) {
+				int capacity = count * 2;
+				epochDays = Arrays.copyOf(epochDays, capacity);
+				millisOfDay = Arrays.copyOf(millisOfDay, capacity);
+				nulls = Arrays.copyOf(nulls, capacity);
+			}
+			boolean unparsable = localMillis == BatchEvaluator.UNPARSABLE;
+			// a null still takes a lane of the kernel, with a day it can look up
+			epochDays[count] = unparsable ? 0 : PeriodRenderer.epochDay(localMillis);
+			millisOfDay[count] = unparsable ? 0 : PeriodRenderer.millisOfDay(localMillis);
+			nulls[count] = unparsable;
+			count++;
+		}
+
+	}
+
+}
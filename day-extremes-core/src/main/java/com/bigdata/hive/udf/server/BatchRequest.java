@@ -0,0 +1,86 @@
+package com.bigdata.hive.udf.server;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+
+import com.bigdata.hive.udf.engine.PeriodCalculator;
+import com.bigdata.hive.udf.engine.PeriodRenderer;
+import com.bigdata.hive.udf.engine.TimeUnit;
+
+/*
+ * What to compute for every date of a batch, read from the query string with the names of the
+ * UDF arguments: unit, input_format, output_format, include_interval and interval.
+ */
+final class BatchRequest {
+
+	final boolean last;
+	final TimeUnit unit;
+	final String inputFormat;
+	final String outputFormat;
+	final boolean includeInterval;
+	final int interval;
+
+	private BatchRequest(boolean last, TimeUnit unit, String inputFormat, String outputFormat,
+			boolean includeInterval, int interval) {
+		this.last = last;
+		this.unit = unit;
+		this.inputFormat = inputFormat;
+		this.outputFormat = outputFormat;
+		this.includeInterval = includeInterval;
+		this.interval = interval;
+	}
+
+	static BatchRequest parse(boolean last, String query) {
+		TimeUnit unit = null;
+		String inputFormat = PeriodCalculator.DEFAULT_DATE_FORMAT;
+		String outputFormat = null;
+		boolean includeInterval = false;
+		int interval = PeriodRenderer.NO_INTERVAL;
+
+		for (String parameter : query == null ? new String[0] : query.split("&")) {
+			if (parameter.isEmpty()) {
+				continue;
+			}
+			int separator = parameter.indexOf('=');
+			String name = decode(separator < 0 ? parameter : parameter.substring(0, separator));
+			String value = separator < 0 ? "" : decode(parameter.substring(separator + 1));
+			switch (name) {
+			case "unit":
+				try {
+					unit = TimeUnit.valueOf(value.trim().toUpperCase());
+				} catch (IllegalArgumentException exception) {
+					throw new IllegalArgumentException("unit can only be one of DAY, WEEK, MONTH, QUARTER, YEAR");
+				}
+				break;
+			case "input_format":
+				inputFormat = value;
+				break;
+			case "output_format":
+				outputFormat = value;
+				break;
+			case "include_interval":
+				includeInterval = Boolean.parseBoolean(value);
+				break;
+			case "interval":
+				interval = PeriodRenderer.parseInterval(value);
+				break;
+			default:
+				throw new IllegalArgumentException("Unexpected parameter " + name);
+			}
+		}
+
+		if (unit == null) {
+			throw new IllegalArgumentException("unit is required");
+		}
+		return new BatchRequest(last, unit, inputFormat, outputFormat, includeInterval, interval);
+	}
+
+	private static String decode(String value) {
+		try {
+			return URLDecoder.decode(value, "UTF-8");
+		} catch (UnsupportedEncodingException exception) {
+			throw new IllegalStateException(exception);
+		}
+	}
+
+}
@@ -0,0 +1,139 @@
+package com.bigdata.hive.udf.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.TimeZone;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpServer;
+
+/*
+ * Serves FIRST_DAY_OF/LAST_DAY_OF over HTTP for callers outside the JVM, with the engine and
+ * semantics of the UDFs, so that they do not keep their own copy of the period logic:
+ *
+ *   POST /first?unit=MONTH[&input_format=..][&output_format=..][&include_interval=true][&interval=HH:mm:ss]
+ *   POST /last?...
+ *
+ * with a batch of dates as the body, see BatchHandler. Requests run on a fixed pool with a bounded
+ * queue; when the queue is full the accepting thread runs the request itself and stops accepting
+ * until it is done, which pushes back on the callers instead of queueing without limit.
+ */
+public final class DayExtremesServer {
+
+	private static final String USAGE = "Usage: DayExtremesServer [--host <address>] [--port <n>] [--threads <n>]"
+			+ " [--queue <n>] [--max-batch-mb <n>] [--timezone <id>] [--cache-capacity <n>]";
+
+	private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+	private final HttpServer server;
+	private final ThreadPoolExecutor executor;
+
+	public DayExtremesServer(InetSocketAddress address, int threads, int queue, int maxBatchBytes, TimeZone timeZone,
+			int cacheCapacity) throws IOException {
+		final AtomicInteger count = new AtomicInteger();
+		executor = new ThreadPoolExecutor(threads, threads, 0L, java.util.concurrent.TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(queue), new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, "day-extremes-server-" + count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				}, new ThreadPoolExecutor.CallerRunsPolicy());
+		// the JDK server writes headers and body separately, which Nagle and delayed ACKs turn into
+		// a 40 ms stall per response; the setting is read once, when the first server is created
+		if (System.getProperty(NODELAY_PROPERTY) == null) {
+			System.setProperty(NODELAY_PROPERTY, "true");
+		}
+		server = HttpServer.create(address, 0);
+		server.createContext("/first", new BatchHandler("/first", false, maxBatchBytes, timeZone, cacheCapacity));
+		server.createContext("/last", new BatchHandler("/last", true, maxBatchBytes, timeZone, cacheCapacity));
+		server.setExecutor(executor);
+	}
+
+	public void start() {
+		server.start();
+	}
+
+	public void stop() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	/*
+	 * Returns the bound port, which is chosen by the system when the address has port 0.
+	 */
+	public int port() {
+		return server.getAddress().getPort();
+	}
+
+	public static void main(String[] args) throws IOException {
+		String host = "0.0.0.0";
+		int port = 8080;
+		int threads = Runtime.getRuntime().availableProcessors();
+		int queue = 256;
+		int maxBatchMegabytes = 16;
+		TimeZone timeZone = TimeZone.getDefault();
+		int cacheCapacity = 1024;
+
+		try {
+			for (int i = 0; i < args.length; i++) {
+				String arg = args[i];
+				switch (arg) {
+				case "--host":
+					host = value(args, ++i);
+					break;
+				case "--port":
+					port = Integer.parseInt(value(args, ++i));
+					break;
+				case "--threads":
+					threads = Integer.parseInt(value(args, ++i));
+					break;
+				case "--queue":
+					queue = Integer.parseInt(value(args, ++i));
+					break;
+				case "--max-batch-mb":
+					maxBatchMegabytes = Integer.parseInt(value(args, ++i));
+					break;
+				case "--timezone":
+					String id = value(args, ++i);
+					timeZone = TimeZone.getTimeZone(id);
+					if (!timeZone.getID().equals(id)) {
+						throw new IllegalArgumentException("Unknown time zone " + id);
+					}
+					break;
+				case "--cache-capacity":
+					cacheCapacity = Integer.parseInt(value(args, ++i));
+					break;
+				default:
+					throw new IllegalArgumentException("Unexpected argument " + arg);
+				}
+			}
+			if (threads < 1 || queue < 1 || maxBatchMegabytes < 1 || maxBatchMegabytes > 1024 || cacheCapacity < 0) {
+				throw new IllegalArgumentException(
+						"--threads and --queue must be positive, --max-batch-mb between 1 and 1024");
+			}
+		} catch (IllegalArgumentException exception) {
+			System.err.println(exception.getMessage());
+			System.err.println(USAGE);
+			System.exit(2);
+			return;
+		}
+
+		DayExtremesServer server = new DayExtremesServer(new InetSocketAddress(host, port), threads, queue,
+				maxBatchMegabytes * 1024 * 1024, timeZone, cacheCapacity);
+		server.start();
+		System.err.println("Listening on " + host + ":" + server.port() + " with " + threads + " threads");
+	}
+
+	private static String value(String[] args, int index) {
+		if (index >= args.length) {
+			throw new IllegalArgumentException(args[index - 1] + " needs a value");
+		}
+		return args[index];
+	}
+
+}
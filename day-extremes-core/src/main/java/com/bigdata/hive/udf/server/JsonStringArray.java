@@ -0,0 +1,183 @@
+package com.bigdata.hive.udf.server;
+
+import java.nio.charset.StandardCharsets;
+
+/*
+ * Reads a JSON array of strings and nulls from UTF-8 bytes one value at a time, and writes the
+ * escaped form of a UTF-8 string. Anything else in the array is rejected.
+ */
+final class JsonStringArray {
+
+	private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+	private final byte[] json;
+	private final int end;
+	private int position;
+	private int values;
+	private boolean ready;
+	private boolean closed;
+
+	JsonStringArray(byte[] json, int length) {
+		this.json = json;
+		this.end = length;
+		skipWhitespace();
+		expect('[');
+	}
+
+	boolean hasNext() {
+		if (ready) {
+			return true;
+		}
+		if (closed) {
+			return false;
+		}
+		skipWhitespace();
+		if (position < end && json[position] == ']') {
+			position++;
+			skipWhitespace();
+			if (position != end) {
+				throw error("Unexpected content after the array");
+			}
+			closed = true;
+			return false;
+		}
+		if (values > 0) {
+			expect(',');
+			skipWhitespace();
+		}
+		ready = true;
+		return true;
+	}
+
+	/*
+	 * Returns the next string, or null for a JSON null.
+	 */
+	String next() {
+		if (!hasNext()) {
+			throw error("No more values");
+		}
+		ready = false;
+		values++;
+		if (position + 4 <= end && json[position] == 'n' && json[position + 1] == 'u' && json[position + 2] == 'l'
+				&& json[position + 3] == 'l') {
+			position += 4;
+			return null;
+		}
+		expect('"');
+		int start = position;
+		while (position < end && json[position] != '"' && json[position] != '\\') {
+			position++;
+		}
+		if (position < end && json[position] == '"') {
+			return new String(json, start, position++ - start, StandardCharsets.UTF_8);
+		}
+		return escaped(start);
+	}
+
+	/*
+	 * Appends the bytes as a quoted JSON string to the output.
+	 */
+	static void write(byte[] utf8, int length, ResponseBuffer output) {
+		output.put((byte) '"');
+		int start = 0;
+		for (int i = 0; i < length; i++) {
+			int b = utf8[i] & 0xFF;
+			if (b == '"' || b == '\\' || b < 0x20) {
+				output.put(utf8, start, i - start);
+				output.put((byte) '\\');
+				if (b < 0x20) {
+					output.put((byte) 'u');
+					output.put((byte) '0');
+					output.put((byte) '0');
+					output.put(HEX[b >> 4]);
+					output.put(HEX[b & 0xF]);
+				} else {
+					output.put((byte) b);
+				}
+				start = i + 1;
+			}
+		}
+		output.put(utf8, start, length - start);
+		output.put((byte) '"');
+	}
+
+	private String escaped(int start) {
+		StringBuilder value = new StringBuilder();
+		int segment = start;
+		while (true) {
+			if (position >= end) {
+				throw error("Unterminated string");
+			}
+			byte b = json[position];
+			if (b == '"') {
+				value.append(new String(json, segment, position - segment, StandardCharsets.UTF_8));
+				position++;
+				return value.toString();
+			}
+			if (b != '\\') {
+				position++;
+				continue;
+			}
+			value.append(new String(json, segment, position - segment, StandardCharsets.UTF_8));
+			if (++position >= end) {
+				throw error("Unterminated string");
+			}
+			char escape = (char) json[position++];
+			switch (escape) {
+			case '"':
+			case '\\':
+			case '/':
+				value.append(escape);
+				break;
+			case 'b':
+				value.append('\b');
+				break;
+			case 'f':
+				value.append('\f');
+				break;
+			case 'n':
+				value.append('\n');
+				break;
+			case 'r':
+				value.append('\r');
+				break;
+			case 't':
+				value.append('\t');
+				break;
+			case 'u':
+				if (position + 4 > end) {
+					throw error("Unterminated string");
+				}
+				try {
+					value.append((char) Integer.parseInt(new String(json, position, 4, StandardCharsets.US_ASCII), 16));
+				} catch (NumberFormatException exception) {
+					throw error("Invalid unicode escape");
+				}
+				position += 4;
+				break;
+			default:
+				throw error("Invalid escape \\" + escape);
+			}
+			segment = position;
+		}
+	}
+
+	private void skipWhitespace() {
+		while (position < end && (json[position] == ' ' || json[position] == '\t' || json[position] == '\n'
+				|| json[position] == '\r')) {
+			position++;
+		}
+	}
+
+	private void expect(char c) {
+		if (position >= end || json[position] != c) {
+			throw error("Expected '" + c + "'");
+		}
+		position++;
+	}
+
+	private IllegalArgumentException error(String message) {
+		return new IllegalArgumentException(message + " at byte " + position + " of the JSON array of dates");
+	}
+
+}
@@ -0,0 +1,40 @@
+package com.bigdata.hive.udf.server;
+
+/*
+ * A growable byte buffer for response bodies, reused across requests by one thread.
+ */
+final class ResponseBuffer {
+
+	byte[] bytes = new byte[64 * 1024];
+	int length;
+
+	void reset() {
+		length = 0;
+	}
+
+	void put(byte b) {
+		ensure(1);
+		bytes[length++] = b;
+	}
+
+	void put(byte[] source, int offset, int count) {
+		ensure(count);
+		System.arraycopy(source, offset, bytes, length, count);
+		length += count;
+	}
+
+	void putShort(int value) {
+		ensure(2);
+		bytes[length++] = (byte) (value >>> 8);
+		bytes[length++] = (byte) value;
+	}
+
+	private void ensure(int count) {
+		if (bytes.length - length < count) {
+			byte[] grown = new byte[Math.max(bytes.length * 2, length + count)];
+			System.arraycopy(bytes, 0, grown, 0, length);
+			bytes = grown;
+		}
+	}
+
+}
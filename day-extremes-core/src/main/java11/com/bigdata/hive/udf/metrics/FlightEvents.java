@@ -0,0 +1,162 @@
+package com.bigdata.hive.udf.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/*
+ * Java Flight Recorder events for the hot path, so that a recording attributes time to a call
+ * site, unit and input type rather than to generic Hive frames.
+ *
+ * All events are disabled by default, and enabled() only reads their enabled state, so that
+ * callers take no timestamps unless a recording asks for one of them. The durations are measured
+ * by the callers and carried in an elapsed field, the events themselves are instants.
+ */
+public final class FlightEvents {
+
+	public static final String SLOW_PARSE_PROPERTY = "dayextremes.jfr.slow.parse.micros";
+
+	private static final long SLOW_PARSE_NANOS = Long.getLong(SLOW_PARSE_PROPERTY, 100) * 1000;
+
+	private static final EventType EVALUATE = EventType.getEventType(EvaluateEvent.class);
+	private static final EventType SLOW_PARSE = EventType.getEventType(SlowParseEvent.class);
+	private static final EventType CACHE_MISS = EventType.getEventType(CacheMissEvent.class);
+	private static final EventType FORMAT_EVICTION = EventType.getEventType(FormatEvictionEvent.class);
+
+	private FlightEvents() {
+	}
+
+	public static boolean available() {
+		return true;
+	}
+
+	public static boolean enabled() {
+		return EVALUATE.isEnabled() || SLOW_PARSE.isEnabled() || CACHE_MISS.isEnabled()
+				|| FORMAT_EVICTION.isEnabled();
+	}
+
+	public static void evaluated(String function, String unit, String inputType, String codePath, long rows,
+			long nanos) {
+		EvaluateEvent event = new EvaluateEvent();
+		if (event.shouldCommit()) {
+			event.function = function;
+			event.unit = unit;
+			event.inputType = inputType;
+			event.elapsed = nanos;
+			event.codePath = codePath;
+			event.rows = rows;
+			event.commit();
+		}
+	}
+
+	public static void parsed(String function, String unit, String inputType, String pattern, long nanos) {
+		CacheMissEvent miss = new CacheMissEvent();
+		if (miss.shouldCommit()) {
+			miss.function = function;
+			miss.unit = unit;
+			miss.inputType = inputType;
+			miss.elapsed = nanos;
+			miss.pattern = pattern;
+			miss.commit();
+		}
+		if (nanos < SLOW_PARSE_NANOS) {
+			return;
+		}
+		SlowParseEvent slow = new SlowParseEvent();
+		if (slow.shouldCommit()) {
+			slow.function = function;
+			slow.unit = unit;
+			slow.inputType = inputType;
+			slow.elapsed = nanos;
+			slow.pattern = pattern;
+			slow.commit();
+		}
+	}
+
+	public static void formatEvicted(String function, String unit, String inputType, String evictedPattern,
+			String pattern, long nanos) {
+		FormatEvictionEvent event = new FormatEvictionEvent();
+		if (event.shouldCommit()) {
+			event.function = function;
+			event.unit = unit;
+			event.inputType = inputType;
+			event.elapsed = nanos;
+			event.evictedPattern = evictedPattern;
+			event.pattern = pattern;
+			event.commit();
+		}
+	}
+
+	@Category({ "Day Extremes" })
+	@Enabled(false)
+	@StackTrace(false)
+	abstract static class CallSiteEvent extends Event {
+
+		@Label("Function")
+		String function;
+
+		@Label("Unit")
+		String unit;
+
+		@Label("Input Type")
+		String inputType;
+
+		@Label("Elapsed")
+		@Timespan(Timespan.NANOSECONDS)
+		long elapsed;
+
+	}
+
+	@Name("com.bigdata.hive.udf.Evaluate")
+	@Label("UDF Row Sample")
+	@Description("A sampled row of a call site, standing for the rows since the previous sample")
+	static final class EvaluateEvent extends CallSiteEvent {
+
+		@Label("Code Path")
+		String codePath;
+
+		@Label("Rows")
+		long rows;
+
+	}
+
+	@Name("com.bigdata.hive.udf.SlowParse")
+	@Label("Slow Date Parse")
+	@Description("A date string that took longer than dayextremes.jfr.slow.parse.micros to parse")
+	static final class SlowParseEvent extends CallSiteEvent {
+
+		@Label("Pattern")
+		String pattern;
+
+	}
+
+	@Name("com.bigdata.hive.udf.CacheMiss")
+	@Label("Parsed Date Cache Miss")
+	@Description("A date string that was not in the call site's parsed date cache")
+	static final class CacheMissEvent extends CallSiteEvent {
+
+		@Label("Pattern")
+		String pattern;
+
+	}
+
+	@Name("com.bigdata.hive.udf.FormatEviction")
+	@Label("Input Format Eviction")
+	@Description("The input formatter of a call site replaced for another pattern, emptying its date cache")
+	static final class FormatEvictionEvent extends CallSiteEvent {
+
+		@Label("Evicted Pattern")
+		String evictedPattern;
+
+		@Label("Pattern")
+		String pattern;
+
+	}
+
+}
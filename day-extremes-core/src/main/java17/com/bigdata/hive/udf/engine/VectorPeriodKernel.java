@@ -0,0 +1,165 @@
+package com.bigdata.hive.udf.engine;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/*
+ * EpochDays' civil-from-days arithmetic on whole IntVector lanes (8 days per AVX2 register).
+ *
+ * Everything is counted from the March 1st that starts the day's March-based year, so month
+ * starts follow (153 * m + 2) / 5 and February is always last. Divisions are multiply and
+ * unsigned shift where the product fits in 32 bits, and a float quotient for 146097, 365 and 7:
+ * the int goes in through the mantissa of 2^23, the quotient is biased to the middle of its
+ * integer interval and rounded by adding 1.5 * 2^23, which leaves it in the low mantissa bits
+ * (JDK 17 cannot cast int vectors to float on AVX2). Both are exact for 0000-03-01 through
+ * 9999-12-31; a lane outside that range sends its whole vector to the scalar kernel, as does
+ * the tail of the batch.
+ *
+ * The arithmetic is spelled out in the loops rather than in helper methods: C2 boxes any vector
+ * that crosses a call it does not inline, and it stops inlining ordinary methods once a
+ * compilation grows past a fixed node count, which the calendar does.
+ */
+public final class VectorPeriodKernel extends PeriodKernel {
+
+	private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+	private static final int DAYS_PER_ERA = 146097;
+	private static final int DAYS_0000_TO_1970 = 719468;
+	private static final int MAX_DAY_OF_ERAS = EpochDays.of(9999, 12, 31) + DAYS_0000_TO_1970;
+	// day of the March-based year of January 1st
+	private static final int JANUARY = 306;
+
+	private static final float TWO_TO_23 = 1 << 23;
+	private static final int TWO_TO_23_BITS = Float.floatToRawIntBits(TWO_TO_23);
+	private static final float ROUNDING = 1.5f * (1 << 23);
+	private static final int ROUNDING_BITS = Float.floatToRawIntBits(ROUNDING);
+
+	@Override
+	public void firstDays(TimeUnit unit, int[] epochDays, int[] result, int offset, int length) {
+		compute(unit, false, epochDays, result, offset, length);
+	}
+
+	@Override
+	public void lastDays(TimeUnit unit, int[] epochDays, int[] result, int offset, int length) {
+		compute(unit, true, epochDays, result, offset, length);
+	}
+
+	@Override
+	public String name() {
+		return "simd-" + INTS.length() + "x32";
+	}
+
+	private static void compute(TimeUnit unit, boolean last, int[] epochDays, int[] result, int offset, int length) {
+		int bound = offset + INTS.loopBound(length);
+		int i = offset;
+		if (unit == TimeUnit.WEEK) {
+			i = weeks(last, epochDays, result, i, bound);
+		} else if (unit != TimeUnit.DAY) {
+			i = calendar(unit, last, epochDays, result, i, bound);
+		}
+		scalar(unit, last, epochDays, result, i, offset + length - i);
+	}
+
+	private static void scalar(TimeUnit unit, boolean last, int[] epochDays, int[] result, int offset, int length) {
+		if (last) {
+			PeriodKernel.scalar().lastDays(unit, epochDays, result, offset, length);
+		} else {
+			PeriodKernel.scalar().firstDays(unit, epochDays, result, offset, length);
+		}
+	}
+
+	private static int weeks(boolean last, int[] epochDays, int[] result, int i, int bound) {
+		for (; i < bound; i += INTS.length()) {
+			IntVector epochDay = IntVector.fromArray(INTS, epochDays, i);
+			IntVector z = epochDay.add(DAYS_0000_TO_1970);
+			if (z.compare(VectorOperators.UNSIGNED_GT, MAX_DAY_OF_ERAS).anyTrue()) {
+				scalar(TimeUnit.WEEK, last, epochDays, result, i, INTS.length());
+				continue;
+			}
+			IntVector era = z.or(TWO_TO_23_BITS).reinterpretAsFloats().sub(TWO_TO_23).mul(1f / DAYS_PER_ERA)
+					.add(0.5f / DAYS_PER_ERA - 0.5f).add(ROUNDING).reinterpretAsInts().sub(ROUNDING_BITS);
+			// 146097 is a multiple of 7 and day 0 of an era is a Wednesday
+			IntVector shifted = z.sub(era.mul(DAYS_PER_ERA)).add(2);
+			IntVector weeks = shifted.or(TWO_TO_23_BITS).reinterpretAsFloats().sub(TWO_TO_23).mul(1f / 7)
+					.add(0.5f / 7 - 0.5f).add(ROUNDING).reinterpretAsInts().sub(ROUNDING_BITS);
+			IntVector monday = epochDay.sub(shifted.sub(weeks.mul(7)));
+			(last ? monday.add(6) : monday).intoArray(result, i);
+		}
+		return i;
+	}
+
+	private static int calendar(TimeUnit unit, boolean last, int[] epochDays, int[] result, int i, int bound) {
+		for (; i < bound; i += INTS.length()) {
+			IntVector epochDay = IntVector.fromArray(INTS, epochDays, i);
+			IntVector z = epochDay.add(DAYS_0000_TO_1970);
+			if (z.compare(VectorOperators.UNSIGNED_GT, MAX_DAY_OF_ERAS).anyTrue()) {
+				scalar(unit, last, epochDays, result, i, INTS.length());
+				continue;
+			}
+			IntVector era = z.or(TWO_TO_23_BITS).reinterpretAsFloats().sub(TWO_TO_23).mul(1f / DAYS_PER_ERA)
+					.add(0.5f / DAYS_PER_ERA - 0.5f).add(ROUNDING).reinterpretAsInts().sub(ROUNDING_BITS);
+			IntVector dayOfEra = z.sub(era.mul(DAYS_PER_ERA));
+			// dayOfEra / 1460 and dayOfEra / 36524; the last day of an era comes out as year 400
+			IntVector quarterDays = dayOfEra.lanewise(VectorOperators.LSHR, 2);
+			IntVector yearDays = dayOfEra.sub(quarterDays.mul(91930).lanewise(VectorOperators.LSHR, 25))
+					.add(quarterDays.mul(58797).lanewise(VectorOperators.LSHR, 29));
+			IntVector year = yearDays.or(TWO_TO_23_BITS).reinterpretAsFloats().sub(TWO_TO_23).mul(1f / 365)
+					.add(0.5f / 365 - 0.5f).add(ROUNDING).reinterpretAsInts().sub(ROUNDING_BITS).min(399);
+			// March 1st of this and the next March-based year: 365 * y + y / 4 - y / 100 + y / 400
+			IntVector centuries = year.mul(41).lanewise(VectorOperators.LSHR, 12);
+			IntVector start = year.mul(365).add(year.lanewise(VectorOperators.LSHR, 2)).sub(centuries);
+			IntVector next = year.add(1);
+			IntVector nextCenturies = next.mul(41).lanewise(VectorOperators.LSHR, 12);
+			IntVector nextStart = next.mul(365).add(next.lanewise(VectorOperators.LSHR, 2)).sub(nextCenturies)
+					.add(nextCenturies.lanewise(VectorOperators.LSHR, 2));
+			IntVector dayOfYear = dayOfEra.sub(start);
+			IntVector march = epochDay.sub(dayOfYear);
+			IntVector nextMarch = march.add(nextStart).sub(start);
+			// 0 (March) to 11 (February)
+			IntVector month = dayOfYear.mul(5).add(2).mul(857).lanewise(VectorOperators.LSHR, 17);
+			// the civil year the March-based year starts in, where year 0 of an era is a 400th year
+			VectorMask<Integer> leap = year.and(3).compare(VectorOperators.EQ, 0)
+					.and(year.compare(VectorOperators.NE, centuries.mul(100))).or(year.compare(VectorOperators.EQ, 0));
+
+			IntVector boundary;
+			switch (unit) {
+			case MONTH:
+				if (last) {
+					// (153 * 12 + 2) / 5 runs past any February, which ends the day before next March
+					IntVector end = month.add(1).mul(153).add(2).mul(1639).lanewise(VectorOperators.LSHR, 13);
+					boundary = march.add(end).sub(1).min(nextMarch.sub(1));
+				} else {
+					boundary = march.add(month.mul(153).add(2).mul(1639).lanewise(VectorOperators.LSHR, 13));
+				}
+				break;
+			case QUARTER:
+				// 3 * ((month + 2) / 3) numbers the quarters from the one March closes
+				IntVector quarter = month.add(2).mul(11).lanewise(VectorOperators.LSHR, 5).mul(3);
+				if (last) {
+					// likewise, a quarter ending in March ends 30 days after next March 1st
+					IntVector end = quarter.add(1).mul(153).add(2).mul(1639).lanewise(VectorOperators.LSHR, 13);
+					boundary = march.add(end).sub(1).min(nextMarch.add(30));
+				} else {
+					IntVector begin = quarter.sub(2).mul(153).add(2).mul(1639).lanewise(VectorOperators.LSHR, 13);
+					IntVector january = march.sub(31 + 28).blend(march.sub(31 + 29), leap);
+					boundary = march.add(begin).blend(january, month.compare(VectorOperators.EQ, 0));
+				}
+				break;
+			default:
+				// January and February close the March-based year
+				VectorMask<Integer> closing = dayOfYear.compare(VectorOperators.GE, JANUARY);
+				if (last) {
+					boundary = march.blend(nextMarch, closing).add(JANUARY - 1);
+				} else {
+					IntVector january = march.sub(31 + 28).blend(march.sub(31 + 29), leap);
+					boundary = january.blend(march.add(JANUARY), closing);
+				}
+			}
+			boundary.intoArray(result, i);
+		}
+		return i;
+	}
+
+}
@@ -0,0 +1,52 @@
+package com.bigdata.hive.udf.engine;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.chrono.IsoEra;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.TextStyle;
+import java.time.temporal.ChronoField;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/*
+ * The java.time build of the locale texts OutputPattern prints, selected from META-INF/versions/9
+ * of the multi-release jar. Zone names are those of the instant as a ZonedDateTime in the zone.
+ */
+final class LocaleNames implements OutputPattern.Names {
+
+	private static final DateTimeFormatter HALFDAY = new DateTimeFormatterBuilder()
+			.appendText(ChronoField.AMPM_OF_DAY, TextStyle.SHORT).toFormatter();
+	private static final DateTimeFormatter SHORT_ZONE = DateTimeFormatter.ofPattern("z");
+	private static final DateTimeFormatter LONG_ZONE = DateTimeFormatter.ofPattern("zzzz");
+
+	@Override
+	public String era(int era) {
+		return IsoEra.of(era).getDisplayName(TextStyle.SHORT, Locale.getDefault());
+	}
+
+	@Override
+	public String month(int month, boolean full) {
+		return Month.of(month).getDisplayName(full ? TextStyle.FULL : TextStyle.SHORT, Locale.getDefault());
+	}
+
+	@Override
+	public String dayOfWeek(int dayOfWeek, boolean full) {
+		return DayOfWeek.of(dayOfWeek).getDisplayName(full ? TextStyle.FULL : TextStyle.SHORT, Locale.getDefault());
+	}
+
+	@Override
+	public String halfday(int halfday) {
+		return HALFDAY.withLocale(Locale.getDefault()).format(LocalTime.of(halfday * 12, 0));
+	}
+
+	@Override
+	public String zone(TimeZone zone, long instant, boolean full) {
+		return (full ? LONG_ZONE : SHORT_ZONE).withLocale(Locale.getDefault())
+				.format(Instant.ofEpochMilli(instant).atZone(zone.toZoneId()));
+	}
+
+}
@@ -0,0 +1,116 @@
+package benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import com.bigdata.hive.udf.engine.EpochDays;
+import com.bigdata.hive.udf.engine.PeriodKernel;
+import com.bigdata.hive.udf.engine.TimeUnit;
+
+/*
+ * Compares the scalar and SIMD period kernels on batches of random days between 1970 and 2030,
+ * in days per second. Each unit and end runs in a fresh JVM with this JVM's options, the way a
+ * task sees a single call site, so that the JIT profile of one does not leak into the next.
+ * Run with --add-modules jdk.incubator.vector to include the SIMD kernel, and -XX:UseAVX=2 to
+ * hold it to AVX2 on a machine that has AVX-512.
+ *
+ * Usage: PeriodKernelBenchmark [days] [batch size]
+ */
+public class PeriodKernelBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		String days = args.length > 0 ? args[0] : "200000000";
+		String batchSize = args.length > 1 ? args[1] : "1024";
+
+		PeriodKernel vector = PeriodKernel.vector();
+		System.out.println(days + " days in batches of " + batchSize + ", simd "
+				+ (vector == null ? "unavailable" : vector.name()));
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		for (TimeUnit unit : new TimeUnit[] { TimeUnit.WEEK, TimeUnit.MONTH, TimeUnit.QUARTER, TimeUnit.YEAR }) {
+			for (String end : new String[] { "first", "last" }) {
+				List<String> command = new ArrayList<String>();
+				command.add(java);
+				command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+				command.add("-cp");
+				command.add(System.getProperty("java.class.path"));
+				command.add(Run.class.getName());
+				command.add(days);
+				command.add(batchSize);
+				command.add(unit.name());
+				command.add(end);
+				Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+				BufferedReader reader = new BufferedReader(
+						new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+				for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+					if (line.startsWith(" ")) {
+						System.out.println(line);
+					}
+				}
+				if (process.waitFor() != 0) {
+					throw new IllegalStateException("benchmark of " + end + " " + unit + " failed");
+				}
+			}
+		}
+	}
+
+	/*
+	 * Runs in the child JVM and prints one line for one unit and end.
+	 */
+	public static class Run {
+
+		public static void main(String[] args) {
+			long days = Long.parseLong(args[0]);
+			int batchSize = Integer.parseInt(args[1]);
+			TimeUnit unit = TimeUnit.valueOf(args[2]);
+			boolean last = "last".equals(args[3]);
+
+			int[] batch = new int[batchSize];
+			int[] result = new int[batchSize];
+			Random random = new Random(42);
+			int from = EpochDays.of(1970, 1, 1);
+			int span = EpochDays.of(2030, 1, 1) - from;
+			for (int i = 0; i < batchSize; i++) {
+				batch[i] = from + random.nextInt(span);
+			}
+
+			run(PeriodKernel.scalar(), unit, last, batch, result, days / 5);
+			double scalar = run(PeriodKernel.scalar(), unit, last, batch, result, days);
+			String line = String.format(Locale.ROOT, "  %-5s %-8s scalar %,14.0f days/s", args[3], unit, scalar);
+			PeriodKernel vector = PeriodKernel.vector();
+			if (vector != null) {
+				run(vector, unit, last, batch, result, days / 5);
+				double simd = run(vector, unit, last, batch, result, days);
+				line += String.format(Locale.ROOT, "   simd %,14.0f days/s   %5.2fx", simd, simd / scalar);
+			}
+			System.out.println(line);
+		}
+
+		private static double run(PeriodKernel kernel, TimeUnit unit, boolean last, int[] batch, int[] result,
+				long days) {
+			long checksum = 0;
+			long start = System.nanoTime();
+			for (long done = 0; done < days; done += batch.length) {
+				if (last) {
+					kernel.lastDays(unit, batch, result, 0, batch.length);
+				} else {
+					kernel.firstDays(unit, batch, result, 0, batch.length);
+				}
+				checksum += result[batch.length - 1];
+			}
+			long elapsed = System.nanoTime() - start;
+			if (checksum == 42) {
+				System.out.println();
+			}
+			return days / (elapsed / 1e9);
+		}
+
+	}
+
+}
@@ -0,0 +1,182 @@
+package benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.bigdata.hive.udf.metrics.LatencyHistogram;
+import com.bigdata.hive.udf.server.DayExtremesServer;
+
+/*
+ * Load-tests the batch service with concurrent keep-alive connections, each POSTing the same batch of
+ * random dates between 1990 and 2030 back to back, and reports requests/s, dates/s and request
+ * latency percentiles. Without a URL it starts a server in this JVM on a free port.
+ *
+ * Usage: ServiceLoadBenchmark [clients] [requests per client] [batch size] [json|binary] [base url]
+ */
+public class ServiceLoadBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int clients = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+		int requests = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+		int batchSize = args.length > 2 ? Integer.parseInt(args[2]) : 1024;
+		boolean binary = args.length > 3 && "binary".equalsIgnoreCase(args[3]);
+		String baseUrl = args.length > 4 ? args[4] : null;
+
+		DayExtremesServer server = null;
+		if (baseUrl == null) {
+			server = new DayExtremesServer(new InetSocketAddress("127.0.0.1", 0),
+					Runtime.getRuntime().availableProcessors(), 256, 64 * 1024 * 1024, TimeZone.getDefault(), 1024);
+			server.start();
+			baseUrl = "http://127.0.0.1:" + server.port();
+		}
+
+		try {
+			URL url = new URL(baseUrl + "/first?unit=MONTH");
+			byte[] body = batch(batchSize, binary);
+			String contentType = binary ? "application/octet-stream" : "application/json";
+
+			System.out.println(clients + " clients x " + requests + " requests of " + batchSize + " "
+					+ (binary ? "binary" : "json") + " dates to " + url);
+			run(url, contentType, body, clients, Math.max(1, requests / 5), new LatencyHistogram());
+			LatencyHistogram latencies = new LatencyHistogram();
+			long start = System.nanoTime();
+			run(url, contentType, body, clients, requests, latencies);
+			double seconds = (System.nanoTime() - start) / 1e9;
+
+			long total = (long) clients * requests;
+			System.out.println(String.format(Locale.ROOT, "  %,.0f requests/s, %,.0f dates/s", total / seconds,
+					total * batchSize / seconds));
+			System.out.println(String.format(Locale.ROOT,
+					"  latency ms: p50 %.3f  p90 %.3f  p99 %.3f  p999 %.3f  max %.3f",
+					latencies.percentile(0.5) / 1e6, latencies.percentile(0.9) / 1e6, latencies.percentile(0.99) / 1e6,
+					latencies.percentile(0.999) / 1e6, latencies.max() / 1e6));
+		} finally {
+			if (server != null) {
+				server.stop();
+			}
+		}
+	}
+
+	private static void run(final URL url, final String contentType, final byte[] body, int clients,
+			final int requests, final LatencyHistogram latencies) throws Exception {
+		final byte[] request = request(url, contentType, body);
+		ExecutorService executor = Executors.newFixedThreadPool(clients);
+		try {
+			List<Future<Void>> futures = new ArrayList<Future<Void>>();
+			for (int c = 0; c < clients; c++) {
+				futures.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws IOException {
+						try (Socket socket = new Socket(url.getHost(), url.getPort())) {
+							socket.setTcpNoDelay(true);
+							OutputStream out = socket.getOutputStream();
+							DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+							byte[] buffer = new byte[64 * 1024];
+							for (int i = 0; i < requests; i++) {
+								long start = System.nanoTime();
+								out.write(request);
+								out.flush();
+								readResponse(in, buffer);
+								latencies.record(System.nanoTime() - start);
+							}
+						}
+						return null;
+					}
+				}));
+			}
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/*
+	 * A keep-alive POST with headers and body in one write, on a raw socket so that the client
+	 * library adds no buffering or latency of its own to what is measured.
+	 */
+	private static byte[] request(URL url, String contentType, byte[] body) throws IOException {
+		ByteArrayOutputStream request = new ByteArrayOutputStream();
+		request.write(("POST " + url.getFile() + " HTTP/1.1\r\nHost: " + url.getHost() + ":" + url.getPort()
+				+ "\r\nContent-Type: " + contentType + "\r\nContent-Length: " + body.length + "\r\n\r\n")
+						.getBytes(StandardCharsets.US_ASCII));
+		request.write(body);
+		return request.toByteArray();
+	}
+
+	private static void readResponse(DataInputStream in, byte[] buffer) throws IOException {
+		String status = line(in);
+		long length = -1;
+		for (String header = line(in); !header.isEmpty(); header = line(in)) {
+			if (header.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+				length = Long.parseLong(header.substring(15).trim());
+			}
+		}
+		if (!status.startsWith("HTTP/1.1 200") || length < 0) {
+			throw new IOException("Unexpected response " + status);
+		}
+		while (length > 0) {
+			int read = in.read(buffer, 0, (int) Math.min(buffer.length, length));
+			if (read < 0) {
+				throw new IOException("Connection closed before the end of the response");
+			}
+			length -= read;
+		}
+	}
+
+	private static String line(DataInputStream in) throws IOException {
+		StringBuilder line = new StringBuilder();
+		for (int b = in.read(); b != '\n'; b = in.read()) {
+			if (b < 0) {
+				throw new IOException("Connection closed");
+			}
+			if (b != '\r') {
+				line.append((char) b);
+			}
+		}
+		return line.toString();
+	}
+
+	private static byte[] batch(int size, boolean binary) throws IOException {
+		Random random = new Random(42);
+		long from = 631152000000L;
+		long span = 1262304000000L;
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		if (!binary) {
+			out.write('[');
+		}
+		for (int i = 0; i < size; i++) {
+			long millis = from + (long) (random.nextDouble() * span);
+			if (binary) {
+				out.writeLong(millis);
+			} else {
+				String date = String.format(Locale.ROOT, "%tF", millis);
+				out.write(((i > 0 ? "," : "") + "\"" + date + "\"").getBytes(StandardCharsets.UTF_8));
+			}
+		}
+		if (!binary) {
+			out.write(']');
+		}
+		return bytes.toByteArray();
+	}
+
+}
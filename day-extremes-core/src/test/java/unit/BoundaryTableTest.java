@@ -0,0 +1,164 @@
+package unit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+
+import org.joda.time.Days;
+import org.joda.time.LocalDate;
+import org.joda.time.Months;
+import org.joda.time.Weeks;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.bigdata.hive.udf.engine.BoundaryTable;
+import com.bigdata.hive.udf.engine.EpochDays;
+import com.bigdata.hive.udf.engine.TimeUnit;
+
+public class BoundaryTableTest {
+
+	private static final LocalDate EPOCH = new LocalDate(1970, 1, 1);
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void shouldMatchJodaForEveryDayOfTheCoveredRange() throws Exception {
+		BoundaryTable table = BoundaryTable.compute(1996, 2004);
+
+		for (LocalDate day = new LocalDate(1995, 12, 1); day.getYear() < 2006; day = day.plusDays(1)) {
+			int epochDay = epochDay(day);
+			assertThat(EpochDays.of(day.getYear(), day.getMonthOfYear(), day.getDayOfMonth()), is(epochDay));
+
+			assertThat(table.firstDay(TimeUnit.DAY, epochDay), is(epochDay));
+			assertThat(table.firstDay(TimeUnit.WEEK, epochDay), is(epochDay(day.withDayOfWeek(1))));
+			assertThat(table.lastDay(TimeUnit.WEEK, epochDay), is(epochDay(day.withDayOfWeek(7))));
+			assertThat(table.firstDay(TimeUnit.MONTH, epochDay), is(epochDay(day.withDayOfMonth(1))));
+			assertThat(table.lastDay(TimeUnit.MONTH, epochDay),
+					is(epochDay(day.dayOfMonth().withMaximumValue())));
+			int firstMonthOfQuarter = (day.getMonthOfYear() - 1) / 3 * 3 + 1;
+			LocalDate firstOfQuarter = new LocalDate(day.getYear(), firstMonthOfQuarter, 1);
+			assertThat(table.firstDay(TimeUnit.QUARTER, epochDay), is(epochDay(firstOfQuarter)));
+			assertThat(table.lastDay(TimeUnit.QUARTER, epochDay),
+					is(epochDay(firstOfQuarter.plusMonths(3).minusDays(1))));
+			assertThat(table.firstDay(TimeUnit.YEAR, epochDay), is(epochDay(day.withDayOfYear(1))));
+			assertThat(table.lastDay(TimeUnit.YEAR, epochDay), is(epochDay(day.dayOfYear().withMaximumValue())));
+		}
+	}
+
+	@Test
+	public void shouldReadBackTheSameTableFromAMappedFile() throws Exception {
+		File file = temporaryFolder.newFile("boundaries.bin");
+		BoundaryTable computed = BoundaryTable.compute(1999, 2001);
+		computed.writeTo(file);
+
+		BoundaryTable mapped = BoundaryTable.map(file);
+
+		assertThat(mapped.isMapped(), is(true));
+		for (int epochDay = EpochDays.of(1998, 6, 1); epochDay < EpochDays.of(2002, 6, 1); epochDay++) {
+			for (TimeUnit unit : TimeUnit.values()) {
+				assertThat(mapped.firstDay(unit, epochDay), is(computed.firstDay(unit, epochDay)));
+				assertThat(mapped.lastDay(unit, epochDay), is(computed.lastDay(unit, epochDay)));
+			}
+		}
+	}
+
+	@Test
+	public void shouldKeepHeapTableWhenFileIsAbsent() throws Exception {
+		assertThat(BoundaryTable.load(new File(temporaryFolder.getRoot(), "missing.bin")), is(false));
+		assertThat(BoundaryTable.get().firstDay(TimeUnit.MONTH, EpochDays.of(2016, 4, 2)),
+				is(EpochDays.of(2016, 4, 1)));
+	}
+
+	@Test
+	public void shouldFillTheSharedTableOnDemand() throws Exception {
+		BoundaryTable shared = BoundaryTable.get();
+		BoundaryTable computed = BoundaryTable.compute(BoundaryTable.DEFAULT_FIRST_YEAR, BoundaryTable.DEFAULT_LAST_YEAR);
+
+		// walk backwards in uneven steps so that segments are filled out of order
+		for (int epochDay = EpochDays.of(2099, 12, 31); epochDay >= EpochDays.of(1900, 1, 1); epochDay -= 97) {
+			for (TimeUnit unit : TimeUnit.values()) {
+				assertThat(shared.firstDay(unit, epochDay), is(computed.firstDay(unit, epochDay)));
+				assertThat(shared.lastDay(unit, epochDay), is(computed.lastDay(unit, epochDay)));
+			}
+		}
+	}
+
+	@Test
+	public void shouldCoverTheConfiguredYearsInTheHeapTable() throws Exception {
+		try {
+			BoundaryTable.setHeapYears(2000, 2009);
+
+			assertThat(BoundaryTable.get().covers(EpochDays.of(2000, 1, 1)), is(true));
+			assertThat(BoundaryTable.get().covers(EpochDays.of(2009, 12, 31)), is(true));
+			assertThat(BoundaryTable.get().covers(EpochDays.of(2010, 1, 1)), is(false));
+			assertThat(BoundaryTable.get().lastDay(TimeUnit.QUARTER, EpochDays.of(2011, 2, 14)),
+					is(EpochDays.of(2011, 3, 31)));
+		} finally {
+			BoundaryTable.setHeapYears(BoundaryTable.DEFAULT_FIRST_YEAR, BoundaryTable.DEFAULT_LAST_YEAR);
+		}
+	}
+
+	@Test
+	public void shouldShiftDaysByWholePeriodsAsJoda() throws Exception {
+		for (LocalDate day = new LocalDate(1899, 11, 1); day.getYear() < 1901; day = day.plusDays(3)) {
+			int epochDay = epochDay(day);
+			for (int periods = -30; periods <= 30; periods += 7) {
+				assertThat(EpochDays.shift(TimeUnit.DAY, epochDay, periods), is(epochDay(day.plusDays(periods))));
+				assertThat(EpochDays.shift(TimeUnit.WEEK, epochDay, periods), is(epochDay(day.plusWeeks(periods))));
+				assertThat(EpochDays.shift(TimeUnit.MONTH, epochDay, periods),
+						is(epochDay(day.withDayOfMonth(1).plusMonths(periods))));
+				assertThat(EpochDays.shift(TimeUnit.QUARTER, epochDay, periods),
+						is(epochDay(day.withDayOfMonth(1).plusMonths(3 * periods))));
+				assertThat(EpochDays.shift(TimeUnit.YEAR, epochDay, periods),
+						is(epochDay(day.withDayOfMonth(1).plusYears(periods))));
+			}
+		}
+	}
+
+	@Test
+	public void shouldIndexPeriodsFromTheEpochAsJoda() throws Exception {
+		for (LocalDate day = new LocalDate(1899, 11, 1); day.getYear() < 1901; day = day.plusDays(1)) {
+			int epochDay = epochDay(day);
+			int months = Months.monthsBetween(EPOCH, day.withDayOfMonth(1)).getMonths();
+			assertThat(EpochDays.periodIndex(TimeUnit.DAY, epochDay), is(epochDay));
+			assertThat(EpochDays.periodIndex(TimeUnit.WEEK, epochDay),
+					is(Weeks.weeksBetween(new LocalDate(1969, 12, 29), day.withDayOfWeek(1)).getWeeks()));
+			assertThat(EpochDays.periodIndex(TimeUnit.MONTH, epochDay), is(months));
+			assertThat(EpochDays.periodIndex(TimeUnit.QUARTER, epochDay), is((months - 2) / 3));
+			assertThat(EpochDays.periodIndex(TimeUnit.YEAR, epochDay), is(day.getYear() - 1970));
+		}
+	}
+
+	@Test
+	public void shouldFindTheNthDayOfWeekOfAMonthAsJoda() throws Exception {
+		for (LocalDate month = new LocalDate(1899, 11, 1); month.getYear() < 1901; month = month.plusMonths(1)) {
+			LocalDate end = month.dayOfMonth().withMaximumValue();
+			for (int dayOfWeek = 1; dayOfWeek <= 7; dayOfWeek++) {
+				LocalDate first = month;
+				while (first.getDayOfWeek() != dayOfWeek) {
+					first = first.plusDays(1);
+				}
+				LocalDate last = end;
+				while (last.getDayOfWeek() != dayOfWeek) {
+					last = last.minusDays(1);
+				}
+				LocalDate fifth = first.plusWeeks(4);
+				assertThat(EpochDays.nthDayOfWeek(epochDay(month), epochDay(end), dayOfWeek, 1), is(epochDay(first)));
+				assertThat(EpochDays.nthDayOfWeek(epochDay(month), epochDay(end), dayOfWeek, 2),
+						is(epochDay(first.plusWeeks(1))));
+				assertThat(EpochDays.nthDayOfWeek(epochDay(month), epochDay(end), dayOfWeek, -1), is(epochDay(last)));
+				assertThat(EpochDays.nthDayOfWeek(epochDay(month), epochDay(end), dayOfWeek, 5),
+						is(fifth.isAfter(end) ? EpochDays.NO_DAY : epochDay(fifth)));
+				assertThat(EpochDays.nthDayOfWeek(epochDay(month), epochDay(end), dayOfWeek, 0), is(EpochDays.NO_DAY));
+			}
+		}
+	}
+
+	private static int epochDay(LocalDate day) {
+		return Days.daysBetween(EPOCH, day).getDays();
+	}
+
+}
@@ -0,0 +1,117 @@
+package unit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.bigdata.hive.udf.cli.DayExtremesCli;
+
+public class DayExtremesCliTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void shouldRewriteTheChosenColumnAcrossChunks() throws Exception {
+		StringBuilder input = new StringBuilder("id\tday\tname\n");
+		StringBuilder expected = new StringBuilder("id\tday\tname\n");
+		for (int i = 0; i < 50000; i++) {
+			input.append(i).append("\t22-0").append(i % 9 + 1).append("-2011\trow").append(i).append('\n');
+			expected.append(i).append("\t2011-0").append((i % 9) / 3 * 3 + 1).append("-01\trow").append(i)
+					.append('\n');
+		}
+		input.append("short\n").append("bad\tnot-a-date\tx");
+		expected.append("short\n").append("bad\t\tx");
+
+		File in = temporaryFolder.newFile("in.tsv");
+		File out = new File(temporaryFolder.getRoot(), "out.tsv");
+		Files.write(in.toPath(), input.toString().getBytes(StandardCharsets.UTF_8));
+
+		DayExtremesCli.main(new String[] { "--first", "--unit", "quarter", "--column", "2", "--delimiter", "tab",
+				"--input-format", "dd-MM-yyyy", "--error-mode", "null", "--header", "--threads", "3", "--chunk-mb", "1", in.getPath(),
+				out.getPath() });
+
+		assertThat(new String(Files.readAllBytes(out.toPath()), StandardCharsets.UTF_8), is(expected.toString()));
+	}
+
+	@Test
+	public void shouldReuseOutputBuffersAcrossChunks() throws Exception {
+		// one thread keeps two chunks in flight, so later chunks go into the buffers of earlier ones
+		StringBuilder input = new StringBuilder();
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 200000; i++) {
+			input.append("row").append(i).append(",2011-0").append(i % 9 + 1).append("-1").append(i % 10).append('\n');
+			expected.append("row").append(i).append(",2011-0").append(i % 9 + 1).append("-01\n");
+		}
+
+		assertThat(rewrite(input.toString(), "--first", "--unit", "month", "--column", "2", "--threads", "1",
+				"--chunk-mb", "1"), is(expected.toString()));
+	}
+
+	@Test
+	public void shouldSplitQuotedFieldsAsRfc4180() throws Exception {
+		String input = "\"Smith, \"\"J\"\"\",2011-02-22,x\r\n" + "\"a,b\",\"2011-05-10\",\"c,d\"\n"
+				+ "plain,2011-12-31\n";
+		String expected = "\"Smith, \"\"J\"\"\",\"Feb 1, 2011\",x\r\n" + "\"a,b\",\"May 1, 2011\",\"c,d\"\n"
+				+ "plain,\"Dec 1, 2011\"\n";
+
+		assertThat(rewrite(input, "--first", "--unit", "month", "--column", "2", "--output-format", "MMM d, yyyy"),
+				is(expected));
+	}
+
+	@Test
+	public void shouldParseIsoDatesAsTheFormatterDoes() throws Exception {
+		// the byte parser only takes well-formed dates, the rest are read leniently as before
+		String input = "2011-02-22\n2011-2-22\n2011-02-30\n0999-06-15\n";
+		String expected = "2011-02-28\n2011-02-28\n2011-03-31\n0999-06-30\n";
+
+		assertThat(rewrite(input, "--last", "--unit", "month", "--column", "1"), is(expected));
+	}
+
+	@Test
+	public void shouldFollowTheErrorModeForUnparsableDates() throws Exception {
+		String input = "a,not-a-date\nb,2011-02-22\n";
+
+		assertThat(rewrite(input, "--first", "--unit", "month", "--column", "2", "--error-mode", "null"),
+				is("a,\nb,2011-02-01\n"));
+
+		String thisMonth = new SimpleDateFormat("yyyy-MM-01").format(new Date());
+		assertThat(rewrite(input, "--first", "--unit", "month", "--column", "2"),
+				is("a," + thisMonth + "\nb,2011-02-01\n"));
+
+		try {
+			rewrite(input, "--first", "--unit", "month", "--column", "2", "--error-mode", "FAIL");
+			fail("an unparsable date should fail the rewrite");
+		} catch (IOException exception) {
+			assertThat(exception.getMessage(),
+					is("Failed to rewrite chunk: Unparsable date not-a-date for input format yyyy-MM-dd"));
+		}
+		// the three inputs and the two complete outputs, nothing of the failed one
+		assertThat(temporaryFolder.getRoot().list().length, is(5));
+	}
+
+	private String rewrite(String input, String... options) throws Exception {
+		File in = temporaryFolder.newFile();
+		File out = new File(temporaryFolder.getRoot(), in.getName() + ".out");
+		Files.write(in.toPath(), input.getBytes(StandardCharsets.UTF_8));
+
+		String[] args = Arrays.copyOf(options, options.length + 2);
+		args[options.length] = in.getPath();
+		args[options.length + 1] = out.getPath();
+		DayExtremesCli.main(args);
+		return new String(Files.readAllBytes(out.toPath()), StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,150 @@
+package unit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.TimeZone;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.bigdata.hive.udf.engine.EpochDays;
+import com.bigdata.hive.udf.engine.PeriodKernel;
+import com.bigdata.hive.udf.engine.TimeUnit;
+import com.bigdata.hive.udf.server.DayExtremesServer;
+
+public class DayExtremesServerTest {
+
+	private DayExtremesServer server;
+
+	@Before
+	public void startServer() throws Exception {
+		server = new DayExtremesServer(new InetSocketAddress("127.0.0.1", 0), 2, 4, 1024 * 1024,
+				TimeZone.getTimeZone("UTC"), 16);
+		server.start();
+	}
+
+	@After
+	public void stopServer() {
+		server.stop();
+	}
+
+	@Test
+	public void shouldAnswerAJsonBatchInOrder() throws Exception {
+		HttpURLConnection connection = post("/last?unit=QUARTER&input_format=dd-MM-yyyy&output_format=yyyy%2FMM%2Fdd",
+				"application/json", "[\"22-02-2011\", null, \"not a date\" ,\"01-12-2016\"]");
+
+		assertThat(connection.getResponseCode(), is(200));
+		assertThat(text(connection.getInputStream()), is("[\"2011/03/31\",null,null,\"2016/12/31\"]"));
+	}
+
+	@Test
+	public void shouldAnswerABinaryBatchOfEpochMillis() throws Exception {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(body);
+		// 2016-02-10 13:14:15 and 1969-12-31 23:00:00 UTC
+		out.writeLong(1455110055000L);
+		out.writeLong(Long.MIN_VALUE);
+		out.writeLong(-3600000L);
+
+		HttpURLConnection connection = post("/first?unit=WEEK&include_interval=true", "application/octet-stream",
+				body.toByteArray());
+
+		assertThat(connection.getResponseCode(), is(200));
+		DataInputStream in = new DataInputStream(connection.getInputStream());
+		assertThat(readValue(in), is("2016-02-08 13:14:15"));
+		assertThat(readValue(in), is((String) null));
+		assertThat(readValue(in), is("1969-12-29 23:00:00"));
+		assertThat(in.read(), is(-1));
+	}
+
+	@Test
+	public void shouldAnswerBatchesLargerThanAKernelChunkWithEitherKernel() throws Exception {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(body);
+		int from = EpochDays.of(2015, 11, 20);
+		int count = 3000;
+		for (int i = 0; i < count; i++) {
+			// noon, and every seventh one null
+			out.writeLong(i % 7 == 3 ? Long.MIN_VALUE : (from + i) * 86400000L + 43200000L);
+		}
+
+		try {
+			for (boolean simd : new boolean[] { false, true }) {
+				PeriodKernel.setSimdEnabled(simd);
+				HttpURLConnection connection = post("/last?unit=MONTH", "application/octet-stream", body.toByteArray());
+
+				assertThat(connection.getResponseCode(), is(200));
+				DataInputStream in = new DataInputStream(connection.getInputStream());
+				for (int i = 0; i < count; i++) {
+					int ymd = EpochDays.yearMonthDay(EpochDays.lastDay(TimeUnit.MONTH, from + i));
+					String expected = i % 7 == 3 ? null
+							: String.format("%04d-%02d-%02d", EpochDays.year(ymd), EpochDays.month(ymd),
+									EpochDays.dayOfMonth(ymd));
+					assertThat(PeriodKernel.get() + " at " + i, readValue(in), is(expected));
+				}
+				assertThat(in.read(), is(-1));
+			}
+		} finally {
+			PeriodKernel.setSimdEnabled(!"false".equalsIgnoreCase(System.getProperty(PeriodKernel.SIMD_PROPERTY)));
+		}
+	}
+
+	@Test
+	public void shouldRejectInvalidRequests() throws Exception {
+		assertThat(post("/first?unit=DECADE", "application/json", "[]").getResponseCode(), is(400));
+		assertThat(post("/first?unit=DAY", "application/json", "[\"2011-01-01\",]").getResponseCode(), is(400));
+		assertThat(post("/first?unit=DAY", "application/octet-stream", new byte[7]).getResponseCode(), is(400));
+		assertThat(post("/middle?unit=DAY", "application/json", "[]").getResponseCode(), is(404));
+		assertThat(post("/first?unit=DAY", "application/json", new byte[2 * 1024 * 1024]).getResponseCode(), is(413));
+	}
+
+	private HttpURLConnection post(String path, String contentType, String body) throws Exception {
+		return post(path, contentType, body.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private HttpURLConnection post(String path, String contentType, byte[] body) throws Exception {
+		HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + server.port() + path)
+				.openConnection();
+		connection.setRequestMethod("POST");
+		connection.setRequestProperty("Content-Type", contentType);
+		connection.setDoOutput(true);
+		connection.setFixedLengthStreamingMode(body.length);
+		try (OutputStream out = connection.getOutputStream()) {
+			out.write(body);
+		} catch (java.io.IOException exception) {
+			// the server may answer 413 and close before the whole body is sent
+		}
+		return connection;
+	}
+
+	private static String readValue(DataInputStream in) throws Exception {
+		int length = in.readUnsignedShort();
+		if (length == 0xFFFF) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static String text(InputStream in) throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+			bytes.write(buffer, 0, read);
+		}
+		return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+}
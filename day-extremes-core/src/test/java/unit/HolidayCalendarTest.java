@@ -0,0 +1,102 @@
+package unit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import com.bigdata.hive.udf.engine.EpochDays;
+import com.bigdata.hive.udf.engine.HolidayCalendar;
+
+public class HolidayCalendarTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Rule
+	public ExpectedException expectedException = ExpectedException.none();
+
+	@Test
+	public void shouldFindTheNearestBusinessDayAsADayByDayWalk() throws Exception {
+		File file = calendars("# settlement calendars", "NYSE,2011-01-17", "nyse, 2011-12-26", "", "LSE,2011-12-27",
+				"LSE,2011-12-26", "LSE,2012-01-02");
+		HolidayCalendar nyse = HolidayCalendar.read(file).get("NYSE");
+
+		// from a year before the covered range to a year after it
+		for (int day = EpochDays.of(2010, 1, 1); day <= EpochDays.of(2013, 1, 31); day++) {
+			int next = day;
+			while (!businessDay(next)) {
+				next++;
+			}
+			int previous = day;
+			while (!businessDay(previous)) {
+				previous--;
+			}
+			assertThat(nyse.isBusinessDay(day), is(businessDay(day)));
+			assertThat(nyse.nextBusinessDay(day), is(next));
+			assertThat(nyse.previousBusinessDay(day), is(previous));
+		}
+	}
+
+	@Test
+	public void shouldLoadNamedCalendarsOncePerFile() throws Exception {
+		File file = calendars("NYSE,2011-12-26", "LSE,2011-12-26", "LSE,2011-12-27");
+
+		assertThat(HolidayCalendar.load(new File(temporaryFolder.getRoot(), "missing.csv")), is(nullValue()));
+		Map<String, HolidayCalendar> calendars = HolidayCalendar.load(file);
+		assertThat(HolidayCalendar.load(file), is(sameInstance(calendars)));
+		assertThat(HolidayCalendar.get(calendars, " lse ").name(), is("LSE"));
+		assertThat(HolidayCalendar.get(calendars, "LSE").nextBusinessDay(EpochDays.of(2011, 12, 24)),
+				is(EpochDays.of(2011, 12, 28)));
+		assertThat(HolidayCalendar.get(calendars, "NYSE").nextBusinessDay(EpochDays.of(2011, 12, 24)),
+				is(EpochDays.of(2011, 12, 27)));
+		assertThat(HolidayCalendar.get(calendars, "TSE"), is(nullValue()));
+
+		// another file keeps its own calendars, and those loaded first stay as they are
+		Map<String, HolidayCalendar> others = HolidayCalendar.load(calendars("TSE,2011-12-26"));
+		assertThat(HolidayCalendar.get(others, "TSE").name(), is("TSE"));
+		assertThat(HolidayCalendar.get(others, "LSE"), is(nullValue()));
+		assertThat(HolidayCalendar.load(file), is(sameInstance(calendars)));
+	}
+
+	@Test
+	public void shouldRejectALineWithoutCalendarAndDate() throws Exception {
+		expectedException.expect(IOException.class);
+		expectedException.expectMessage("Expected calendar,yyyy-MM-dd at line 2");
+
+		HolidayCalendar.read(calendars("NYSE,2011-12-26", "2011-12-27"));
+	}
+
+	// NYSE above: weekends, Martin Luther King day and the Christmas holiday of 2011
+	private static boolean businessDay(int epochDay) {
+		return EpochDays.dayOfWeek(epochDay) <= 5 && epochDay != EpochDays.of(2011, 1, 17)
+				&& epochDay != EpochDays.of(2011, 12, 26);
+	}
+
+	private File calendars(String... lines) throws IOException {
+		File file = temporaryFolder.newFile();
+		StringBuilder content = new StringBuilder();
+		for (String line : lines) {
+			content.append(line).append('\n');
+		}
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(content.toString().getBytes(StandardCharsets.UTF_8));
+		} finally {
+			out.close();
+		}
+		return file;
+	}
+
+}
@@ -0,0 +1,100 @@
+package unit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.TimeZone;
+
+import org.joda.time.DateTimeZone;
+import org.joda.time.LocalDateTime;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.bigdata.hive.udf.engine.EpochDays;
+import com.bigdata.hive.udf.engine.PeriodCalculator;
+
+/*
+ * Runs against whichever build of PeriodCalculator the classpath resolves: the legacy one from
+ * the classes directory, the java.time one from the multi-release jar on Java 9 and later.
+ */
+public class PeriodCalculatorTest {
+
+	private static final String[] ZONES = { "UTC", "Asia/Kolkata", "America/New_York" };
+
+	@Rule
+	public ExpectedException expectedException = ExpectedException.none();
+
+	@Test
+	public void shouldMatchJodaForOffsetWeekYearAndTextLetters() {
+		String[] patterns = { "Z", "ww", "YYYY", "EEE", "a", "ZZ", "ZZZ", "z", "zzzz", "xxxx-'W'ww-e",
+				"EEEE, MMMM d, yyyy h:mm a Z" };
+		LocalDateTime[] dates = { new LocalDateTime(2016, 1, 1, 5, 6, 7, 89), new LocalDateTime(2016, 7, 3, 23, 0),
+				new LocalDateTime(2012, 12, 31, 12, 0), new LocalDateTime(2010, 1, 3, 0, 0) };
+
+		for (String zone : ZONES) {
+			for (LocalDateTime date : dates) {
+				for (String pattern : patterns) {
+					assertMatchesJoda(date, pattern, zone);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void shouldMatchJodaForEveryLetterAndCount() {
+		String[] letters = { "G", "C", "Y", "x", "w", "e", "E", "y", "D", "M", "d", "a", "K", "h", "H", "k", "m", "s",
+				"S", "z", "Z" };
+		LocalDateTime[] dates = { new LocalDateTime(2016, 2, 29, 0, 0), new LocalDateTime(1999, 12, 31, 12, 30, 59, 999),
+				new LocalDateTime(2020, 12, 31, 23, 59, 59, 1), new LocalDateTime(1583, 1, 1, 11, 0, 0, 50),
+				new LocalDateTime(5, 3, 1, 0, 0), new LocalDateTime(-44, 3, 15, 13, 0) };
+
+		for (String zone : ZONES) {
+			for (LocalDateTime date : dates) {
+				// the zone's local mean time before 1900 has seconds in its offset
+				if (date.getYear() < 1900 && !zone.equals("UTC")) {
+					continue;
+				}
+				for (String letter : letters) {
+					for (String pattern = letter; pattern.length() <= 5; pattern += letter) {
+						assertMatchesJoda(date, pattern, zone);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void shouldMatchJodaForQuotesAndLiterals() {
+		LocalDateTime date = new LocalDateTime(2011, 8, 17, 23, 59, 59);
+		for (String pattern : new String[] { "''", "'quote''s' yyyy", "yyyy'", "dd/MM/yyyy 'at' HH:mm", "'x'w'y'",
+				"yyyy.MM.dd G 'at' HH:mm:ss z", "hh 'o''clock' a, zzzz", "EEE, d MMM yyyy HH:mm:ss Z", "yyMMddHHmmssZ",
+				"yyyy-MM-dd'T'HH:mm:ss.SSSZZ", "K:mm a, ZZZ", "'\u00e9t\u00e9' yyyy" }) {
+			assertMatchesJoda(date, pattern, "Asia/Kolkata");
+		}
+	}
+
+	@Test
+	public void shouldTakeTheEarlierOffsetOfAnOverlap() {
+		// clocks go back at 02:00 in New York and at 03:00 in Berlin, the hour before repeats
+		assertMatchesJoda(new LocalDateTime(2016, 11, 6, 1, 30), "yyyy-MM-dd HH:mm ZZ z", "America/New_York");
+		assertMatchesJoda(new LocalDateTime(2016, 10, 30, 2, 30), "yyyy-MM-dd HH:mm ZZ z", "Europe/Berlin");
+		assertMatchesJoda(new LocalDateTime(2016, 3, 27, 3, 30), "yyyy-MM-dd HH:mm ZZ z", "Europe/Berlin");
+	}
+
+	@Test
+	public void shouldRejectLettersJodaDoesNotKnow() {
+		expectedException.expect(IllegalArgumentException.class);
+		expectedException.expectMessage("Illegal pattern component: X");
+
+		PeriodCalculator.format(EpochDays.of(2016, 1, 1), 0, "yyyy-MM-dd'T'HH:mmX", TimeZone.getTimeZone("UTC"));
+	}
+
+	static void assertMatchesJoda(LocalDateTime date, String pattern, String zone) {
+		String expected = date.toDateTime(DateTimeZone.forID(zone)).toString(pattern);
+		int epochDay = EpochDays.of(date.getYear(), date.getMonthOfYear(), date.getDayOfMonth());
+		String actual = PeriodCalculator.format(epochDay, date.getMillisOfDay(), pattern, TimeZone.getTimeZone(zone));
+		assertThat(pattern + " at " + date + " in " + zone, actual, is(expected));
+	}
+
+}
@@ -0,0 +1,75 @@
+package unit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.bigdata.hive.udf.engine.EpochDays;
+import com.bigdata.hive.udf.engine.PeriodKernel;
+import com.bigdata.hive.udf.engine.TimeUnit;
+
+public class PeriodKernelTest {
+
+	@Test
+	public void shouldMatchEpochDaysInTheScalarKernel() {
+		assertKernelMatchesEpochDays(PeriodKernel.scalar(), EpochDays.of(1895, 1, 1), EpochDays.of(2105, 1, 1));
+	}
+
+	@Test
+	public void shouldMatchEpochDaysInTheVectorKernelFromYearZeroToYear9999() {
+		PeriodKernel vector = PeriodKernel.vector();
+		assumeTrue(vector != null);
+
+		assertKernelMatchesEpochDays(vector, EpochDays.of(-1, 12, 1), EpochDays.of(10000, 2, 1));
+	}
+
+	@Test
+	public void shouldHandleOffsetsTailsAndDaysOutsideTheVectorRange() {
+		for (PeriodKernel kernel : Arrays.asList(PeriodKernel.scalar(), PeriodKernel.get())) {
+			int[] days = new int[37];
+			for (int i = 0; i < days.length; i++) {
+				days[i] = EpochDays.of(2016, 2, 20) + i * 3;
+			}
+			days[9] = EpochDays.of(-400, 2, 29);
+			days[20] = EpochDays.of(12000, 7, 14);
+			int[] result = new int[days.length];
+			Arrays.fill(result, -1);
+
+			kernel.lastDays(TimeUnit.QUARTER, days, result, 3, 33);
+
+			for (int i = 0; i < days.length; i++) {
+				int expected = i < 3 || i >= 36 ? -1 : EpochDays.lastDay(TimeUnit.QUARTER, days[i]);
+				assertThat(kernel + " at " + i, result[i], is(expected));
+			}
+		}
+	}
+
+	private static void assertKernelMatchesEpochDays(PeriodKernel kernel, int from, int to) {
+		int[] days = new int[to - from];
+		for (int i = 0; i < days.length; i++) {
+			days[i] = from + i;
+		}
+		int[] result = new int[days.length];
+		for (TimeUnit unit : TimeUnit.values()) {
+			kernel.firstDays(unit, days, result, 0, days.length);
+			for (int i = 0; i < days.length; i++) {
+				if (result[i] != EpochDays.firstDay(unit, days[i])) {
+					assertThat(kernel + " first " + unit + " of " + days[i], result[i],
+							is(EpochDays.firstDay(unit, days[i])));
+				}
+			}
+			kernel.lastDays(unit, days, result, 0, days.length);
+			for (int i = 0; i < days.length; i++) {
+				if (result[i] != EpochDays.lastDay(unit, days[i])) {
+					assertThat(kernel + " last " + unit + " of " + days[i], result[i],
+							is(EpochDays.lastDay(unit, days[i])));
+				}
+			}
+		}
+	}
+
+}
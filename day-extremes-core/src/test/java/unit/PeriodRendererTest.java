@@ -0,0 +1,101 @@
+package unit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+import com.bigdata.hive.udf.engine.EpochDays;
+import com.bigdata.hive.udf.engine.PeriodRenderer;
+import com.bigdata.hive.udf.engine.TimeUnit;
+
+public class PeriodRendererTest {
+
+	@Test
+	public void shouldReuseTheBoundaryOfSortedTimestampsWhenTheFormatHasNoTime() {
+		for (String format : new String[] { null, "dd/MM/yyyy", "EEE, d MMM yyyy", "yyyy-MM-dd 'at' 'h'" }) {
+			PeriodRenderer renderer = new PeriodRenderer();
+			int rendered = 0;
+			// sorted timestamps of March 2016, a few a day
+			for (int day = EpochDays.of(2016, 3, 1); day <= EpochDays.of(2016, 3, 31); day++) {
+				for (int millisOfDay = 1234; millisOfDay < PeriodRenderer.MILLIS_PER_DAY; millisOfDay += 7777777) {
+					boolean render = renderer.renderLastDay(TimeUnit.MONTH, day, millisOfDay, format, false,
+							PeriodRenderer.NO_INTERVAL);
+					assertThat(renderer.lastRenderReused(), is(!render));
+					if (render) {
+						rendered++;
+					}
+				}
+			}
+			assertThat(format, rendered, is(1));
+		}
+	}
+
+	@Test
+	public void shouldRenderAgainWhenTheFormatPrintsTheTime() {
+		for (String format : new String[] { "yyyy-MM-dd HH:mm:ss", "dd/MM/yyyy a", "yyyy-MM-dd Z" }) {
+			PeriodRenderer renderer = new PeriodRenderer();
+			int day = EpochDays.of(2016, 3, 10);
+
+			assertThat(renderer.renderFirstDay(TimeUnit.MONTH, day, 0, format, false, PeriodRenderer.NO_INTERVAL),
+					is(true));
+			assertThat(renderer.renderFirstDay(TimeUnit.MONTH, day, 0, format, false, PeriodRenderer.NO_INTERVAL),
+					is(false));
+			assertThat(format, renderer.renderFirstDay(TimeUnit.MONTH, day + 1, 13 * 3600000, format, false,
+					PeriodRenderer.NO_INTERVAL), is(true));
+		}
+
+		// an interval replaces the time of the row, so any time of the period shares its output
+		PeriodRenderer renderer = new PeriodRenderer();
+		int interval = PeriodRenderer.parseInterval("10:20:30");
+		int day = EpochDays.of(2016, 3, 10);
+		assertThat(renderer.renderFirstDay(TimeUnit.MONTH, day, 0, null, true, interval), is(true));
+		assertThat(renderer.renderFirstDay(TimeUnit.MONTH, day + 1, 5000, null, true, interval), is(false));
+		assertThat(renderer.toString(), is("2016-03-01 10:20:30"));
+	}
+
+	@Test
+	public void shouldRenderAFixedBoundaryAsTheRowArgumentsDo() {
+		String[] formats = { null, "dd/MM/yyyy", "yyyy-MM-dd HH:mm:ss.SSS", "yyyy-MM-dd Z", "EEE, d MMM yyyy" };
+		int[] intervals = { PeriodRenderer.NO_INTERVAL, PeriodRenderer.parseInterval("10:20:30") };
+		for (TimeUnit unit : TimeUnit.values()) {
+			for (boolean last : new boolean[] { false, true }) {
+				for (String format : formats) {
+					for (boolean includeInterval : new boolean[] { false, true }) {
+						for (int interval : intervals) {
+							PeriodRenderer expected = new PeriodRenderer();
+							PeriodRenderer renderer = new PeriodRenderer();
+							PeriodRenderer.Boundary boundary = renderer.boundary(unit, last, format, includeInterval,
+									interval);
+							for (int day = EpochDays.of(2015, 12, 20); day <= EpochDays.of(2016, 4, 10); day += 3) {
+								for (int millisOfDay = 1234; millisOfDay < PeriodRenderer.MILLIS_PER_DAY; millisOfDay += 30000001) {
+									if (last) {
+										expected.renderLastDay(unit, day, millisOfDay, format, includeInterval, interval);
+									} else {
+										expected.renderFirstDay(unit, day, millisOfDay, format, includeInterval, interval);
+									}
+									boundary.render(day, millisOfDay);
+									assertThat(unit + " " + format, renderer.toString(), is(expected.toString()));
+									assertThat(renderer.lastRenderReused(), is(expected.lastRenderReused()));
+									assertThat(renderer.lastPrinted(), is(expected.lastPrinted()));
+								}
+							}
+						}
+					}
+				}
+			}
+		}
+
+		// any other call takes the buffer over, so the boundary renders again
+		PeriodRenderer renderer = new PeriodRenderer();
+		PeriodRenderer.Boundary boundary = renderer.boundary(TimeUnit.MONTH, false, null, false,
+				PeriodRenderer.NO_INTERVAL);
+		int day = EpochDays.of(2016, 3, 10);
+		assertThat(boundary.render(day, 0), is(true));
+		assertThat(boundary.render(day + 1, 0), is(false));
+		renderer.render(day, 0, null, false, PeriodRenderer.NO_INTERVAL);
+		assertThat(boundary.render(day + 2, 0), is(true));
+		assertThat(renderer.toString(), is("2016-03-01"));
+	}
+
+}
@@ -0,0 +1,137 @@
+package com.bigdata.hive.udf.impl;
+
+import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.StringObjectInspector;
+import org.apache.hadoop.io.Text;
+
+import com.bigdata.hive.udf.engine.BoundaryTable;
+import com.bigdata.hive.udf.engine.HolidayCalendar;
+import com.bigdata.hive.udf.engine.PeriodRenderer;
+import com.bigdata.hive.udf.engine.TimeUnit;
+
+/*
+ * The first or last business day of the period containing a date, in a holiday calendar loaded
+ * from dayextremes.holiday.calendars: the period boundary from the boundary table, moved inwards
+ * to the nearest business day by HolidayCalendar's bitset scan, and rendered as 'yyyy-MM-dd'.
+ * Dates are read as in first_day_of.
+ *
+ * A null date, or a period with no business day, is a null result.
+ */
+public abstract class AbstractBusinessDayOfTimeUnitUDF extends AbstractPeriodUDF {
+
+	private static final String FUNCTION_USAGE = "Invalid function usage: Correct Usage => FunctionName(<String> unit, <String/Timestamp/Date/Bigint> date, <String> calendar, <String> input_format[optional])";
+
+	private final boolean last;
+
+	private transient DateArgument date;
+	private transient TimeUnit constantUnit;
+	private transient String constantCalendarName;
+	// looked up on the first row, as initialize() also runs when the query is compiled
+	private transient HolidayCalendar constantCalendar;
+	private transient String constantInputFormat;
+
+	private final PeriodRenderer renderer = new PeriodRenderer();
+	private final Text outputDate = new Text();
+
+	AbstractBusinessDayOfTimeUnitUDF(boolean last) {
+		this.last = last;
+	}
+
+	@Override
+	public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
+		if (arguments.length < 3 || arguments.length > 4) {
+			throw new UDFArgumentLengthException(FUNCTION_USAGE);
+		}
+		if (!(arguments[0] instanceof StringObjectInspector)) {
+			throw new UDFArgumentTypeException(0, "Only String is accepted for unit parameter but "
+					+ arguments[0].getTypeName() + " is passed as first argument");
+		}
+		if (!isDateInspector(arguments[1])) {
+			throw new UDFArgumentTypeException(1,
+					"Only STRING/TIMESTAMP/DATEWRITABLE/BIGINT are accepted for date parameter but "
+							+ arguments[1].getTypeName() + " is passed as second argument");
+		}
+		if (!(arguments[2] instanceof StringObjectInspector)) {
+			throw new UDFArgumentTypeException(2, "Only String is accepted for calendar parameter but "
+					+ arguments[2].getTypeName() + " is passed as third argument");
+		}
+		if (arguments.length > 3 && !(arguments[3] instanceof StringObjectInspector)) {
+			throw new UDFArgumentTypeException(3, "Only String is accepted for input_format parameter but "
+					+ arguments[3].getTypeName() + " is passed as fourth argument");
+		}
+
+		initializeSettings();
+		date = new DateArgument(arguments[1]);
+
+		constantUnit = constantUnit(arguments[0]);
+		constantCalendarName = constantString(arguments[2]);
+		constantCalendar = null;
+		constantInputFormat = arguments.length > 3 ? constantString(arguments[3]) : null;
+
+		return PrimitiveObjectInspectorFactory.writableStringObjectInspector;
+	}
+
+	@Override
+	public Object evaluate(DeferredObject[] arguments) throws HiveException {
+		TimeUnit unit = constantUnit != null ? constantUnit : unitArgument(arguments[0]);
+		HolidayCalendar calendar = constantCalendar;
+		if (calendar == null) {
+			if (constantCalendarName == null) {
+				calendar = calendarArgument(arguments[2]);
+			} else {
+				calendar = calendar(constantCalendarName);
+				constantCalendar = calendar;
+			}
+		}
+
+		Object dateValue = arguments[1].get();
+		if (dateValue == null) {
+			return null;
+		}
+
+		String format = date.defaultFormat;
+		if (arguments.length > 3) {
+			format = constantInputFormat != null ? constantInputFormat : inputFormatArgument(arguments[3]);
+		}
+		long localMillis = date.localMillis(dateValue, unit, format);
+		if (localMillis == UNPARSABLE) {
+			return null;
+		}
+
+		int epochDay = PeriodRenderer.epochDay(localMillis);
+		BoundaryTable table = BoundaryTable.get();
+		int firstDay = table.firstDay(unit, epochDay);
+		int lastDay = table.lastDay(unit, epochDay);
+		int day = last ? calendar.previousBusinessDay(lastDay) : calendar.nextBusinessDay(firstDay);
+		if (day < firstDay || day > lastDay) {
+			return null;
+		}
+
+		renderer.render(day, 0, null, false, PeriodRenderer.NO_INTERVAL);
+		outputDate.set(renderer.bytes(), 0, renderer.length());
+		return outputDate;
+	}
+
+	private HolidayCalendar calendarArgument(DeferredObject argument) throws HiveException {
+		Object calendar = argument.get();
+		if (calendar == null) {
+			throw new UDFArgumentException("calendar cannot be null");
+		}
+		return calendar(PrimitiveObjectInspectorFactory.javaStringObjectInspector.getPrimitiveJavaObject(calendar));
+	}
+
+	private HolidayCalendar calendar(String name) throws UDFArgumentException {
+		HolidayCalendar calendar = HolidayCalendar.get(holidayCalendars, name);
+		if (calendar == null) {
+			throw new UDFArgumentException(
+					"Unknown holiday calendar " + name + ", calendars are loaded from " + HOLIDAY_CALENDARS_PROPERTY);
+		}
+		return calendar;
+	}
+
+}
@@ -0,0 +1,729 @@
+package com.bigdata.hive.udf.impl;
+
+import java.io.IOException;
+
+import org.apache.hadoop.hive.common.type.HiveIntervalDayTime;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.serde2.objectinspector.ConstantObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.BooleanObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.HiveIntervalDayTimeObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorUtils;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.StringObjectInspector;
+import org.apache.hadoop.io.BooleanWritable;
+import org.apache.hadoop.io.Text;
+
+import com.bigdata.hive.udf.engine.EpochDays;
+import com.bigdata.hive.udf.engine.EpochUnit;
+import com.bigdata.hive.udf.engine.PeriodCalculator;
+import com.bigdata.hive.udf.engine.PeriodRenderer;
+import com.bigdata.hive.udf.engine.TimeUnit;
+import com.bigdata.hive.udf.metrics.CallSiteMetrics;
+import com.bigdata.hive.udf.metrics.FlightEvents;
+
+/*
+ * @Author: Manoj Kumar Vohra
+ * @Date: 02-April-2016
+ */
+public abstract class AbstractDayOfTimeUnitUDF extends AbstractPeriodUDF {
+
+	private static final String FUNCTION_USAGE = "Invalid function usage: Correct Usage => FunctionName(<String> unit, <String/Timestamp/Date> date, <String> input_format[optional], <String> output_format[optional], <boolean> include_interval [optional], <String> interval[optional], <Int> offset[optional])";
+	private static final int NO_INTERVAL = PeriodRenderer.NO_INTERVAL;
+
+	private transient DateArgument date;
+	// the interval argument is HH:mm:ss text, an interval_day_time or integer seconds of the day,
+	// and is applied as millis of day
+	private transient PrimitiveObjectInspector intervalInspector;
+	private transient PrimitiveObjectInspector offsetInspector;
+	private transient String lastInterval;
+	private transient int lastParsedInterval;
+
+	// arguments passed as literals are resolved once in initialize()
+	private transient TimeUnit constantUnit;
+	private transient String constantInputFormat;
+	private transient String constantOutputFormat;
+	private transient Boolean constantIncludeInterval;
+	private transient int constantInterval = NO_INTERVAL;
+	private transient Integer constantOffset;
+
+	// chosen in initialize(), instances that were never initialized read every argument per row
+	private transient Evaluator evaluator = new GenericEvaluator();
+
+	private transient CallSiteMetrics metrics;
+	private transient boolean metricsRegistered;
+	private transient long rowsSinceSample;
+	private transient String formatterCodePath;
+	private transient String printerCodePath;
+
+	private final boolean lastDay;
+	private final PeriodRenderer renderer = new PeriodRenderer();
+	private final Text outputDate = new Text();
+
+	protected AbstractDayOfTimeUnitUDF(boolean lastDay) {
+		this.lastDay = lastDay;
+	}
+
+	@Override
+	public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
+
+		switch (arguments.length) {
+
+		case 1:
+			throw new UDFArgumentLengthException(FUNCTION_USAGE);
+		case 2:
+			verifyUnitInspector(arguments);
+			verifyDateInspector(arguments);
+			break;
+
+		case 3:
+			verifyUnitInspector(arguments);
+			verifyDateInspector(arguments);
+			verifyInputFormatInspector(arguments);
+			break;
+
+		case 4:
+			verifyUnitInspector(arguments);
+			verifyDateInspector(arguments);
+			verifyInputFormatInspector(arguments);
+			verifyOutputFormatInspector(arguments);
+			break;
+
+		case 5:
+			verifyUnitInspector(arguments);
+			verifyDateInspector(arguments);
+			verifyInputFormatInspector(arguments);
+			verifyOutputFormatInspector(arguments);
+			verifyIncludeIntervalInspector(arguments);
+			break;
+
+		case 6:
+			verifyUnitInspector(arguments);
+			verifyDateInspector(arguments);
+			verifyInputFormatInspector(arguments);
+			verifyOutputFormatInspector(arguments);
+			verifyIncludeIntervalInspector(arguments);
+			verifyIntervalInspector(arguments);
+			break;
+
+		case 7:
+			verifyUnitInspector(arguments);
+			verifyDateInspector(arguments);
+			verifyInputFormatInspector(arguments);
+			verifyOutputFormatInspector(arguments);
+			verifyIncludeIntervalInspector(arguments);
+			verifyIntervalInspector(arguments);
+			verifyOffsetInspector(arguments);
+			break;
+		default:
+			throw new UDFArgumentLengthException(FUNCTION_USAGE);
+		}
+
+		initializeSettings();
+		renderer.setTimeZone(timeZone);
+		date = new DateArgument(arguments[1]);
+		resolveConstantArguments(arguments);
+		evaluator = chooseEvaluator(arguments.length);
+		createMetrics(arguments);
+
+		return PrimitiveObjectInspectorFactory.writableStringObjectInspector;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (metrics != null) {
+			metrics.release();
+			metrics = null;
+			metricsRegistered = false;
+		}
+	}
+
+	@Override
+	public Object evaluate(DeferredObject[] arguments) throws HiveException {
+		// the first row is always sampled so that the call site is registered as soon as it runs
+		if (metrics == null || (++rowsSinceSample < samplingInterval && metricsRegistered)) {
+			return evaluator.evaluate(arguments);
+		}
+
+		long start = System.nanoTime();
+		Object result = evaluator.evaluate(arguments);
+		long latency = System.nanoTime() - start;
+
+		if (!metricsRegistered) {
+			// shared with every instance of the signature, including those folding constants at compile time
+			metrics.register();
+			metricsRegistered = true;
+		}
+		String codePath = renderer.lastPrinted() ? printerCodePath : formatterCodePath;
+		metrics.sample(latency, rowsSinceSample, renderer.lastRenderReused(), codePath);
+		TimeUnit unit = renderer.lastUnit();
+		FlightEvents.evaluated(functionName, unit == null ? null : unit.name(), date.typeName, codePath,
+				rowsSinceSample, latency);
+		rowsSinceSample = 0;
+		return result;
+	}
+
+	private Object evaluateRow(DeferredObject[] arguments) throws HiveException {
+
+		TimeUnit unit = null;
+		// instances that were never initialized still check their arguments
+		String input_format = date != null ? date.defaultFormat : PeriodCalculator.DEFAULT_DATE_FORMAT;
+		String output_format = null;
+		boolean includeInterval = false;
+		int interval = NO_INTERVAL;
+		int offset = 0;
+
+		switch (arguments.length) {
+
+		case 2:
+			unit = checkAndGetUnit(arguments);
+			break;
+		case 3:
+			unit = checkAndGetUnit(arguments);
+			input_format = checkAndGetInputFormat(arguments);
+			break;
+		case 4:
+			unit = checkAndGetUnit(arguments);
+			input_format = checkAndGetInputFormat(arguments);
+			output_format = checkAndGetOutputFormat(arguments);
+			break;
+		case 5:
+			unit = checkAndGetUnit(arguments);
+			input_format = checkAndGetInputFormat(arguments);
+			output_format = checkAndGetOutputFormat(arguments);
+			includeInterval = checkAndGetIncludeInterval(arguments);
+			break;
+		case 6:
+			unit = checkAndGetUnit(arguments);
+			input_format = checkAndGetInputFormat(arguments);
+			output_format = checkAndGetOutputFormat(arguments);
+			includeInterval = checkAndGetIncludeInterval(arguments);
+			interval = checkAndGetInterval(arguments);
+			break;
+		case 7:
+			unit = checkAndGetUnit(arguments);
+			input_format = checkAndGetInputFormat(arguments);
+			output_format = checkAndGetOutputFormat(arguments);
+			includeInterval = checkAndGetIncludeInterval(arguments);
+			interval = checkAndGetInterval(arguments);
+			offset = checkAndGetOffset(arguments);
+			break;
+		}
+
+		long localMillis = checkAndGetLocalMillis(arguments, unit, input_format);
+		return localMillis == UNPARSABLE ? null
+				: render(unit, localMillis, output_format, includeInterval, interval, offset);
+	}
+
+	private Text render(TimeUnit unit, long localMillis, String outputFormat, boolean includeInterval,
+			int interval, int offset) {
+		int epochDay = PeriodRenderer.epochDay(localMillis);
+		if (offset != 0) {
+			// a day of the target period, whose boundary is then looked up as any other
+			epochDay = EpochDays.shift(unit, epochDay, offset);
+		}
+		int millisOfDay = PeriodRenderer.millisOfDay(localMillis);
+		boolean rendered = lastDay
+				? renderer.renderLastDay(unit, epochDay, millisOfDay, outputFormat, includeInterval, interval)
+				: renderer.renderFirstDay(unit, epochDay, millisOfDay, outputFormat, includeInterval, interval);
+		// on sorted input most rows fall in the period already in outputDate
+		if (rendered) {
+			outputDate.set(renderer.bytes(), 0, renderer.length());
+		}
+		return outputDate;
+	}
+
+	/*
+	 * Rows are only dispatched per argument when some argument other than the date is a column;
+	 * otherwise the evaluator is fixed to the date type, with the unit, formats and interval
+	 * resolved here.
+	 */
+	private Evaluator chooseEvaluator(int arity) throws UDFArgumentException {
+		if (constantUnit == null || (arity > 2 && constantInputFormat == null)
+				|| (arity > 3 && constantOutputFormat == null) || (arity > 4 && constantIncludeInterval == null)
+				|| (arity > 5 && constantInterval == NO_INTERVAL) || (arity > 6 && constantOffset == null)) {
+			return new GenericEvaluator();
+		}
+		switch (date.type) {
+		case STRING:
+			return new StringEvaluator();
+		case TIMESTAMP:
+			return new TimestampEvaluator();
+		case LONG:
+			String epochUnit = constantInputFormat != null ? constantInputFormat : date.defaultFormat;
+			return new EpochEvaluator(epochUnit(epochUnit));
+		default:
+			return new DateEvaluator();
+		}
+	}
+
+	/*
+	 * Appends the evaluator chosen by initialize() to a function's description, so that EXPLAIN
+	 * shows which path a call site runs.
+	 */
+	protected String describe(String description) {
+		return date == null ? description : description + " [evaluator: " + evaluator.name() + "]";
+	}
+
+	private void createMetrics(ObjectInspector[] arguments) {
+		if (metrics != null) {
+			metrics.release();
+			metrics = null;
+			metricsRegistered = false;
+		}
+
+		if (samplingInterval == 0) {
+			return;
+		}
+
+		StringBuilder signature = new StringBuilder(functionName).append('(');
+		for (int i = 0; i < arguments.length; i++) {
+			signature.append(i == 0 ? "" : ", ").append(arguments[i].getTypeName());
+		}
+		signature.append(')');
+
+		formatterCodePath = date.typeName + "/formatter";
+		printerCodePath = date.typeName + "/printer";
+		metrics = CallSiteMetrics.acquire(functionName, signature.toString(), samplingInterval);
+		rowsSinceSample = 0;
+	}
+
+	private void resolveConstantArguments(ObjectInspector[] arguments) {
+		constantUnit = null;
+		constantInputFormat = null;
+		constantOutputFormat = null;
+		constantIncludeInterval = null;
+		constantInterval = NO_INTERVAL;
+		constantOffset = null;
+
+		try {
+			String unit = constantString(arguments[0]);
+			if (unit != null) {
+				constantUnit = TimeUnit.valueOf(unit.trim().toUpperCase());
+			}
+			if (arguments.length > 2) {
+				constantInputFormat = constantString(arguments[2]);
+			}
+			if (arguments.length > 3) {
+				constantOutputFormat = constantString(arguments[3]);
+			}
+			if (arguments.length > 4 && arguments[4] instanceof ConstantObjectInspector) {
+				Object includeInterval = ((ConstantObjectInspector) arguments[4]).getWritableConstantValue();
+				if (includeInterval != null) {
+					constantIncludeInterval = ((BooleanWritable) includeInterval).get();
+				}
+			}
+			if (arguments.length > 5 && arguments[5] instanceof ConstantObjectInspector) {
+				Object interval = ((ConstantObjectInspector) arguments[5]).getWritableConstantValue();
+				if (interval != null) {
+					constantInterval = intervalMillis(interval);
+				}
+			}
+			if (arguments.length > 6 && arguments[6] instanceof ConstantObjectInspector) {
+				Object offset = ((ConstantObjectInspector) arguments[6]).getWritableConstantValue();
+				if (offset != null) {
+					constantOffset = offset(offset);
+				}
+			}
+		} catch (Exception exception) {
+			// left to evaluate(), which reports invalid values per row as before
+		}
+	}
+
+	private TimeUnit checkAndGetUnit(DeferredObject[] arguments) throws HiveException, UDFArgumentException {
+		if (constantUnit != null) {
+			return constantUnit;
+		}
+
+		Object unit = arguments[0].get();
+
+		if (unit == null) {
+			throw new UDFArgumentException("unit cannot be null");
+		}
+
+		return timeUnit(unit);
+	}
+
+	/*
+	 * Returns the date argument as milliseconds since epoch in the local time zone.
+	 */
+	private long checkAndGetLocalMillis(DeferredObject[] arguments, TimeUnit unit, String format)
+			throws HiveException {
+
+		return date.localMillis(checkAndGetDate(arguments), unit, format);
+	}
+
+	private static Object checkAndGetDate(DeferredObject[] arguments) throws HiveException {
+		Object dateArgument = arguments[1].get();
+
+		if (dateArgument == null) {
+			throw new UDFArgumentException("date cannot be null");
+		}
+		return dateArgument;
+	}
+
+	private String checkAndGetInputFormat(DeferredObject[] arguments) throws HiveException, UDFArgumentException {
+		if (constantInputFormat != null) {
+			return constantInputFormat;
+		}
+
+		Object formatValue = arguments[2].get();
+
+		if (formatValue == null) {
+			throw new UDFArgumentException("input_format cannot be null");
+		}
+
+		String format = PrimitiveObjectInspectorFactory.javaStringObjectInspector.getPrimitiveJavaObject(formatValue);
+
+		return format;
+	}
+
+	private String checkAndGetOutputFormat(DeferredObject[] arguments) throws HiveException, UDFArgumentException {
+		if (constantOutputFormat != null) {
+			return constantOutputFormat;
+		}
+
+		Object formatValue = arguments[3].get();
+
+		if (formatValue == null) {
+			throw new UDFArgumentException("output_format cannot be null");
+		}
+
+		String format = PrimitiveObjectInspectorFactory.javaStringObjectInspector.getPrimitiveJavaObject(formatValue);
+
+		return format;
+	}
+
+	private boolean checkAndGetIncludeInterval(DeferredObject[] arguments) throws HiveException, UDFArgumentException {
+		Object includeIntervalValue = arguments[4].get();
+
+		if (includeIntervalValue == null) {
+			throw new UDFArgumentException("include_interval cannot be null");
+		}
+
+		boolean includeInterval = (Boolean) PrimitiveObjectInspectorFactory.writableBooleanObjectInspector
+				.getPrimitiveJavaObject(includeIntervalValue);
+
+		return includeInterval;
+	}
+
+	private int checkAndGetInterval(DeferredObject[] arguments) throws HiveException, UDFArgumentException {
+		if (constantInterval != NO_INTERVAL) {
+			return constantInterval;
+		}
+
+		Object intervalValue = arguments[5].get();
+
+		if (intervalValue == null) {
+			throw new UDFArgumentException("interval cannot be null");
+		}
+
+		return intervalMillis(intervalValue);
+	}
+
+	/*
+	 * Returns the interval argument as millis of day. Typed intervals must fall within a day, like
+	 * HH:mm:ss text; fractions of a millisecond are dropped.
+	 */
+	private int intervalMillis(Object intervalValue) throws UDFArgumentException {
+		long millis;
+		switch (intervalInspector.getPrimitiveCategory()) {
+		case INTERVAL_DAY_TIME:
+			HiveIntervalDayTime interval = ((HiveIntervalDayTimeObjectInspector) intervalInspector)
+					.getPrimitiveJavaObject(intervalValue);
+			millis = interval.getTotalSeconds() * 1000 + interval.getNanos() / 1000000;
+			break;
+		case BYTE:
+		case SHORT:
+		case INT:
+		case LONG:
+			millis = PrimitiveObjectInspectorUtils.getLong(intervalValue, intervalInspector) * 1000;
+			break;
+		default:
+			String text = ((StringObjectInspector) intervalInspector).getPrimitiveJavaObject(intervalValue);
+			if (!text.equals(lastInterval)) {
+				lastParsedInterval = parseInterval(text);
+				lastInterval = text;
+			}
+			return lastParsedInterval;
+		}
+
+		if (millis < 0 || millis >= PeriodRenderer.MILLIS_PER_DAY) {
+			throw new UDFArgumentException(
+					"Invalid interval value " + millis / 1000 + "s. It should be in between 0 and 86399 seconds");
+		}
+		return (int) millis;
+	}
+
+	private int checkAndGetOffset(DeferredObject[] arguments) throws HiveException, UDFArgumentException {
+		if (constantOffset != null) {
+			return constantOffset;
+		}
+
+		Object offsetValue = arguments[6].get();
+
+		if (offsetValue == null) {
+			throw new UDFArgumentException("offset cannot be null");
+		}
+
+		return offset(offsetValue);
+	}
+
+	private int offset(Object offsetValue) throws UDFArgumentException {
+		long offset = PrimitiveObjectInspectorUtils.getLong(offsetValue, offsetInspector);
+		// keeps the shifted month index within an int
+		if (offset < -100000 || offset > 100000) {
+			throw new UDFArgumentException("Invalid offset " + offset + ". It should be in between -100000 and 100000");
+		}
+		return (int) offset;
+	}
+
+	private static int parseInterval(String interval) throws UDFArgumentException {
+		String[] intervalChunks = interval.split(":");
+
+		if (intervalChunks.length != 3) {
+			throw new UDFArgumentException("Invalid interval value. Supported format is HH:MM:SS");
+		}
+
+		int[] intervalParsedChunks = new int[intervalChunks.length];
+
+		for (int i = 0; i < intervalChunks.length; i++) {
+			try {
+				intervalParsedChunks[i] = Integer.parseInt(intervalChunks[i]);
+				if (i == 0) {
+					int hour = intervalParsedChunks[i];
+					if (hour < 0 || hour > 23) {
+						throw new UDFArgumentException(
+								"Invalid hour value in interval. It should be in between 0 and 23");
+					}
+				} else if (i == 1) {
+					int minutes = intervalParsedChunks[i];
+					if (minutes < 0 || minutes > 59) {
+						throw new UDFArgumentException(
+								"Invalid minutes value in interval. It should be in between 0 and 59");
+					}
+				} else if (i == 2) {
+					int seconds = intervalParsedChunks[i];
+					if (seconds < 0 || seconds > 59) {
+						throw new UDFArgumentException(
+								"Invalid seconds value in interval. It should be in between 0 and 59");
+					}
+				}
+			} catch (NumberFormatException numberFormatException) {
+				throw new UDFArgumentException("Unparsable interval value. Supported format is HH:MM:SS");
+			}
+		}
+		return ((intervalParsedChunks[0] * 60 + intervalParsedChunks[1]) * 60 + intervalParsedChunks[2]) * 1000;
+	}
+
+	private void verifyUnitInspector(ObjectInspector[] arguments) throws UDFArgumentException {
+		ObjectInspector unitInspector = arguments[0];
+		if (!(unitInspector instanceof StringObjectInspector)) {
+			throw new UDFArgumentTypeException(0, "Only String is accepted for unit parameter but "
+					+ unitInspector.getTypeName() + " is passed as first argument");
+		}
+	}
+
+	private void verifyDateInspector(ObjectInspector[] arguments) throws UDFArgumentException {
+		ObjectInspector dateInspector = arguments[1];
+
+		if (!isDateInspector(dateInspector)) {
+			throw new UDFArgumentTypeException(1,
+					"Only STRING/TIMESTAMP/DATEWRITABLE/BIGINT are accepted for date parameter but "
+							+ dateInspector.getTypeName() + " is passed as second argument");
+		}
+	}
+
+	private void verifyInputFormatInspector(ObjectInspector[] arguments) throws UDFArgumentException {
+		ObjectInspector formatInspector = arguments[2];
+		if (!(formatInspector instanceof StringObjectInspector)) {
+			throw new UDFArgumentTypeException(2, "Only String is accepted for input_format parameter but "
+					+ formatInspector.getTypeName() + " is passed as third argument");
+		}
+	}
+
+	private void verifyOutputFormatInspector(ObjectInspector[] arguments) throws UDFArgumentException {
+		ObjectInspector formatInspector = arguments[3];
+		if (!(formatInspector instanceof StringObjectInspector)) {
+			throw new UDFArgumentTypeException(2, "Only String is accepted for output_format parameter but "
+					+ formatInspector.getTypeName() + " is passed as fourth argument");
+		}
+	}
+
+	private void verifyIncludeIntervalInspector(ObjectInspector[] arguments) throws UDFArgumentException {
+		ObjectInspector includeIntervalInspector = arguments[4];
+		if (!(includeIntervalInspector instanceof BooleanObjectInspector)) {
+			throw new UDFArgumentTypeException(4, "Only boolean is accepted for include_interval parameter but "
+					+ includeIntervalInspector.getTypeName() + " is passed as fifth argument");
+		}
+	}
+
+	private void verifyIntervalInspector(ObjectInspector[] arguments) throws UDFArgumentException {
+		ObjectInspector intervalInspector = arguments[5];
+		if (intervalInspector instanceof PrimitiveObjectInspector) {
+			switch (((PrimitiveObjectInspector) intervalInspector).getPrimitiveCategory()) {
+			case STRING:
+			case INTERVAL_DAY_TIME:
+			case BYTE:
+			case SHORT:
+			case INT:
+			case LONG:
+				this.intervalInspector = (PrimitiveObjectInspector) intervalInspector;
+				return;
+			default:
+				break;
+			}
+		}
+		throw new UDFArgumentTypeException(4,
+				"Only String, interval_day_time or integer seconds are accepted for interval parameter but "
+						+ intervalInspector.getTypeName() + " is passed as sixth argument");
+	}
+
+	private void verifyOffsetInspector(ObjectInspector[] arguments) throws UDFArgumentException {
+		ObjectInspector offsetInspector = arguments[6];
+		if (offsetInspector instanceof PrimitiveObjectInspector) {
+			switch (((PrimitiveObjectInspector) offsetInspector).getPrimitiveCategory()) {
+			case BYTE:
+			case SHORT:
+			case INT:
+			case LONG:
+				this.offsetInspector = (PrimitiveObjectInspector) offsetInspector;
+				return;
+			default:
+				break;
+			}
+		}
+		throw new UDFArgumentTypeException(6, "Only integers are accepted for offset parameter but "
+				+ offsetInspector.getTypeName() + " is passed as seventh argument");
+	}
+
+	protected PeriodRenderer getRenderer() {
+		return renderer;
+	}
+
+	/*
+	 * Evaluates the rows of one call site; evaluate() makes a single call through the instance
+	 * chosen by initialize().
+	 */
+	private abstract class Evaluator {
+
+		abstract Object evaluate(DeferredObject[] arguments) throws HiveException;
+
+		abstract String name();
+
+	}
+
+	private final class GenericEvaluator extends Evaluator {
+
+		@Override
+		Object evaluate(DeferredObject[] arguments) throws HiveException {
+			return evaluateRow(arguments);
+		}
+
+		@Override
+		String name() {
+			return "generic";
+		}
+
+	}
+
+	/*
+	 * All arguments but the date are literals, fixed for the life of the evaluator: the unit,
+	 * boundary, interval and printer are resolved into one PeriodRenderer.Boundary, so every row
+	 * takes the same path through it.
+	 */
+	private abstract class ConstantArgumentsEvaluator extends Evaluator {
+
+		final TimeUnit unit = constantUnit;
+		final String inputFormat = constantInputFormat != null ? constantInputFormat : date.defaultFormat;
+		private final int offset = constantOffset != null ? constantOffset : 0;
+		private final PeriodRenderer.Boundary boundary;
+		private final String name;
+
+		ConstantArgumentsEvaluator(String type) {
+			boolean includeInterval = constantIncludeInterval != null && constantIncludeInterval;
+			boundary = renderer.boundary(unit, lastDay, constantOutputFormat, includeInterval, constantInterval);
+			name = type + "/" + unit + "/" + (lastDay ? "last" : "first") + "/"
+					+ (includeInterval && constantInterval != NO_INTERVAL ? "interval" : "no-interval") + "/"
+					+ (boundary.printable() ? "printer" : "formatter") + (offset != 0 ? "/offset " + offset : "");
+		}
+
+		final Text render(long localMillis) {
+			int epochDay = PeriodRenderer.epochDay(localMillis);
+			if (offset != 0) {
+				epochDay = EpochDays.shift(unit, epochDay, offset);
+			}
+			if (boundary.render(epochDay, PeriodRenderer.millisOfDay(localMillis))) {
+				outputDate.set(renderer.bytes(), 0, renderer.length());
+			}
+			return outputDate;
+		}
+
+		@Override
+		final String name() {
+			return name;
+		}
+
+	}
+
+	private final class StringEvaluator extends ConstantArgumentsEvaluator {
+
+		StringEvaluator() {
+			super("string");
+		}
+
+		@Override
+		Object evaluate(DeferredObject[] arguments) throws HiveException {
+			long localMillis = date.stringLocalMillis(checkAndGetDate(arguments), unit, inputFormat);
+			return localMillis == UNPARSABLE ? null : render(localMillis);
+		}
+
+	}
+
+	private final class TimestampEvaluator extends ConstantArgumentsEvaluator {
+
+		TimestampEvaluator() {
+			super("timestamp");
+		}
+
+		@Override
+		Object evaluate(DeferredObject[] arguments) throws HiveException {
+			return render(date.timestampLocalMillis(checkAndGetDate(arguments)));
+		}
+
+	}
+
+	private final class EpochEvaluator extends ConstantArgumentsEvaluator {
+
+		private final EpochUnit epochUnit;
+
+		EpochEvaluator(EpochUnit epochUnit) {
+			super("bigint");
+			this.epochUnit = epochUnit;
+		}
+
+		@Override
+		Object evaluate(DeferredObject[] arguments) throws HiveException {
+			return render(date.epochLocalMillis(checkAndGetDate(arguments), epochUnit));
+		}
+
+	}
+
+	private final class DateEvaluator extends ConstantArgumentsEvaluator {
+
+		DateEvaluator() {
+			super("date");
+		}
+
+		@Override
+		Object evaluate(DeferredObject[] arguments) throws HiveException {
+			return render(date.dateLocalMillis(checkAndGetDate(arguments)));
+		}
+
+	}
+
+}
@@ -0,0 +1,444 @@
+package com.bigdata.hive.udf.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.exec.Description;
+import org.apache.hadoop.hive.ql.exec.MapredContext;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.session.SessionState;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
+import org.apache.hadoop.hive.serde2.io.TimestampWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ConstantObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorConverters;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorConverters.Converter;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector.PrimitiveCategory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.LongObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.StringObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.WritableDateObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.WritableTimestampObjectInspector;
+
+import com.bigdata.hive.udf.engine.BoundaryTable;
+import com.bigdata.hive.udf.engine.EpochUnit;
+import com.bigdata.hive.udf.engine.HolidayCalendar;
+import com.bigdata.hive.udf.engine.ParsedDateCache;
+import com.bigdata.hive.udf.engine.PeriodCalculator;
+import com.bigdata.hive.udf.engine.PeriodRenderer;
+import com.bigdata.hive.udf.engine.TimeUnit;
+import com.bigdata.hive.udf.metrics.FlightEvents;
+
+/*
+ * What the period functions share: the dayextremes.* settings, the boundary table and holiday
+ * calendars shipped through the distributed cache, and reading date arguments of any accepted type
+ * as local millis.
+ */
+public abstract class AbstractPeriodUDF extends GenericUDF {
+
+	public static final String BOUNDARY_TABLE_PROPERTY = "dayextremes.boundary.table";
+	public static final String METRICS_SAMPLING_PROPERTY = "dayextremes.metrics.sampling";
+	public static final int DEFAULT_METRICS_SAMPLING = 1024;
+	public static final String CACHE_CAPACITY_PROPERTY = "dayextremes.cache.capacity";
+	public static final int DEFAULT_CACHE_CAPACITY = 1024;
+	public static final String TABLE_FIRST_YEAR_PROPERTY = "dayextremes.table.first.year";
+	public static final String TABLE_LAST_YEAR_PROPERTY = "dayextremes.table.last.year";
+	public static final String TIME_ZONE_PROPERTY = "dayextremes.timezone";
+	public static final String ERROR_MODE_PROPERTY = "dayextremes.error.mode";
+	public static final String HOLIDAY_CALENDARS_PROPERTY = "dayextremes.holiday.calendars";
+	// returned by the date readers for an unparsable string in ErrorMode.NULL
+	static final long UNPARSABLE = Long.MIN_VALUE;
+
+	/*
+	 * What a date string that does not match its input format evaluates to.
+	 */
+	public enum ErrorMode {
+		// the current time, as it always has
+		CURRENT_TIME,
+		NULL,
+		FAIL
+	}
+
+	// dayextremes.* settings, from the job in configure() or else from the session in initialize()
+	private transient boolean configured;
+	// why the settings could not be read, reported by initialize() as configure() cannot throw
+	private transient String settingsError;
+	transient TimeZone timeZone = PeriodRenderer.defaultZone();
+	transient ErrorMode errorMode = ErrorMode.CURRENT_TIME;
+	transient int cacheCapacity;
+	// every samplingInterval-th row is timed and reported to the call site MBean, 0 disables
+	transient int samplingInterval;
+	// the FUNCTION_NAME this instance runs as, for metrics and flight recorder events
+	transient String functionName;
+	// the calendars of the file named by dayextremes.holiday.calendars for this instance
+	transient Map<String, HolidayCalendar> holidayCalendars = Collections.emptyMap();
+
+	/*
+	 * Ships the boundary table named by dayextremes.boundary.table and the holiday calendars named by
+	 * dayextremes.holiday.calendars through the distributed cache so that they are localized once
+	 * per node.
+	 */
+	@Override
+	public String[] getRequiredFiles() {
+		SessionState sessionState = SessionState.get();
+		if (sessionState == null) {
+			return null;
+		}
+		List<String> files = new ArrayList<String>(2);
+		for (String property : new String[] { BOUNDARY_TABLE_PROPERTY, HOLIDAY_CALENDARS_PROPERTY }) {
+			String file = sessionState.getConf().get(property);
+			if (file != null) {
+				files.add(file);
+			}
+		}
+		return files.isEmpty() ? null : files.toArray(new String[files.size()]);
+	}
+
+	@Override
+	public void configure(MapredContext context) {
+		String boundaryTable = context.getJobConf().get(BOUNDARY_TABLE_PROPERTY);
+		if (boundaryTable != null) {
+			if (!BoundaryTable.load(localizedFile(boundaryTable))) {
+				BoundaryTable.load(new File(new Path(boundaryTable).toUri().getPath()));
+			}
+		}
+		try {
+			applySettings(context.getJobConf());
+		} catch (IllegalArgumentException exception) {
+			settingsError = exception.getMessage();
+		}
+		configured = true;
+	}
+
+	/*
+	 * Called from initialize(): takes the settings from the session unless configure() already
+	 * took them from the job, and names the function. An invalid setting fails here.
+	 */
+	final void initializeSettings() throws UDFArgumentException {
+		if (!configured) {
+			SessionState sessionState = SessionState.get();
+			try {
+				applySettings(sessionState == null ? null : sessionState.getConf());
+				settingsError = null;
+			} catch (IllegalArgumentException exception) {
+				settingsError = exception.getMessage();
+			}
+		}
+		if (settingsError != null) {
+			throw new UDFArgumentException(settingsError);
+		}
+		Description description = getClass().getAnnotation(Description.class);
+		functionName = description != null ? description.name() : getClass().getSimpleName();
+	}
+
+	/*
+	 * Reads the dayextremes.* settings, or their defaults without a configuration, failing with an
+	 * IllegalArgumentException that names an invalid one. The table years apply to the whole JVM and
+	 * are only changed when set; the holiday calendars are those of this instance's file.
+	 */
+	private void applySettings(Configuration conf) {
+		samplingInterval = conf == null ? DEFAULT_METRICS_SAMPLING
+				: intSetting(conf, METRICS_SAMPLING_PROPERTY, DEFAULT_METRICS_SAMPLING);
+		cacheCapacity = conf == null ? DEFAULT_CACHE_CAPACITY
+				: intSetting(conf, CACHE_CAPACITY_PROPERTY, DEFAULT_CACHE_CAPACITY);
+		String zone = conf == null ? null : conf.getTrimmed(TIME_ZONE_PROPERTY);
+		timeZone = zone == null ? PeriodRenderer.defaultZone() : timeZone(zone);
+		String mode = conf == null ? null : conf.getTrimmed(ERROR_MODE_PROPERTY);
+		errorMode = mode == null ? ErrorMode.CURRENT_TIME : errorMode(mode);
+		String calendars = conf == null ? null : conf.getTrimmed(HOLIDAY_CALENDARS_PROPERTY);
+		holidayCalendars = calendars == null ? Collections.<String, HolidayCalendar> emptyMap()
+				: loadHolidayCalendars(calendars, conf);
+		if (conf == null) {
+			return;
+		}
+
+		if (conf.get(TABLE_FIRST_YEAR_PROPERTY) != null || conf.get(TABLE_LAST_YEAR_PROPERTY) != null) {
+			BoundaryTable.setHeapYears(intSetting(conf, TABLE_FIRST_YEAR_PROPERTY, BoundaryTable.DEFAULT_FIRST_YEAR),
+					intSetting(conf, TABLE_LAST_YEAR_PROPERTY, BoundaryTable.DEFAULT_LAST_YEAR));
+		}
+	}
+
+	/*
+	 * Reads the calendars shipped to the task, else from the local path, else through the file
+	 * system of the path, e.g. HDFS when the query is compiled. A missing file has no calendars.
+	 */
+	private static Map<String, HolidayCalendar> loadHolidayCalendars(String holidayCalendars, Configuration conf) {
+		try {
+			Path path = new Path(holidayCalendars);
+			String scheme = path.toUri().getScheme();
+			Map<String, HolidayCalendar> calendars = HolidayCalendar.load(localizedFile(holidayCalendars));
+			if (calendars == null && (scheme == null || "file".equals(scheme))) {
+				calendars = HolidayCalendar.load(new File(path.toUri().getPath()));
+			}
+			if (calendars != null) {
+				return calendars;
+			}
+			FileSystem fileSystem = path.getFileSystem(conf);
+			if (!fileSystem.isFile(path)) {
+				return Collections.emptyMap();
+			}
+			InputStream in = fileSystem.open(path);
+			try {
+				return HolidayCalendar.load(fileSystem.makeQualified(path).toString(), in);
+			} finally {
+				in.close();
+			}
+		} catch (IOException exception) {
+			throw new IllegalArgumentException(
+					"Cannot read holiday calendars " + holidayCalendars + " in " + HOLIDAY_CALENDARS_PROPERTY, exception);
+		}
+	}
+
+	/*
+	 * Files shipped by getRequiredFiles() land in the task working directory under their own name.
+	 */
+	private static File localizedFile(String file) {
+		return new File(new Path(file).getName());
+	}
+
+	private static int intSetting(Configuration conf, String property, int defaultValue) {
+		try {
+			return conf.getInt(property, defaultValue);
+		} catch (NumberFormatException exception) {
+			throw new IllegalArgumentException(
+					"Invalid " + property + " " + conf.get(property) + ", it should be an integer");
+		}
+	}
+
+	private static ErrorMode errorMode(String mode) {
+		try {
+			return ErrorMode.valueOf(mode.toUpperCase());
+		} catch (IllegalArgumentException exception) {
+			throw new IllegalArgumentException("Invalid " + ERROR_MODE_PROPERTY + " " + mode
+					+ ", it can only be one of CURRENT_TIME, NULL, FAIL");
+		}
+	}
+
+	private static TimeZone timeZone(String id) {
+		TimeZone zone = TimeZone.getTimeZone(id);
+		// unknown ids silently come back as GMT
+		if ("GMT".equals(zone.getID()) && !"GMT".equals(id)) {
+			throw new IllegalArgumentException("Unknown time zone " + id + " in " + TIME_ZONE_PROPERTY);
+		}
+		return zone;
+	}
+
+	/*
+	 * Reads a TIMESTAMP argument as local millis. Hive 1.x/2.x timestamps are java.sql.Timestamp
+	 * instants, shifted here to the configured zone. Adapters for Hive versions with other writables
+	 * override this and dateLocalMillis(), everything else is shared.
+	 */
+	protected long timestampLocalMillis(PrimitiveObjectInspector inspector, Object dateArgument, TimeZone zone) {
+		TimestampWritable timestamp = ((WritableTimestampObjectInspector) inspector)
+				.getPrimitiveWritableObject(dateArgument);
+		return PeriodRenderer.toLocalMillis(timestamp.getSeconds() * 1000 + timestamp.getNanos() / 1000000, zone);
+	}
+
+	protected long dateLocalMillis(PrimitiveObjectInspector inspector, Object dateArgument) {
+		return ((WritableDateObjectInspector) inspector).getPrimitiveWritableObject(dateArgument).getDays()
+				* (long) PeriodRenderer.MILLIS_PER_DAY;
+	}
+
+	static boolean isDateInspector(ObjectInspector inspector) {
+		return inspector instanceof StringObjectInspector || inspector instanceof WritableDateObjectInspector
+				|| inspector instanceof WritableTimestampObjectInspector || inspector instanceof LongObjectInspector;
+	}
+
+	static String constantString(ObjectInspector inspector) {
+		if (!(inspector instanceof ConstantObjectInspector)) {
+			return null;
+		}
+		Object value = ((ConstantObjectInspector) inspector).getWritableConstantValue();
+		return value == null ? null : value.toString();
+	}
+
+	/*
+	 * Returns the unit passed as a literal, or null for a column or an unknown unit, which is then
+	 * reported per row.
+	 */
+	static TimeUnit constantUnit(ObjectInspector inspector) {
+		String unit = constantString(inspector);
+		try {
+			return unit == null ? null : TimeUnit.valueOf(unit.trim().toUpperCase());
+		} catch (IllegalArgumentException exception) {
+			return null;
+		}
+	}
+
+	static TimeUnit unitArgument(DeferredObject argument) throws HiveException {
+		Object unit = argument.get();
+		if (unit == null) {
+			throw new UDFArgumentException("unit cannot be null");
+		}
+		return timeUnit(unit);
+	}
+
+	static String inputFormatArgument(DeferredObject argument) throws HiveException {
+		Object format = argument.get();
+		if (format == null) {
+			throw new UDFArgumentException("input_format cannot be null");
+		}
+		return PrimitiveObjectInspectorFactory.javaStringObjectInspector.getPrimitiveJavaObject(format);
+	}
+
+	static TimeUnit timeUnit(Object unit) throws UDFArgumentException {
+		try {
+			return TimeUnit.valueOf(PrimitiveObjectInspectorFactory.javaStringObjectInspector
+					.getPrimitiveJavaObject(unit).trim().toUpperCase());
+		} catch (Exception exception) {
+			throw new UDFArgumentException("unit can only be one of DAY, WEEK, MONTH, QUARTER, YEAR");
+		}
+	}
+
+	static EpochUnit epochUnit(String format) throws UDFArgumentException {
+		try {
+			return EpochUnit.parse(format);
+		} catch (IllegalArgumentException exception) {
+			throw new UDFArgumentException(
+					"input_format of a BIGINT date can only be one of SECONDS, MILLIS, MICROS, got " + format);
+		}
+	}
+
+	/*
+	 * One date argument of a call site, read as milliseconds since epoch in the local time zone:
+	 * strings through their input format and the parsed date cache, TIMESTAMP and BIGINT (epoch
+	 * seconds, millis or micros, named by the input format) shifted to dayextremes.timezone, DATE as
+	 * it is. Created in initialize(), after the settings are applied.
+	 */
+	final class DateArgument {
+
+		final PrimitiveObjectInspector inspector;
+		final PrimitiveCategory type;
+		final String typeName;
+		// a BIGINT date takes its epoch unit in place of the input format
+		final String defaultFormat;
+		private final Converter converter;
+		private final ParsedDateCache parsedDates;
+		private SimpleDateFormat formatter;
+		private String formatterPattern;
+		private String lastEpochFormat;
+		private EpochUnit lastEpochUnit;
+
+		DateArgument(ObjectInspector argument) throws UDFArgumentException {
+			inspector = (PrimitiveObjectInspector) argument;
+			PrimitiveCategory category = inspector.getPrimitiveCategory();
+			switch (category) {
+			case STRING:
+			case VARCHAR:
+			case CHAR:
+				category = PrimitiveCategory.STRING;
+				converter = ObjectInspectorConverters.getConverter(inspector,
+						PrimitiveObjectInspectorFactory.writableStringObjectInspector);
+				break;
+			case TIMESTAMP:
+			case DATE:
+			case LONG:
+				// read straight from the writable, no conversion needed
+				converter = null;
+				break;
+			default:
+				throw new UDFArgumentException(" " + functionName.toUpperCase()
+						+ "() only takes STRING/TIMESTAMP/DATEWRITABLE/BIGINT types as date argument, got " + category);
+			}
+			type = category;
+			typeName = type.name().toLowerCase();
+			defaultFormat = type == PrimitiveCategory.LONG ? EpochUnit.MILLIS.name()
+					: PeriodCalculator.DEFAULT_DATE_FORMAT;
+			parsedDates = new ParsedDateCache(type == PrimitiveCategory.STRING ? cacheCapacity : 0);
+		}
+
+		long localMillis(Object dateArgument, TimeUnit unit, String format) throws UDFArgumentException {
+			switch (type) {
+			case STRING:
+				return stringLocalMillis(dateArgument, unit, format);
+			case TIMESTAMP:
+				return timestampLocalMillis(dateArgument);
+			case DATE:
+				return dateLocalMillis(dateArgument);
+			default:
+				if (!format.equals(lastEpochFormat)) {
+					lastEpochUnit = epochUnit(format);
+					lastEpochFormat = format;
+				}
+				return epochLocalMillis(dateArgument, lastEpochUnit);
+			}
+		}
+
+		long stringLocalMillis(Object dateArgument, TimeUnit unit, String format) throws UDFArgumentException {
+			String dateString = converter.convert(dateArgument).toString();
+			SimpleDateFormat formatter = formatter(unit, format);
+			long localMillis = parsedDates.get(dateString, UNPARSABLE);
+			if (localMillis != UNPARSABLE) {
+				return localMillis;
+			}
+
+			// misses are only timed while a recording has the events on
+			long start = FlightEvents.enabled() ? System.nanoTime() : 0;
+			try {
+				localMillis = PeriodRenderer.toLocalMillis(formatter.parse(dateString).getTime(), timeZone);
+			} catch (ParseException e) {
+				switch (errorMode) {
+				case NULL:
+					return UNPARSABLE;
+				case FAIL:
+					throw new UDFArgumentException("Unparsable date " + dateString + " for input format " + format);
+				default:
+					// unparseable dates have always resolved to the current time, which is not cached
+					return PeriodRenderer.toLocalMillis(System.currentTimeMillis(), timeZone);
+				}
+			}
+			if (start != 0) {
+				FlightEvents.parsed(functionName, unit.name(), typeName, format, System.nanoTime() - start);
+			}
+			parsedDates.put(dateString, localMillis);
+			return localMillis;
+		}
+
+		long timestampLocalMillis(Object dateArgument) {
+			return AbstractPeriodUDF.this.timestampLocalMillis(inspector, dateArgument, timeZone);
+		}
+
+		long dateLocalMillis(Object dateArgument) {
+			return AbstractPeriodUDF.this.dateLocalMillis(inspector, dateArgument);
+		}
+
+		/*
+		 * An epoch value is an instant, shifted to the configured zone like a timestamp.
+		 */
+		long epochLocalMillis(Object dateArgument, EpochUnit epochUnit) {
+			long value = ((LongObjectInspector) inspector).get(dateArgument);
+			return PeriodRenderer.toLocalMillis(epochUnit.toMillis(value), timeZone);
+		}
+
+		private SimpleDateFormat formatter(TimeUnit unit, String format) {
+			if (formatter == null || !format.equals(formatterPattern)) {
+				long start = formatter != null && FlightEvents.enabled() ? System.nanoTime() : 0;
+				String evicted = formatterPattern;
+				formatter = new SimpleDateFormat(format);
+				formatter.setTimeZone(timeZone);
+				formatterPattern = format;
+				parsedDates.clear();
+				if (start != 0) {
+					FlightEvents.formatEvicted(functionName, unit.name(), typeName, evicted, format,
+							System.nanoTime() - start);
+				}
+			}
+			return formatter;
+		}
+
+	}
+
+}
@@ -0,0 +1,27 @@
+package com.bigdata.hive.udf.impl;
+
+import org.apache.hadoop.hive.ql.exec.Description;
+
+@Description(name = FirstBusinessDayOfTimeUnitUDF.NAME, value = FirstBusinessDayOfTimeUnitUDF.VALUE, extended = FirstBusinessDayOfTimeUnitUDF.EXTENDED)
+public class FirstBusinessDayOfTimeUnitUDF extends AbstractBusinessDayOfTimeUnitUDF {
+
+	// shared with the adapters for other Hive versions
+	public static final String NAME = "first_business_day_of";
+	public static final String VALUE = "_FUNC_(unit, input_date, calendar, input_format) - Returns the first business day of unit (day/week/month/quarter/year) "
+			+ "based on input_date, skipping weekends and the holidays of calendar.";
+	public static final String EXTENDED = "unit accepts value DAY, WEEK, MONTH, QUARTER, YEAR.\n "
+			+ "input_date is a string, timestamp, date or epoch millis.\n "
+			+ "calendar is the name of a holiday calendar in the file set as dayextremes.holiday.calendars.\n "
+			+ "input_format is a string which can be specified if input date is in format other than default 'yyyy-MM-dd HH:mm:ss' or 'yyyy-MM-dd', or SECONDS/MILLIS/MICROS for epoch dates.\n "
+			+ "Example:\n " + "  > SELECT _FUNC_('MONTH', '2011-01-22', 'NYSE');\n" + "  '2011-01-03'";
+
+	public FirstBusinessDayOfTimeUnitUDF() {
+		super(false);
+	}
+
+	@Override
+	public String getDisplayString(String[] children) {
+		return getStandardDisplayString(NAME, children);
+	}
+
+}
@@ -0,0 +1,38 @@
+package com.bigdata.hive.udf.impl;
+
+import org.apache.hadoop.hive.ql.exec.Description;
+
+/*
+ * @Author: Manoj Kumar Vohra
+ * @Date: 02-April-2016
+ */
+
+@Description(name = FirstDayOfTimeUnitUDF.NAME, value = FirstDayOfTimeUnitUDF.VALUE, extended = FirstDayOfTimeUnitUDF.EXTENDED)
+public class FirstDayOfTimeUnitUDF extends AbstractDayOfTimeUnitUDF {
+
+	// shared with the adapters for other Hive versions
+	public static final String NAME = "first_day_of";
+	public static final String VALUE = "_FUNC_(unit, input_date, input_format, output_format, include_interval, interval) - Returns the first date for unit (day/week/month/quarter/year) "
+			+ "based on input_date.";
+	public static final String EXTENDED = "unit accepts value DAY, WEEK, MONTH, QUARTER, YEAR.\n "
+			+ "input_date is a string with default assumed format being 'yyyy-MM-dd HH:mm:ss' or 'yyyy-MM-dd'.\n "
+			+ "input_format is a string which can be specified if input date is in format other than default 'yyyy-MM-dd HH:mm:ss' or 'yyyy-MM-dd'.\n "
+			+ "output_format is a string which can be specified if output date is expected in format other than default 'yyyy-MM-dd HH:mm:ss' or 'yyyy-MM-dd'.\n "
+			+ "include_interval is a boolean to control whether output date would contain the timestamp or not.\n "
+			+ "interval is a string accepted in format 'HH:mm:ss' which can be added to return value.\n "
+			+ "Example:\n " + "  > SELECT _FUNC_('QUARTER','22-01-2011','dd-MM-yyyy', true, '23:45:45');\n"
+			+ "  '2011-01-01 23:45:45'" + ") " + "  > SELECT _FUNC_('YEAR','02-08-2011','dd-MM-yyyy', false);\n"
+			+ "  '2011-01-01'";
+
+	private static final String FIRST_DAY_DISPLAY_MESSAGE = "Gets first day of day/week/month/quarter/year for a provided date with optional interval timestamp value can be added.";
+
+	public FirstDayOfTimeUnitUDF() {
+		super(false);
+	}
+
+	@Override
+	public String getDisplayString(String[] children) {
+		return describe(FIRST_DAY_DISPLAY_MESSAGE);
+	}
+
+}
@@ -0,0 +1,197 @@
+package com.bigdata.hive.udf.impl;
+
+import org.apache.hadoop.hive.ql.exec.Description;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.serde2.objectinspector.ConstantObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorUtils;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.StringObjectInspector;
+import org.apache.hadoop.io.Text;
+
+import com.bigdata.hive.udf.engine.BoundaryTable;
+import com.bigdata.hive.udf.engine.EpochDays;
+import com.bigdata.hive.udf.engine.PeriodRenderer;
+import com.bigdata.hive.udf.engine.TimeUnit;
+
+/*
+ * The nth given day of the week within the period containing a date, counted back from the end
+ * for a negative ordinal: nth_day_of_week('MONTH', '2011-02-22', 'FRIDAY', -1) is the last Friday
+ * of February 2011. The day comes from the period's boundaries with weekday arithmetic, so there is
+ * no day by day walk, and is rendered as 'yyyy-MM-dd'. Dates are read as in first_day_of.
+ *
+ * A null date, or a period without that many of the day, is a null result.
+ */
+@Description(name = NthDayOfWeekUDF.NAME, value = NthDayOfWeekUDF.VALUE, extended = NthDayOfWeekUDF.EXTENDED)
+public class NthDayOfWeekUDF extends AbstractPeriodUDF {
+
+	// shared with the adapters for other Hive versions
+	public static final String NAME = "nth_day_of_week";
+	public static final String VALUE = "_FUNC_(unit, input_date, day_of_week, ordinal, input_format) - Returns the ordinal-th day_of_week of the unit (day/week/month/quarter/year) "
+			+ "containing input_date, or the last ones for a negative ordinal.";
+	public static final String EXTENDED = "unit accepts value DAY, WEEK, MONTH, QUARTER, YEAR.\n "
+			+ "input_date is a string, timestamp, date or epoch millis.\n "
+			+ "day_of_week is MONDAY to SUNDAY, or their first three letters.\n "
+			+ "ordinal is 1 to 53 from the start of the unit, or -1 (last) to -53 from its end.\n "
+			+ "input_format is a string which can be specified if input date is in format other than default 'yyyy-MM-dd HH:mm:ss' or 'yyyy-MM-dd', or SECONDS/MILLIS/MICROS for epoch dates.\n "
+			+ "Example:\n " + "  > SELECT _FUNC_('MONTH', '2011-02-22', 'FRIDAY', -1);\n" + "  2011-02-25";
+
+	private static final String FUNCTION_USAGE = "Invalid function usage: Correct Usage => FunctionName(<String> unit, <String/Timestamp/Date/Bigint> date, <String> day_of_week, <Int> ordinal, <String> input_format[optional])";
+
+	private static final String[] DAYS_OF_WEEK = { "MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY",
+			"SATURDAY", "SUNDAY" };
+
+	// a year has at most 53 of each day of the week
+	private static final int MAX_ORDINAL = 53;
+
+	private transient DateArgument date;
+	private transient PrimitiveObjectInspector ordinalInspector;
+	private transient TimeUnit constantUnit;
+	private transient int constantDayOfWeek;
+	private transient int constantOrdinal;
+	private transient String constantInputFormat;
+
+	private final PeriodRenderer renderer = new PeriodRenderer();
+	private final Text outputDate = new Text();
+
+	@Override
+	public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
+		if (arguments.length < 4 || arguments.length > 5) {
+			throw new UDFArgumentLengthException(FUNCTION_USAGE);
+		}
+		if (!(arguments[0] instanceof StringObjectInspector)) {
+			throw new UDFArgumentTypeException(0, "Only String is accepted for unit parameter but "
+					+ arguments[0].getTypeName() + " is passed as first argument");
+		}
+		if (!isDateInspector(arguments[1])) {
+			throw new UDFArgumentTypeException(1,
+					"Only STRING/TIMESTAMP/DATEWRITABLE/BIGINT are accepted for date parameter but "
+							+ arguments[1].getTypeName() + " is passed as second argument");
+		}
+		if (!(arguments[2] instanceof StringObjectInspector)) {
+			throw new UDFArgumentTypeException(2, "Only String is accepted for day_of_week parameter but "
+					+ arguments[2].getTypeName() + " is passed as third argument");
+		}
+		verifyOrdinalInspector(arguments[3]);
+		if (arguments.length > 4 && !(arguments[4] instanceof StringObjectInspector)) {
+			throw new UDFArgumentTypeException(4, "Only String is accepted for input_format parameter but "
+					+ arguments[4].getTypeName() + " is passed as fifth argument");
+		}
+
+		initializeSettings();
+		date = new DateArgument(arguments[1]);
+
+		constantUnit = constantUnit(arguments[0]);
+		String dayOfWeek = constantString(arguments[2]);
+		constantDayOfWeek = dayOfWeek != null ? dayOfWeek(dayOfWeek) : 0;
+		constantOrdinal = 0;
+		if (arguments[3] instanceof ConstantObjectInspector) {
+			Object ordinal = ((ConstantObjectInspector) arguments[3]).getWritableConstantValue();
+			if (ordinal != null) {
+				constantOrdinal = ordinal(ordinal);
+			}
+		}
+		constantInputFormat = arguments.length > 4 ? constantString(arguments[4]) : null;
+
+		return PrimitiveObjectInspectorFactory.writableStringObjectInspector;
+	}
+
+	@Override
+	public Object evaluate(DeferredObject[] arguments) throws HiveException {
+		TimeUnit unit = constantUnit != null ? constantUnit : unitArgument(arguments[0]);
+		int dayOfWeek = constantDayOfWeek != 0 ? constantDayOfWeek : dayOfWeekArgument(arguments[2]);
+		int ordinal = constantOrdinal != 0 ? constantOrdinal : ordinalArgument(arguments[3]);
+
+		Object dateValue = arguments[1].get();
+		if (dateValue == null) {
+			return null;
+		}
+
+		String format = date.defaultFormat;
+		if (arguments.length > 4) {
+			format = constantInputFormat != null ? constantInputFormat : inputFormatArgument(arguments[4]);
+		}
+		long localMillis = date.localMillis(dateValue, unit, format);
+		if (localMillis == UNPARSABLE) {
+			return null;
+		}
+
+		int epochDay = PeriodRenderer.epochDay(localMillis);
+		BoundaryTable table = BoundaryTable.get();
+		int day = EpochDays.nthDayOfWeek(table.firstDay(unit, epochDay), table.lastDay(unit, epochDay), dayOfWeek,
+				ordinal);
+		if (day == EpochDays.NO_DAY) {
+			return null;
+		}
+
+		renderer.render(day, 0, null, false, PeriodRenderer.NO_INTERVAL);
+		outputDate.set(renderer.bytes(), 0, renderer.length());
+		return outputDate;
+	}
+
+	@Override
+	public String getDisplayString(String[] children) {
+		return getStandardDisplayString(NAME, children);
+	}
+
+	private void verifyOrdinalInspector(ObjectInspector ordinalInspector) throws UDFArgumentException {
+		if (ordinalInspector instanceof PrimitiveObjectInspector) {
+			switch (((PrimitiveObjectInspector) ordinalInspector).getPrimitiveCategory()) {
+			case BYTE:
+			case SHORT:
+			case INT:
+			case LONG:
+				this.ordinalInspector = (PrimitiveObjectInspector) ordinalInspector;
+				return;
+			default:
+				break;
+			}
+		}
+		throw new UDFArgumentTypeException(3, "Only integers are accepted for ordinal parameter but "
+				+ ordinalInspector.getTypeName() + " is passed as fourth argument");
+	}
+
+	private static int dayOfWeekArgument(DeferredObject argument) throws HiveException {
+		Object dayOfWeek = argument.get();
+		if (dayOfWeek == null) {
+			throw new UDFArgumentException("day_of_week cannot be null");
+		}
+		return dayOfWeek(PrimitiveObjectInspectorFactory.javaStringObjectInspector.getPrimitiveJavaObject(dayOfWeek));
+	}
+
+	/*
+	 * Returns the ISO day of week, 1 (Monday) to 7 (Sunday), of a full or three letter day name.
+	 */
+	private static int dayOfWeek(String name) throws UDFArgumentException {
+		String dayOfWeek = name.trim().toUpperCase();
+		for (int i = 0; i < DAYS_OF_WEEK.length; i++) {
+			if (dayOfWeek.equals(DAYS_OF_WEEK[i]) || dayOfWeek.equals(DAYS_OF_WEEK[i].substring(0, 3))) {
+				return i + 1;
+			}
+		}
+		throw new UDFArgumentException(
+				"day_of_week can only be one of MONDAY, TUESDAY, WEDNESDAY, THURSDAY, FRIDAY, SATURDAY, SUNDAY");
+	}
+
+	private int ordinalArgument(DeferredObject argument) throws HiveException {
+		Object ordinal = argument.get();
+		if (ordinal == null) {
+			throw new UDFArgumentException("ordinal cannot be null");
+		}
+		return ordinal(ordinal);
+	}
+
+	private int ordinal(Object ordinalValue) throws UDFArgumentException {
+		long ordinal = PrimitiveObjectInspectorUtils.getLong(ordinalValue, ordinalInspector);
+		if (ordinal == 0 || ordinal < -MAX_ORDINAL || ordinal > MAX_ORDINAL) {
+			throw new UDFArgumentException("Invalid ordinal " + ordinal + ". It should be in between 1 and "
+					+ MAX_ORDINAL + ", or -1 and -" + MAX_ORDINAL + " from the end");
+		}
+		return (int) ordinal;
+	}
+
+}
@@ -0,0 +1,143 @@
+package com.bigdata.hive.udf.impl;
+
+import org.apache.hadoop.hive.ql.exec.Description;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.serde2.io.DoubleWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.StringObjectInspector;
+import org.apache.hadoop.io.IntWritable;
+
+import com.bigdata.hive.udf.engine.BoundaryTable;
+import com.bigdata.hive.udf.engine.PeriodRenderer;
+import com.bigdata.hive.udf.engine.TimeUnit;
+
+/*
+ * Where a date falls within its period, in days: ELAPSED since the first day (0 on it), REMAINING
+ * until the last day (0 on it) and LENGTH of the period as INT, or FRACTION of the period elapsed
+ * at the date's time of day as DOUBLE. Both boundaries come from one pass over the boundary table,
+ * with no date rendered or parsed back; dates are read as in first_day_of.
+ *
+ * The measure decides the return type and so must be a literal. A null date is a null result.
+ */
+@Description(name = PeriodDaysUDF.NAME, value = PeriodDaysUDF.VALUE, extended = PeriodDaysUDF.EXTENDED)
+public class PeriodDaysUDF extends AbstractPeriodUDF {
+
+	// shared with the adapters for other Hive versions
+	public static final String NAME = "period_days";
+	public static final String VALUE = "_FUNC_(unit, input_date, measure, input_format) - Returns the days elapsed in, remaining in or length of the unit (day/week/month/quarter/year) "
+			+ "containing input_date, or the fraction of it elapsed.";
+	public static final String EXTENDED = "unit accepts value DAY, WEEK, MONTH, QUARTER, YEAR.\n "
+			+ "input_date is a string, timestamp, date or epoch millis.\n "
+			+ "measure is a literal, one of ELAPSED, REMAINING, LENGTH (INT) or FRACTION (DOUBLE).\n "
+			+ "input_format is a string which can be specified if input date is in format other than default 'yyyy-MM-dd HH:mm:ss' or 'yyyy-MM-dd', or SECONDS/MILLIS/MICROS for epoch dates.\n "
+			+ "Example:\n " + "  > SELECT _FUNC_('MONTH', '2011-02-22', 'REMAINING');\n" + "  6";
+
+	private static final String FUNCTION_USAGE = "Invalid function usage: Correct Usage => FunctionName(<String> unit, <String/Timestamp/Date/Bigint> date, <String> measure, <String> input_format[optional])";
+
+	/*
+	 * What period_days returns for a date.
+	 */
+	public enum Measure {
+		ELAPSED,
+		REMAINING,
+		LENGTH,
+		FRACTION
+	}
+
+	private transient DateArgument date;
+	private transient Measure measure;
+	private transient TimeUnit constantUnit;
+	private transient String constantInputFormat;
+
+	private final IntWritable days = new IntWritable();
+	private final DoubleWritable fraction = new DoubleWritable();
+
+	@Override
+	public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
+		if (arguments.length < 3 || arguments.length > 4) {
+			throw new UDFArgumentLengthException(FUNCTION_USAGE);
+		}
+		if (!(arguments[0] instanceof StringObjectInspector)) {
+			throw new UDFArgumentTypeException(0, "Only String is accepted for unit parameter but "
+					+ arguments[0].getTypeName() + " is passed as first argument");
+		}
+		if (!isDateInspector(arguments[1])) {
+			throw new UDFArgumentTypeException(1,
+					"Only STRING/TIMESTAMP/DATEWRITABLE/BIGINT are accepted for date parameter but "
+							+ arguments[1].getTypeName() + " is passed as second argument");
+		}
+		String measureName = constantString(arguments[2]);
+		if (!(arguments[2] instanceof StringObjectInspector) || measureName == null) {
+			throw new UDFArgumentTypeException(2, "Only a String literal is accepted for measure parameter but "
+					+ arguments[2].getTypeName() + " is passed as third argument");
+		}
+		try {
+			measure = Measure.valueOf(measureName.trim().toUpperCase());
+		} catch (IllegalArgumentException exception) {
+			throw new UDFArgumentException("measure can only be one of ELAPSED, REMAINING, LENGTH, FRACTION");
+		}
+		if (arguments.length > 3 && !(arguments[3] instanceof StringObjectInspector)) {
+			throw new UDFArgumentTypeException(3, "Only String is accepted for input_format parameter but "
+					+ arguments[3].getTypeName() + " is passed as fourth argument");
+		}
+
+		initializeSettings();
+		date = new DateArgument(arguments[1]);
+
+		constantUnit = constantUnit(arguments[0]);
+		constantInputFormat = arguments.length > 3 ? constantString(arguments[3]) : null;
+
+		return measure == Measure.FRACTION ? PrimitiveObjectInspectorFactory.writableDoubleObjectInspector
+				: PrimitiveObjectInspectorFactory.writableIntObjectInspector;
+	}
+
+	@Override
+	public Object evaluate(DeferredObject[] arguments) throws HiveException {
+		TimeUnit unit = constantUnit != null ? constantUnit : unitArgument(arguments[0]);
+
+		Object dateValue = arguments[1].get();
+		if (dateValue == null) {
+			return null;
+		}
+
+		String format = date.defaultFormat;
+		if (arguments.length > 3) {
+			format = constantInputFormat != null ? constantInputFormat : inputFormatArgument(arguments[3]);
+		}
+		long localMillis = date.localMillis(dateValue, unit, format);
+		if (localMillis == UNPARSABLE) {
+			return null;
+		}
+
+		int epochDay = PeriodRenderer.epochDay(localMillis);
+		BoundaryTable table = BoundaryTable.get();
+		int firstDay = table.firstDay(unit, epochDay);
+		int lastDay = table.lastDay(unit, epochDay);
+		switch (measure) {
+		case ELAPSED:
+			days.set(epochDay - firstDay);
+			return days;
+		case REMAINING:
+			days.set(lastDay - epochDay);
+			return days;
+		case LENGTH:
+			days.set(lastDay - firstDay + 1);
+			return days;
+		default:
+			long elapsedMillis = (epochDay - firstDay) * (long) PeriodRenderer.MILLIS_PER_DAY
+					+ PeriodRenderer.millisOfDay(localMillis);
+			fraction.set(elapsedMillis / ((lastDay - firstDay + 1) * (double) PeriodRenderer.MILLIS_PER_DAY));
+			return fraction;
+		}
+	}
+
+	@Override
+	public String getDisplayString(String[] children) {
+		return getStandardDisplayString(NAME, children);
+	}
+
+}
@@ -0,0 +1,137 @@
+package com.bigdata.hive.udf.impl;
+
+import java.nio.charset.StandardCharsets;
+
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorExpressionDescriptor;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.exec.vector.expressions.NullUtil;
+import org.apache.hadoop.hive.ql.exec.vector.expressions.VectorExpression;
+
+import com.bigdata.hive.udf.engine.EpochDays;
+import com.bigdata.hive.udf.engine.TimeUnit;
+
+/*
+ * periods_between(unit, date1, date2) over two DATE columns of a vectorized row batch, with the
+ * unit a literal. DATE columns are epoch days in a LongColumnVector, so the period indices are
+ * taken straight from them with no writable or string in between, and a repeating column is
+ * indexed once per batch. Nulls propagate as in Hive's own column arithmetic.
+ *
+ * VectorizationContext picks this through PeriodsBetweenUDF's @VectorizedExpressions for functions
+ * it treats as native, which includes permanent ones; an unknown unit fails here and leaves the
+ * expression to the row-mode UDF, which reports it.
+ */
+public class PeriodsBetweenDates extends VectorExpression {
+
+	private static final long serialVersionUID = 1L;
+
+	private TimeUnit unit;
+	private int colNum1;
+	private int colNum2;
+	private int outputColumn;
+
+	public PeriodsBetweenDates(byte[] unit, int colNum1, int colNum2, int outputColumn) {
+		this.unit = TimeUnit.valueOf(new String(unit, StandardCharsets.UTF_8).trim().toUpperCase());
+		this.colNum1 = colNum1;
+		this.colNum2 = colNum2;
+		this.outputColumn = outputColumn;
+	}
+
+	public PeriodsBetweenDates() {
+		super();
+	}
+
+	@Override
+	public void evaluate(VectorizedRowBatch batch) {
+		if (childExpressions != null) {
+			super.evaluateChildren(batch);
+		}
+
+		LongColumnVector input1 = (LongColumnVector) batch.cols[colNum1];
+		LongColumnVector input2 = (LongColumnVector) batch.cols[colNum2];
+		LongColumnVector output = (LongColumnVector) batch.cols[outputColumn];
+		int[] sel = batch.selected;
+		int n = batch.size;
+		if (n == 0) {
+			return;
+		}
+
+		long[] from = input1.vector;
+		long[] to = input2.vector;
+		long[] periods = output.vector;
+
+		output.isRepeating = input1.isRepeating && input2.isRepeating
+				|| input1.isRepeating && !input1.noNulls && input1.isNull[0]
+				|| input2.isRepeating && !input2.noNulls && input2.isNull[0];
+		NullUtil.propagateNullsColCol(input1, input2, output, sel, n, batch.selectedInUse);
+
+		if (input1.isRepeating && input2.isRepeating) {
+			periods[0] = index(to[0]) - index(from[0]);
+		} else if (input1.isRepeating) {
+			int fromIndex = index(from[0]);
+			if (batch.selectedInUse) {
+				for (int j = 0; j != n; j++) {
+					int i = sel[j];
+					periods[i] = index(to[i]) - fromIndex;
+				}
+			} else {
+				for (int i = 0; i != n; i++) {
+					periods[i] = index(to[i]) - fromIndex;
+				}
+			}
+		} else if (input2.isRepeating) {
+			int toIndex = index(to[0]);
+			if (batch.selectedInUse) {
+				for (int j = 0; j != n; j++) {
+					int i = sel[j];
+					periods[i] = toIndex - index(from[i]);
+				}
+			} else {
+				for (int i = 0; i != n; i++) {
+					periods[i] = toIndex - index(from[i]);
+				}
+			}
+		} else {
+			if (batch.selectedInUse) {
+				for (int j = 0; j != n; j++) {
+					int i = sel[j];
+					periods[i] = index(to[i]) - index(from[i]);
+				}
+			} else {
+				for (int i = 0; i != n; i++) {
+					periods[i] = index(to[i]) - index(from[i]);
+				}
+			}
+		}
+
+		// null rows hold whatever the input had, which may not be a valid day
+		NullUtil.setNullDataEntriesLong(output, batch.selectedInUse, sel, n);
+	}
+
+	private int index(long epochDay) {
+		return EpochDays.periodIndex(unit, (int) epochDay);
+	}
+
+	@Override
+	public int getOutputColumn() {
+		return outputColumn;
+	}
+
+	@Override
+	public String getOutputType() {
+		return "long";
+	}
+
+	@Override
+	public VectorExpressionDescriptor.Descriptor getDescriptor() {
+		return new VectorExpressionDescriptor.Builder().setMode(VectorExpressionDescriptor.Mode.PROJECTION)
+				.setNumArguments(3)
+				.setArgumentTypes(VectorExpressionDescriptor.ArgumentType.STRING_FAMILY,
+						VectorExpressionDescriptor.ArgumentType.DATE, VectorExpressionDescriptor.ArgumentType.DATE)
+				.setInputExpressionTypes(VectorExpressionDescriptor.InputExpressionType.SCALAR,
+						VectorExpressionDescriptor.InputExpressionType.COLUMN,
+						VectorExpressionDescriptor.InputExpressionType.COLUMN)
+				.build();
+	}
+
+}
@@ -0,0 +1,113 @@
+package com.bigdata.hive.udf.impl;
+
+import org.apache.hadoop.hive.ql.exec.Description;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedExpressions;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.StringObjectInspector;
+import org.apache.hadoop.io.IntWritable;
+
+import com.bigdata.hive.udf.engine.EpochDays;
+import com.bigdata.hive.udf.engine.PeriodRenderer;
+import com.bigdata.hive.udf.engine.TimeUnit;
+
+/*
+ * Whole units from the period containing the first date to the one containing the second, as an
+ * INT: periods_between('MONTH', '2011-01-31', '2011-02-01') is 1. Dates are read as in
+ * first_day_of, with the input format, if given, applying to both.
+ *
+ * A null date is a null result. Over two DATE columns with a literal unit, vectorized plans run
+ * PeriodsBetweenDates instead.
+ */
+@Description(name = PeriodsBetweenUDF.NAME, value = PeriodsBetweenUDF.VALUE, extended = PeriodsBetweenUDF.EXTENDED)
+@VectorizedExpressions({ PeriodsBetweenDates.class })
+public class PeriodsBetweenUDF extends AbstractPeriodUDF {
+
+	// shared with the adapters for other Hive versions
+	public static final String NAME = "periods_between";
+	public static final String VALUE = "_FUNC_(unit, date1, date2, input_format) - Returns the number of units (day/week/month/quarter/year) "
+			+ "from the one containing date1 to the one containing date2.";
+	public static final String EXTENDED = "unit accepts value DAY, WEEK, MONTH, QUARTER, YEAR.\n "
+			+ "date1 and date2 are strings, timestamps, dates or epoch millis.\n "
+			+ "input_format is a string which can be specified if the dates are in format other than default 'yyyy-MM-dd HH:mm:ss' or 'yyyy-MM-dd', or SECONDS/MILLIS/MICROS for epoch dates.\n "
+			+ "Example:\n " + "  > SELECT _FUNC_('MONTH', '2011-01-31', '2011-03-01');\n" + "  2";
+
+	private static final String FUNCTION_USAGE = "Invalid function usage: Correct Usage => FunctionName(<String> unit, <String/Timestamp/Date/Bigint> date1, <String/Timestamp/Date/Bigint> date2, <String> input_format[optional])";
+
+	private transient DateArgument from;
+	private transient DateArgument to;
+	private transient TimeUnit constantUnit;
+	private transient String constantInputFormat;
+
+	private final IntWritable periods = new IntWritable();
+
+	@Override
+	public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
+		if (arguments.length < 3 || arguments.length > 4) {
+			throw new UDFArgumentLengthException(FUNCTION_USAGE);
+		}
+		if (!(arguments[0] instanceof StringObjectInspector)) {
+			throw new UDFArgumentTypeException(0, "Only String is accepted for unit parameter but "
+					+ arguments[0].getTypeName() + " is passed as first argument");
+		}
+		verifyDateInspector(arguments, 1, "second");
+		verifyDateInspector(arguments, 2, "third");
+		if (arguments.length > 3 && !(arguments[3] instanceof StringObjectInspector)) {
+			throw new UDFArgumentTypeException(3, "Only String is accepted for input_format parameter but "
+					+ arguments[3].getTypeName() + " is passed as fourth argument");
+		}
+
+		initializeSettings();
+		from = new DateArgument(arguments[1]);
+		to = new DateArgument(arguments[2]);
+
+		constantUnit = constantUnit(arguments[0]);
+		constantInputFormat = arguments.length > 3 ? constantString(arguments[3]) : null;
+
+		return PrimitiveObjectInspectorFactory.writableIntObjectInspector;
+	}
+
+	@Override
+	public Object evaluate(DeferredObject[] arguments) throws HiveException {
+		TimeUnit unit = constantUnit != null ? constantUnit : unitArgument(arguments[0]);
+
+		Object first = arguments[1].get();
+		Object second = arguments[2].get();
+		if (first == null || second == null) {
+			return null;
+		}
+
+		String format = null;
+		if (arguments.length > 3) {
+			format = constantInputFormat != null ? constantInputFormat : inputFormatArgument(arguments[3]);
+		}
+		long fromMillis = from.localMillis(first, unit, format != null ? format : from.defaultFormat);
+		long toMillis = to.localMillis(second, unit, format != null ? format : to.defaultFormat);
+		if (fromMillis == UNPARSABLE || toMillis == UNPARSABLE) {
+			return null;
+		}
+
+		periods.set(EpochDays.periodIndex(unit, PeriodRenderer.epochDay(toMillis))
+				- EpochDays.periodIndex(unit, PeriodRenderer.epochDay(fromMillis)));
+		return periods;
+	}
+
+	@Override
+	public String getDisplayString(String[] children) {
+		return getStandardDisplayString(NAME, children);
+	}
+
+	private static void verifyDateInspector(ObjectInspector[] arguments, int position, String ordinal)
+			throws UDFArgumentException {
+		if (!isDateInspector(arguments[position])) {
+			throw new UDFArgumentTypeException(position,
+					"Only STRING/TIMESTAMP/DATEWRITABLE/BIGINT are accepted for date parameter but "
+							+ arguments[position].getTypeName() + " is passed as " + ordinal + " argument");
+		}
+	}
+
+}
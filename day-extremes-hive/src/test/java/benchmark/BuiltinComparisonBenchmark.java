@@ -0,0 +1,213 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.hadoop.hive.ql.exec.ExprNodeEvaluator;
+import org.apache.hadoop.hive.ql.exec.ExprNodeEvaluatorFactory;
+import org.apache.hadoop.hive.ql.exec.FunctionRegistry;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizationContext;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.exec.vector.expressions.VectorExpression;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.plan.ExprNodeDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeGenericFuncDesc;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+
+import com.bigdata.hive.udf.impl.FirstDayOfTimeUnitUDF;
+import com.bigdata.hive.udf.impl.LastDayOfTimeUnitUDF;
+
+import benchmark.HiveExpressionHarness.Result;
+import benchmark.HiveExpressionHarness.SyntheticColumn;
+
+/*
+ * Compares first_day_of/last_day_of with the nearest expressions built from Hive's own functions
+ * (trunc, last_day, date_format, add_months) for MONTH, QUARTER and YEAR, on the harness's
+ * synthetic column. Every expression is first evaluated over all distinct values in both modes
+ * and must give the same string as the UDF; then each is timed in row mode and vectorized, with
+ * the UDF's rows/s and bytes/row as a ratio of the built-in's.
+ *
+ * Hive 1.2 has no quarter in trunc, so the quarter is add_months(trunc(d, 'YEAR'), ...) on
+ * (month(d) - 1) - (month(d) - 1) % 3. Nor does it vectorize any of these built-ins (only temporary functions
+ * get the row-at-a-time adaptor), so a vectorized query using them falls back to row mode: their
+ * vectorized line is measured in row mode and says so.
+ *
+ * Usage: BuiltinComparisonBenchmark [rows] [string|date|timestamp]
+ */
+public class BuiltinComparisonBenchmark {
+
+	private static final String[] UNITS = { "MONTH", "QUARTER", "YEAR" };
+
+	public static void main(String[] args) throws Exception {
+		long rows = args.length > 0 ? Long.parseLong(args[0]) : 5000000L;
+		String type = args.length > 1 ? args[1] : "date";
+
+		HiveExpressionHarness.startSession();
+		FunctionRegistry.registerTemporaryUDF("first_day_of", FirstDayOfTimeUnitUDF.class);
+		FunctionRegistry.registerTemporaryUDF("last_day_of", LastDayOfTimeUnitUDF.class);
+		SyntheticColumn column = new SyntheticColumn(type);
+
+		System.out.println(type + " column, " + rows + " rows per run; row* = not vectorized, run in row mode");
+		boolean parity = true;
+		for (String unit : UNITS) {
+			for (boolean first : new boolean[] { true, false }) {
+				String name = first ? "first_day_of" : "last_day_of";
+				ExprNodeDesc ours = call(name, HiveExpressionHarness.constant(unit), column.reference());
+				String label = name + "('" + unit + "', " + HiveExpressionHarness.COLUMN + ")";
+				Map<String, ExprNodeDesc> builtins = builtins(unit, first, column.reference());
+				parity &= checkParity(ours, builtins.values(), column);
+				for (String mode : new String[] { "row", "vectorized" }) {
+					Result base = run(mode, ours, column, rows);
+					print(mode, label, base, null);
+					for (ExprNodeDesc builtin : builtins.values()) {
+						boolean vectorized = "row".equals(mode) || vectorizable(builtin);
+						print(vectorized ? mode : "row*", builtin.getExprString(),
+								run(vectorized ? mode : "row", builtin, column, rows), base);
+					}
+				}
+			}
+		}
+		if (!parity) {
+			throw new IllegalStateException("built-in expressions disagree with the UDFs, see above");
+		}
+	}
+
+	/*
+	 * The built-in expressions giving the same yyyy-MM-dd string as the UDF.
+	 */
+	static Map<String, ExprNodeDesc> builtins(String unit, boolean first, ExprNodeDesc date) throws Exception {
+		Map<String, ExprNodeDesc> builtins = new LinkedHashMap<String, ExprNodeDesc>();
+		ExprNodeDesc year = call("trunc", date, HiveExpressionHarness.constant("YEAR"));
+		if ("MONTH".equals(unit)) {
+			if (first) {
+				builtins.put("trunc", call("trunc", date, HiveExpressionHarness.constant("MM")));
+				builtins.put("date_format", call("date_format", date, HiveExpressionHarness.constant("yyyy-MM-01")));
+			} else {
+				builtins.put("last_day", call("last_day", date));
+			}
+		} else if ("QUARTER".equals(unit)) {
+			ExprNodeDesc month = call("-", call("month", date), HiveExpressionHarness.constant(1));
+			ExprNodeDesc months = call("-", month, call("%", month, HiveExpressionHarness.constant(3)));
+			if (first) {
+				builtins.put("add_months", call("add_months", year, months));
+			} else {
+				builtins.put("last_day", call("last_day",
+						call("add_months", year, call("+", months, HiveExpressionHarness.constant(2)))));
+			}
+		} else {
+			if (first) {
+				builtins.put("trunc", year);
+				builtins.put("date_format", call("date_format", date, HiveExpressionHarness.constant("yyyy-01-01")));
+			} else {
+				builtins.put("date_format", call("date_format", date, HiveExpressionHarness.constant("yyyy-12-31")));
+			}
+		}
+		return builtins;
+	}
+
+	static ExprNodeGenericFuncDesc call(String name, ExprNodeDesc... children) throws Exception {
+		return ExprNodeGenericFuncDesc.newInstance(FunctionRegistry.getFunctionInfo(name).getGenericUDF(), name,
+				new ArrayList<ExprNodeDesc>(Arrays.asList(children)));
+	}
+
+	private static Result run(String mode, ExprNodeDesc expression, SyntheticColumn column, long rows)
+			throws Exception {
+		if ("row".equals(mode)) {
+			HiveExpressionHarness.runRowMode(expression, column, rows / 5);
+			return HiveExpressionHarness.runRowMode(expression, column, rows);
+		}
+		HiveExpressionHarness.runVectorized(expression, column, rows / 5);
+		return HiveExpressionHarness.runVectorized(expression, column, rows);
+	}
+
+	private static boolean checkParity(ExprNodeDesc ours, Iterable<ExprNodeDesc> builtins, SyntheticColumn column)
+			throws Exception {
+		List<String> expected = rowOutputs(ours, column);
+		boolean same = check(ours, "vectorized", expected, vectorizedOutputs(ours, column));
+		for (ExprNodeDesc builtin : builtins) {
+			same &= check(builtin, "row", expected, rowOutputs(builtin, column));
+			if (vectorizable(builtin)) {
+				same &= check(builtin, "vectorized", expected, vectorizedOutputs(builtin, column));
+			}
+		}
+		return same;
+	}
+
+	private static boolean check(ExprNodeDesc expression, String mode, List<String> expected, List<String> actual) {
+		int mismatches = 0;
+		int firstMismatch = -1;
+		for (int i = 0; i < expected.size(); i++) {
+			if (!expected.get(i).equals(actual.get(i))) {
+				if (mismatches++ == 0) {
+					firstMismatch = i;
+				}
+			}
+		}
+		if (mismatches == 0) {
+			return true;
+		}
+		System.out.println(String.format(Locale.ROOT, "  MISMATCH %s %s: %d of %d rows, first %s instead of %s",
+				mode, expression.getExprString(), mismatches, expected.size(), actual.get(firstMismatch),
+				expected.get(firstMismatch)));
+		return false;
+	}
+
+	private static boolean vectorizable(ExprNodeDesc expression) {
+		try {
+			new VectorizationContext("check", Collections.singletonList(HiveExpressionHarness.COLUMN))
+					.getVectorExpression(expression);
+			return true;
+		} catch (HiveException e) {
+			return false;
+		}
+	}
+
+	private static List<String> rowOutputs(ExprNodeDesc expression, SyntheticColumn column) throws Exception {
+		ExprNodeEvaluator<?> evaluator = ExprNodeEvaluatorFactory.get(expression);
+		evaluator.initialize(ObjectInspectorFactory.getStandardStructObjectInspector(
+				Collections.singletonList(HiveExpressionHarness.COLUMN),
+				Collections.singletonList(column.inspector())));
+		List<String> outputs = new ArrayList<String>();
+		for (Object[] row : column.rows()) {
+			outputs.add(String.valueOf(evaluator.evaluate(row)));
+		}
+		return outputs;
+	}
+
+	private static List<String> vectorizedOutputs(ExprNodeDesc expression, SyntheticColumn column) throws Exception {
+		VectorizationContext context = new VectorizationContext("parity",
+				Collections.singletonList(HiveExpressionHarness.COLUMN));
+		VectorExpression vectorExpression = context.getVectorExpression(expression);
+		VectorizedRowBatch batch = column.batch(context.getScratchColumnTypeMap());
+		ColumnVector output = batch.cols[vectorExpression.getOutputColumn()];
+		List<String> outputs = new ArrayList<String>();
+		for (int offset = 0; offset < HiveExpressionHarness.DISTINCT_VALUES; offset += VectorizedRowBatch.DEFAULT_SIZE) {
+			column.fill(batch, offset);
+			batch.size = VectorizedRowBatch.DEFAULT_SIZE;
+			output.reset();
+			vectorExpression.evaluate(batch);
+			for (int i = 0; i < batch.size; i++) {
+				outputs.add(HiveExpressionHarness.describe(output, i));
+			}
+		}
+		return outputs;
+	}
+
+	private static void print(String mode, String expression, Result measured, Result base) {
+		String line = String.format(Locale.ROOT, "  %-10s %-70s %,12.0f rows/s %8.1f bytes/row", mode, expression, measured.rowsPerSecond(), measured.bytesPerRow());
+		if (base != null) {
+			line += String.format(Locale.ROOT, "   udf %5.2fx rows/s, %s bytes",
+					base.rowsPerSecond() / measured.rowsPerSecond(),
+					measured.bytesPerRow() == 0 ? "-" : String.format(Locale.ROOT, "%5.2fx",
+							base.bytesPerRow() / measured.bytesPerRow()));
+		}
+		System.out.println(line);
+	}
+
+}
@@ -0,0 +1,279 @@
+package benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.ql.exec.ExprNodeEvaluator;
+import org.apache.hadoop.hive.ql.exec.ExprNodeEvaluatorFactory;
+import org.apache.hadoop.hive.ql.exec.FunctionRegistry;
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DecimalColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.TimestampUtils;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizationContext;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.exec.vector.expressions.VectorExpression;
+import org.apache.hadoop.hive.ql.plan.ExprNodeColumnDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeConstantDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeGenericFuncDesc;
+import org.apache.hadoop.hive.ql.session.SessionState;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
+import org.apache.hadoop.hive.serde2.io.DateWritable;
+import org.apache.hadoop.hive.serde2.io.TimestampWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.apache.hadoop.io.Text;
+
+import com.bigdata.hive.udf.impl.FirstDayOfTimeUnitUDF;
+import com.bigdata.hive.udf.impl.LastDayOfTimeUnitUDF;
+
+/*
+ * Runs UDF expressions through Hive's own row-mode ExprNodeGenericFuncEvaluator and through the
+ * VectorExpression that VectorizationContext picks for them, over the same synthetic rows, and
+ * reports rows/s and bytes allocated per row for both. This includes the ObjectInspector and
+ * converter costs that benchmarks of evaluate() alone miss.
+ *
+ * Usage: HiveExpressionHarness [rows] [string|date|timestamp] [unit] [first|last]
+ */
+public class HiveExpressionHarness {
+
+	public static final String COLUMN = "d";
+	static final int DISTINCT_VALUES = 4096;
+	private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+	private static com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory
+			.getThreadMXBean();
+
+	public static void main(String[] args) throws Exception {
+		long rows = args.length > 0 ? Long.parseLong(args[0]) : 5000000L;
+		String type = args.length > 1 ? args[1] : "date";
+		String unit = args.length > 2 ? args[2] : "MONTH";
+		boolean first = args.length <= 3 || "first".equalsIgnoreCase(args[3]);
+
+		startSession();
+		GenericUDF udf = first ? new FirstDayOfTimeUnitUDF() : new LastDayOfTimeUnitUDF();
+		String name = first ? "first_day_of" : "last_day_of";
+		FunctionRegistry.registerTemporaryUDF(name, udf.getClass());
+
+		SyntheticColumn column = new SyntheticColumn(type);
+		ExprNodeGenericFuncDesc expression = function(name, udf, TypeInfoFactory.stringTypeInfo,
+				constant(unit), column.reference());
+
+		System.out.println(name + "('" + unit + "', " + type + ") over " + rows + " rows");
+		runRowMode(expression, column, rows / 5);
+		print("row", runRowMode(expression, column, rows));
+		runVectorized(expression, column, rows / 5);
+		print("vectorized", runVectorized(expression, column, rows));
+	}
+
+	/*
+	 * Hive resolves custom functions through the session registry, which does not need a metastore.
+	 */
+	public static void startSession() {
+		if (SessionState.get() == null) {
+			SessionState.setCurrentSessionState(new SessionState(new HiveConf()));
+		}
+	}
+
+	public static ExprNodeGenericFuncDesc function(String name, GenericUDF udf, TypeInfo returnType,
+			ExprNodeDesc... children) {
+		return new ExprNodeGenericFuncDesc(returnType, udf, name, new ArrayList<ExprNodeDesc>(Arrays.asList(children)));
+	}
+
+	public static ExprNodeConstantDesc constant(Object value) {
+		TypeInfo typeInfo = value instanceof Integer ? TypeInfoFactory.intTypeInfo
+				: value instanceof Boolean ? TypeInfoFactory.booleanTypeInfo : TypeInfoFactory.stringTypeInfo;
+		return new ExprNodeConstantDesc(typeInfo, value);
+	}
+
+	public static Result runRowMode(ExprNodeDesc expression, SyntheticColumn column, long rows) throws Exception {
+		ExprNodeEvaluator<?> evaluator = ExprNodeEvaluatorFactory.get(expression);
+		evaluator.initialize(ObjectInspectorFactory.getStandardStructObjectInspector(
+				Collections.singletonList(COLUMN), Collections.singletonList(column.inspector())));
+
+		Object[][] pool = column.rows();
+		Object last = null;
+		long allocated = allocatedBytes();
+		long start = System.nanoTime();
+		for (long i = 0; i < rows; i++) {
+			last = evaluator.evaluate(pool[(int) (i % DISTINCT_VALUES)]);
+		}
+		long elapsed = System.nanoTime() - start;
+		return new Result(rows, elapsed, allocatedBytes() - allocated, String.valueOf(last));
+	}
+
+	public static Result runVectorized(ExprNodeDesc expression, SyntheticColumn column, long rows) throws Exception {
+		VectorizationContext context = new VectorizationContext("harness", Collections.singletonList(COLUMN));
+		VectorExpression vectorExpression = context.getVectorExpression(expression);
+		VectorizedRowBatch batch = column.batch(context.getScratchColumnTypeMap());
+		ColumnVector output = batch.cols[vectorExpression.getOutputColumn()];
+
+		long allocated = allocatedBytes();
+		long start = System.nanoTime();
+		long done = 0;
+		for (int offset = 0; done < rows; offset = (offset + 1) % (DISTINCT_VALUES / VectorizedRowBatch.DEFAULT_SIZE)) {
+			column.fill(batch, offset * VectorizedRowBatch.DEFAULT_SIZE);
+			batch.size = (int) Math.min(VectorizedRowBatch.DEFAULT_SIZE, rows - done);
+			output.reset();
+			vectorExpression.evaluate(batch);
+			done += batch.size;
+		}
+		long elapsed = System.nanoTime() - start;
+		return new Result(rows, elapsed, allocatedBytes() - allocated,
+				vectorExpression.getClass().getSimpleName() + " -> " + describe(output, batch.size - 1));
+	}
+
+	public static void print(String mode, Result measured) {
+		System.out.println(String.format(Locale.ROOT, "  %-10s %,14.0f rows/s %10.1f bytes/row   [%s]", mode,
+				measured.rowsPerSecond(), measured.bytesPerRow(), measured.sample));
+	}
+
+	static String describe(ColumnVector vector, int row) {
+		int index = vector.isRepeating ? 0 : row;
+		if (!vector.noNulls && vector.isNull[index]) {
+			return "NULL";
+		}
+		if (vector instanceof BytesColumnVector) {
+			BytesColumnVector bytes = (BytesColumnVector) vector;
+			return new String(bytes.vector[index], bytes.start[index], bytes.length[index], StandardCharsets.UTF_8);
+		}
+		if (vector instanceof LongColumnVector) {
+			return String.valueOf(((LongColumnVector) vector).vector[index]);
+		}
+		return vector.getClass().getSimpleName();
+	}
+
+	private static long allocatedBytes() {
+		return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	public static final class Result {
+
+		final long rows;
+		final long nanos;
+		final long allocatedBytes;
+		final String sample;
+
+		Result(long rows, long nanos, long allocatedBytes, String sample) {
+			this.rows = rows;
+			this.nanos = nanos;
+			this.allocatedBytes = allocatedBytes;
+			this.sample = sample;
+		}
+
+		public double rowsPerSecond() {
+			return rows / (nanos / 1e9);
+		}
+
+		public double bytesPerRow() {
+			return (double) allocatedBytes / rows;
+		}
+	}
+
+	/*
+	 * A single date column with a pool of distinct values spread over 30 years, available both as
+	 * row objects and as column vectors.
+	 */
+	public static final class SyntheticColumn {
+
+		private final String type;
+		private final Object[][] rows = new Object[DISTINCT_VALUES][];
+		private final long[] epochDays = new long[DISTINCT_VALUES];
+		private final long[] timestampNanos = new long[DISTINCT_VALUES];
+		private final byte[][] text = new byte[DISTINCT_VALUES][];
+
+		public SyntheticColumn(String type) {
+			this.type = type.toLowerCase(Locale.ROOT);
+			long base = Timestamp.valueOf("1990-01-01 00:00:00").getTime();
+			for (int i = 0; i < DISTINCT_VALUES; i++) {
+				long millis = base + (i * 2671L % 10957) * MILLIS_PER_DAY + (i * 7919L % 86400) * 1000L;
+				epochDays[i] = DateWritable.millisToDays(millis);
+				timestampNanos[i] = TimestampUtils.getTimeNanoSec(new Timestamp(millis));
+				String value = new Timestamp(millis).toString().substring(0, 10);
+				text[i] = value.getBytes(StandardCharsets.UTF_8);
+				rows[i] = new Object[] { writable(millis, value) };
+			}
+		}
+
+		public ExprNodeColumnDesc reference() {
+			return new ExprNodeColumnDesc(typeInfo(), COLUMN, "synthetic", false);
+		}
+
+		public TypeInfo typeInfo() {
+			return TypeInfoFactory.getPrimitiveTypeInfo(type);
+		}
+
+		ObjectInspector inspector() {
+			return PrimitiveObjectInspectorFactory.getPrimitiveWritableObjectInspector(
+					TypeInfoFactory.getPrimitiveTypeInfo(type));
+		}
+
+		Object[][] rows() {
+			return rows;
+		}
+
+		private Object writable(long millis, String value) {
+			if ("date".equals(type)) {
+				return new DateWritable(new java.sql.Date(millis));
+			}
+			if ("timestamp".equals(type)) {
+				return new TimestampWritable(new Timestamp(millis));
+			}
+			return new Text(value);
+		}
+
+		VectorizedRowBatch batch(Map<Integer, String> scratchColumns) {
+			int columns = 1 + scratchColumns.size();
+			VectorizedRowBatch batch = new VectorizedRowBatch(columns);
+			batch.cols[0] = "string".equals(type) ? new BytesColumnVector() : new LongColumnVector();
+			for (Map.Entry<Integer, String> scratch : scratchColumns.entrySet()) {
+				batch.cols[scratch.getKey()] = vector(scratch.getValue());
+			}
+			batch.projectionSize = 1;
+			batch.projectedColumns = new int[] { 0 };
+			return batch;
+		}
+
+		void fill(VectorizedRowBatch batch, int offset) {
+			ColumnVector vector = batch.cols[0];
+			for (int i = 0; i < VectorizedRowBatch.DEFAULT_SIZE; i++) {
+				int index = offset + i;
+				if ("string".equals(type)) {
+					((BytesColumnVector) vector).setRef(i, text[index], 0, text[index].length);
+				} else if ("date".equals(type)) {
+					((LongColumnVector) vector).vector[i] = epochDays[index];
+				} else {
+					((LongColumnVector) vector).vector[i] = timestampNanos[index];
+				}
+			}
+		}
+
+		private static ColumnVector vector(String typeName) {
+			String name = typeName.toLowerCase(Locale.ROOT);
+			if (VectorizationContext.isStringFamily(name)) {
+				return new BytesColumnVector();
+			}
+			if (VectorizationContext.isFloatFamily(name)) {
+				return new DoubleColumnVector();
+			}
+			if (VectorizationContext.isDecimalFamily(name)) {
+				return new DecimalColumnVector(38, 18);
+			}
+			return new LongColumnVector();
+		}
+	}
+
+}
@@ -0,0 +1,133 @@
+package benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredJavaObject;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredObject;
+import org.apache.hadoop.hive.serde2.io.DateWritable;
+import org.apache.hadoop.hive.serde2.io.TimestampWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+
+/*
+ * Measures the cold-start cost a short task pays before its first row: every run is a fresh JVM
+ * that loads Hive's own classes first, then loads the UDF class, initializes it and evaluates one
+ * row. Reports the median and worst run of each phase in milliseconds.
+ *
+ * Usage: StartupBenchmark [runs] [string|date|timestamp] [udf class]
+ */
+public class StartupBenchmark {
+
+	private static final String[] PHASES = { "jvm start to main", "hive classes", "udf class load", "initialize",
+			"first row", "class load to first row" };
+
+	public static void main(String[] args) throws Exception {
+		int runs = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+		String type = args.length > 1 ? args[1] : "date";
+		String udfClass = args.length > 2 ? args[2] : "com.bigdata.hive.udf.impl.FirstDayOfTimeUnitUDF";
+
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		List<double[]> samples = new ArrayList<double[]>();
+		for (int run = 0; run < runs; run++) {
+			Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+					Probe.class.getName(), type, udfClass).redirectErrorStream(true).start();
+			double[] phases = null;
+			BufferedReader reader = new BufferedReader(
+					new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+				if (line.startsWith(Probe.PREFIX)) {
+					String[] values = line.substring(Probe.PREFIX.length()).trim().split(" ");
+					phases = new double[values.length];
+					for (int i = 0; i < values.length; i++) {
+						phases[i] = Double.parseDouble(values[i]);
+					}
+				}
+			}
+			if (process.waitFor() != 0 || phases == null) {
+				throw new IllegalStateException("startup probe failed in run " + run);
+			}
+			samples.add(phases);
+		}
+
+		System.out.println(udfClass + " with a " + type + " argument, " + runs + " cold JVMs");
+		for (int phase = 0; phase < PHASES.length; phase++) {
+			List<Double> values = new ArrayList<Double>();
+			for (double[] sample : samples) {
+				values.add(sample[phase]);
+			}
+			Collections.sort(values);
+			System.out.println(String.format(Locale.ROOT, "  %-24s median %8.1f ms   max %8.1f ms", PHASES[phase],
+					values.get(values.size() / 2), values.get(values.size() - 1)));
+		}
+	}
+
+	/*
+	 * Runs in the child JVM and prints the phase timings on one line.
+	 */
+	public static class Probe {
+
+		static final String PREFIX = "startup-phases:";
+
+		public static void main(String[] args) throws Exception {
+			long mainMillis = System.currentTimeMillis();
+			long start = System.nanoTime();
+
+			// a task has Hive loaded long before the UDF, keep that out of the UDF's numbers
+			ObjectInspector[] inspectors = { PrimitiveObjectInspectorFactory.javaStringObjectInspector,
+					dateInspector(args[0]) };
+			DeferredObject[] row = { new DeferredJavaObject("MONTH"), new DeferredJavaObject(dateValue(args[0])) };
+			Class.forName(GenericUDF.class.getName());
+			long hiveLoaded = System.nanoTime();
+
+			GenericUDF udf = (GenericUDF) Class.forName(args[1]).getDeclaredConstructor().newInstance();
+			long classLoaded = System.nanoTime();
+			udf.initialize(inspectors);
+			long initialized = System.nanoTime();
+			Object result = udf.evaluate(row);
+			long firstRow = System.nanoTime();
+
+			if (result == null) {
+				throw new IllegalStateException("no result");
+			}
+			double jvmStart = mainMillis - ManagementFactory.getRuntimeMXBean().getStartTime();
+			System.out.println(PREFIX + " " + Arrays.toString(new double[] { jvmStart, millis(start, hiveLoaded),
+					millis(hiveLoaded, classLoaded), millis(classLoaded, initialized), millis(initialized, firstRow),
+					millis(hiveLoaded, firstRow) }).replaceAll("[\\[\\],]", ""));
+			System.exit(0);
+		}
+
+		private static double millis(long from, long to) {
+			return (to - from) / 1e6;
+		}
+
+		private static ObjectInspector dateInspector(String type) {
+			if ("string".equals(type)) {
+				return PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+			}
+			return "date".equals(type) ? PrimitiveObjectInspectorFactory.writableDateObjectInspector
+					: PrimitiveObjectInspectorFactory.writableTimestampObjectInspector;
+		}
+
+		private static Object dateValue(String type) {
+			if ("string".equals(type)) {
+				return "2011-02-22";
+			}
+			Timestamp timestamp = Timestamp.valueOf("2011-02-22 10:11:12");
+			return "date".equals(type) ? new DateWritable(new java.sql.Date(timestamp.getTime()))
+					: new TimestampWritable(timestamp);
+		}
+
+	}
+
+}
@@ -0,0 +1,195 @@
+package unit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.hadoop.fs.RawLocalFileSystem;
+import org.apache.hadoop.hive.ql.exec.MapredContext;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredObject;
+import org.apache.hadoop.hive.serde2.io.DateWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.JobConf;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import com.bigdata.hive.udf.impl.AbstractBusinessDayOfTimeUnitUDF;
+import com.bigdata.hive.udf.impl.FirstBusinessDayOfTimeUnitUDF;
+import com.bigdata.hive.udf.impl.LastBusinessDayOfTimeUnitUDF;
+
+import model.DeferredArgument;
+
+public class BusinessDayOfTimeUnitUDFTest {
+
+	private FirstBusinessDayOfTimeUnitUDF firstBusinessDayUDF = new FirstBusinessDayOfTimeUnitUDF();
+	private LastBusinessDayOfTimeUnitUDF lastBusinessDayUDF = new LastBusinessDayOfTimeUnitUDF();
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Rule
+	public ExpectedException expectedException = ExpectedException.none();
+
+	@Before
+	public void loadCalendars() throws Exception {
+		File file = temporaryFolder.newFile("holidays.csv");
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write("NYSE,2011-01-17\nNYSE,2011-12-26\nLSE,2011-01-03\nLSE,2011-12-26\nLSE,2011-12-27\n"
+					.getBytes(StandardCharsets.UTF_8));
+		} finally {
+			out.close();
+		}
+		JobConf conf = new JobConf();
+		conf.set("dayextremes.holiday.calendars", file.getPath());
+		firstBusinessDayUDF.configure(MapredContext.init(true, conf));
+		lastBusinessDayUDF.configure(MapredContext.init(true, conf));
+	}
+
+	@Test
+	public void shouldGetTheFirstAndLastBusinessDayOfThePeriod() throws Exception {
+		// 2011-01-01 is a Saturday
+		assertThat(businessDay(firstBusinessDayUDF, "MONTH", "2011-01-22", "NYSE"), is("2011-01-03"));
+		assertThat(businessDay(firstBusinessDayUDF, "QUARTER", "2011-02-22", "lse"), is("2011-01-04"));
+		// 2011-12-31 is a Saturday
+		assertThat(businessDay(lastBusinessDayUDF, "YEAR", "2011-02-22", "NYSE"), is("2011-12-30"));
+		assertThat(businessDay(lastBusinessDayUDF, "WEEK", "2011-12-27", "LSE"), is("2011-12-30"));
+		assertThat(businessDay(firstBusinessDayUDF, "WEEK", "2011-12-27", "LSE"), is("2011-12-28"));
+		assertThat(businessDay(firstBusinessDayUDF, "DAY", "2011-12-27", "NYSE"), is("2011-12-27"));
+	}
+
+	@Test
+	public void shouldReturnNullWhenThePeriodHasNoBusinessDay() throws Exception {
+		ObjectInspector[] objectInspector = new ObjectInspector[3];
+		objectInspector[0] = literal("DAY");
+		objectInspector[1] = PrimitiveObjectInspectorFactory.writableDateObjectInspector;
+		objectInspector[2] = literal("NYSE");
+		lastBusinessDayUDF.initialize(objectInspector);
+
+		DeferredObject[] arguments = new DeferredObject[3];
+		// 2011-12-26, a holiday
+		arguments[1] = new DeferredArgument<DateWritable>(new DateWritable(15334));
+		assertThat(lastBusinessDayUDF.evaluate(arguments), is(nullValue()));
+
+		arguments[1] = new DeferredArgument<DateWritable>(null);
+		assertThat(lastBusinessDayUDF.evaluate(arguments), is(nullValue()));
+
+		assertThat(lastBusinessDayUDF.getDisplayString(new String[] { "'DAY'", "d", "'NYSE'" }),
+				is("last_business_day_of('DAY', d, 'NYSE')"));
+	}
+
+	@Test
+	public void shouldThrowExceptionForUnknownCalendar() throws Exception {
+		ObjectInspector[] objectInspector = new ObjectInspector[3];
+		objectInspector[0] = literal("MONTH");
+		objectInspector[1] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[2] = literal("TSE");
+		// the calendars of the job may not be loaded where the query is compiled
+		firstBusinessDayUDF.initialize(objectInspector);
+
+		expectedException.expect(UDFArgumentException.class);
+		expectedException.expectMessage(
+				"Unknown holiday calendar TSE, calendars are loaded from dayextremes.holiday.calendars");
+		firstBusinessDayUDF.evaluate(new DeferredObject[] { null, new DeferredArgument<String>("2011-02-22"), null });
+	}
+
+	@Test
+	public void shouldReadCalendarsThroughTheFileSystemOfTheirPath() throws Exception {
+		File file = temporaryFolder.newFile("remote-holidays.csv");
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write("TSE,2011-02-01\n".getBytes(StandardCharsets.UTF_8));
+		} finally {
+			out.close();
+		}
+		JobConf conf = new JobConf();
+		conf.set("fs.calendars.impl", CalendarFileSystem.class.getName());
+		conf.setBoolean("fs.calendars.impl.disable.cache", true);
+		conf.set("dayextremes.holiday.calendars", "calendars://" + file.getPath());
+		FirstBusinessDayOfTimeUnitUDF udf = new FirstBusinessDayOfTimeUnitUDF();
+		udf.configure(MapredContext.init(true, conf));
+
+		ObjectInspector[] objectInspector = new ObjectInspector[3];
+		objectInspector[0] = literal("MONTH");
+		objectInspector[1] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[2] = literal("TSE");
+		udf.initialize(objectInspector);
+
+		DeferredObject[] arguments = { null, new DeferredArgument<String>("2011-02-22"), null };
+		// 2011-02-01 is a holiday
+		assertThat(udf.evaluate(arguments).toString(), is("2011-02-02"));
+	}
+
+	@Test
+	public void shouldKeepTheCalendarsOfItsOwnFile() throws Exception {
+		// two sessions naming different files with a calendar of the same name
+		FirstBusinessDayOfTimeUnitUDF nyse = calendarUDF("nyse.csv", "EXCHANGE,2011-01-03\n");
+		FirstBusinessDayOfTimeUnitUDF lse = calendarUDF("lse.csv", "EXCHANGE,2011-01-03\nEXCHANGE,2011-01-04\n");
+
+		// 2011-01-01 is a Saturday
+		assertThat(businessDay(nyse, "MONTH", "2011-01-22", "EXCHANGE"), is("2011-01-04"));
+		assertThat(businessDay(lse, "MONTH", "2011-01-22", "EXCHANGE"), is("2011-01-05"));
+		assertThat(businessDay(nyse, "MONTH", "2011-01-22", "EXCHANGE"), is("2011-01-04"));
+		assertThat(businessDay(firstBusinessDayUDF, "MONTH", "2011-01-22", "NYSE"), is("2011-01-03"));
+	}
+
+	private FirstBusinessDayOfTimeUnitUDF calendarUDF(String name, String calendars) throws Exception {
+		File file = temporaryFolder.newFile(name);
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(calendars.getBytes(StandardCharsets.UTF_8));
+		} finally {
+			out.close();
+		}
+		JobConf conf = new JobConf();
+		conf.set("dayextremes.holiday.calendars", file.getPath());
+		FirstBusinessDayOfTimeUnitUDF udf = new FirstBusinessDayOfTimeUnitUDF();
+		udf.configure(MapredContext.init(true, conf));
+		return udf;
+	}
+
+	private static String businessDay(AbstractBusinessDayOfTimeUnitUDF udf, String unit, String date, String calendar)
+			throws Exception {
+		ObjectInspector[] objectInspector = new ObjectInspector[3];
+		objectInspector[0] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[1] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[2] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		udf.initialize(objectInspector);
+
+		DeferredObject[] arguments = new DeferredObject[3];
+		arguments[0] = new DeferredArgument<String>(unit);
+		arguments[1] = new DeferredArgument<String>(date);
+		arguments[2] = new DeferredArgument<String>(calendar);
+		return ((Text) udf.evaluate(arguments)).toString();
+	}
+
+	/*
+	 * The local file system under a scheme of its own, standing for HDFS: only readable through
+	 * the FileSystem API.
+	 */
+	public static class CalendarFileSystem extends RawLocalFileSystem {
+
+		@Override
+		public URI getUri() {
+			return URI.create("calendars:///");
+		}
+	}
+
+	private static ObjectInspector literal(String value) {
+		return PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(
+				TypeInfoFactory.stringTypeInfo, new Text(value));
+	}
+
+}
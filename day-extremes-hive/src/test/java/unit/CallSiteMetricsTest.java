@@ -0,0 +1,155 @@
+package unit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredObject;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.junit.Test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import com.bigdata.hive.udf.impl.FirstDayOfTimeUnitUDF;
+import com.bigdata.hive.udf.metrics.CallSiteMetrics;
+import com.bigdata.hive.udf.metrics.FlightEvents;
+import com.bigdata.hive.udf.metrics.LatencyHistogram;
+
+import model.DeferredArgument;
+
+public class CallSiteMetricsTest {
+
+	@Test
+	public void shouldReportPercentilesWithinBucketPrecision() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long nanos = 1; nanos <= 100000; nanos++) {
+			histogram.record(nanos);
+		}
+
+		assertWithinBucket(histogram.percentile(0.5), 50000);
+		assertWithinBucket(histogram.percentile(0.99), 99000);
+		assertWithinBucket(histogram.percentile(0.999), 99900);
+		assertWithinBucket(histogram.max(), 100000);
+		assertThat(histogram.count(), is(100000L));
+	}
+
+	@Test
+	public void shouldShareOneMBeanPerSignatureUntilTheLastInstanceCloses() throws Exception {
+		// a function name of its own, as instances of other tests are never closed
+		SharedCallSiteUDF first = new SharedCallSiteUDF();
+		SharedCallSiteUDF second = new SharedCallSiteUDF();
+		ObjectInspector[] inspectors = { PrimitiveObjectInspectorFactory.javaStringObjectInspector,
+				PrimitiveObjectInspectorFactory.javaStringObjectInspector };
+		first.initialize(inspectors);
+		second.initialize(inspectors);
+		DeferredObject[] arguments = { new DeferredArgument<String>("MONTH"),
+				new DeferredArgument<String>("2011-02-22") };
+
+		for (int i = 0; i < 3000; i++) {
+			first.evaluate(arguments);
+		}
+		second.evaluate(arguments);
+
+		// registration happens in the background
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = CallSiteMetrics.objectName("SharedCallSiteUDF", "SharedCallSiteUDF(string, string)");
+		for (int attempt = 0; attempt < 100 && !server.isRegistered(name); attempt++) {
+			Thread.sleep(50);
+		}
+		ObjectName pattern = new ObjectName(CallSiteMetrics.DOMAIN + ":type=CallSite,function=\"SharedCallSiteUDF\",*");
+		assertThat(server.queryNames(pattern, null).size(), is(1));
+		assertThat(server.getAttribute(name, "CodePath"), is((Object) "string/printer"));
+		// rows 1, 1025 and 2049 of the first instance and row 1 of the second
+		assertThat(server.getAttribute(name, "SampledRows"), is((Object) 4L));
+		assertThat(server.getAttribute(name, "Rows"), is((Object) 2050L));
+		// the first row of each instance renders, the later samples repeat its output
+		assertThat(server.getAttribute(name, "CacheHitRatio"), is((Object) 0.5));
+
+		first.close();
+		assertThat(server.isRegistered(name), is(true));
+		second.close();
+		assertThat(server.isRegistered(name), is(false));
+	}
+
+	@Test
+	public void shouldRecordFlightEventsOnceEnabled() throws Exception {
+		// the events are only in the multi-release jar
+		assumeTrue(FlightEvents.available());
+		FirstDayOfTimeUnitUDF udf = new FirstDayOfTimeUnitUDF();
+		udf.initialize(new ObjectInspector[] { PrimitiveObjectInspectorFactory.javaStringObjectInspector,
+				PrimitiveObjectInspectorFactory.javaStringObjectInspector,
+				PrimitiveObjectInspectorFactory.javaStringObjectInspector });
+		DeferredObject[] iso = { new DeferredArgument<String>("MONTH"), new DeferredArgument<String>("2011-02-22"),
+				new DeferredArgument<String>("yyyy-MM-dd") };
+		DeferredObject[] slashed = { new DeferredArgument<String>("MONTH"),
+				new DeferredArgument<String>("22/02/2011"), new DeferredArgument<String>("dd/MM/yyyy") };
+
+		Recording recording = new Recording();
+		recording.enable("com.bigdata.hive.udf.Evaluate");
+		recording.enable("com.bigdata.hive.udf.CacheMiss");
+		recording.enable("com.bigdata.hive.udf.FormatEviction");
+		recording.start();
+		for (int i = 0; i < 1500; i++) {
+			udf.evaluate(iso);
+		}
+		for (int i = 0; i < 1500; i++) {
+			udf.evaluate(slashed);
+		}
+		recording.stop();
+		Path file = Files.createTempFile("dayextremes", ".jfr");
+		List<RecordedEvent> events;
+		try {
+			recording.dump(file);
+			events = RecordingFile.readAllEvents(file);
+		} finally {
+			recording.close();
+			Files.delete(file);
+			udf.close();
+		}
+
+		List<RecordedEvent> samples = named(events, "com.bigdata.hive.udf.Evaluate");
+		assertThat(samples.size(), is(3));
+		assertThat(samples.get(0).getString("function"), is("first_day_of"));
+		assertThat(samples.get(0).getString("unit"), is("MONTH"));
+		assertThat(samples.get(0).getString("inputType"), is("string"));
+		assertThat(samples.get(2).getLong("rows"), is(1024L));
+		// one parse per format, the eviction empties the date cache
+		List<RecordedEvent> misses = named(events, "com.bigdata.hive.udf.CacheMiss");
+		assertThat(misses.size(), is(2));
+		assertThat(misses.get(1).getString("pattern"), is("dd/MM/yyyy"));
+		List<RecordedEvent> evictions = named(events, "com.bigdata.hive.udf.FormatEviction");
+		assertThat(evictions.size(), is(1));
+		assertThat(evictions.get(0).getString("evictedPattern"), is("yyyy-MM-dd"));
+		assertThat(evictions.get(0).getString("pattern"), is("dd/MM/yyyy"));
+	}
+
+	private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+		List<RecordedEvent> named = new ArrayList<RecordedEvent>();
+		for (RecordedEvent event : events) {
+			if (name.equals(event.getEventType().getName())) {
+				named.add(event);
+			}
+		}
+		return named;
+	}
+
+	public static class SharedCallSiteUDF extends FirstDayOfTimeUnitUDF {
+	}
+
+	private static void assertWithinBucket(long actual, long expected) {
+		assertThat(actual + " is within 12.5% of " + expected, Math.abs(actual - expected) <= expected / 8, is(true));
+	}
+
+}
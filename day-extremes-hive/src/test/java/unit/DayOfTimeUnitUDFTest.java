@@ -2,20 +2,30 @@ package unit;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
+import java.sql.Timestamp;
 import java.util.Date;
 
+import org.apache.hadoop.hive.common.type.HiveIntervalDayTime;
+import org.apache.hadoop.hive.ql.exec.MapredContext;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
 import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredObject;
 import org.apache.hadoop.hive.serde2.io.DateWritable;
+import org.apache.hadoop.hive.serde2.io.HiveIntervalDayTimeWritable;
 import org.apache.hadoop.hive.serde2.io.TimestampWritable;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
 import org.apache.hadoop.io.BooleanWritable;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.JobConf;
 import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -32,7 +42,7 @@ import model.DeferredArgument;
 
 public class DayOfTimeUnitUDFTest {
 
-	private static final String FUNCTION_USAGE = "Invalid function usage: Correct Usage => FunctionName(<String> unit, <String/Timestamp/Date> date, <String> input_format[optional], <String> output_format[optional], <boolean> include_interval [optional], <String> interval[optional])";
+	private static final String FUNCTION_USAGE = "Invalid function usage: Correct Usage => FunctionName(<String> unit, <String/Timestamp/Date> date, <String> input_format[optional], <String> output_format[optional], <boolean> include_interval [optional], <String> interval[optional], <Int> offset[optional])";
 	private FirstDayOfTimeUnitUDF firstDayOfTimeUnitUDF = new FirstDayOfTimeUnitUDF();
 	private LastDayOfTimeUnitUDF lastDayOfTimeUnitUDF = new LastDayOfTimeUnitUDF();
 
@@ -56,11 +66,11 @@ public class DayOfTimeUnitUDFTest {
 	}
 
 	@Test
-	public void shouldThrowExceptionForMoreThan6ArgumentsPassed() throws Exception {
+	public void shouldThrowExceptionForMoreThan7ArgumentsPassed() throws Exception {
 		expectedException.expect(UDFArgumentLengthException.class);
 		expectedException.expectMessage(FUNCTION_USAGE);
 
-		firstDayOfTimeUnitUDF.initialize(new ObjectInspector[7]);
+		firstDayOfTimeUnitUDF.initialize(new ObjectInspector[8]);
 	}
 
 	@Test
@@ -102,11 +112,11 @@ public class DayOfTimeUnitUDFTest {
 	public void shouldThrowExceptionIfDateValueIsNotOfCorrectType() throws Exception {
 		expectedException.expect(UDFArgumentTypeException.class);
 		expectedException.expectMessage(
-				"Only STRING/TIMESTAMP/DATEWRITABLE are accepted for date parameter but bigint is passed as second argument");
+				"Only STRING/TIMESTAMP/DATEWRITABLE/BIGINT are accepted for date parameter but double is passed as second argument");
 
 		ObjectInspector[] objectInspector = new ObjectInspector[2];
 		objectInspector[0] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
-		objectInspector[1] = PrimitiveObjectInspectorFactory.javaLongObjectInspector;
+		objectInspector[1] = PrimitiveObjectInspectorFactory.javaDoubleObjectInspector;
 
 		lastDayOfTimeUnitUDF.initialize(objectInspector);
 	}
@@ -258,10 +268,10 @@ public class DayOfTimeUnitUDFTest {
 	}
 
 	@Test
-	public void shouldThrowExceptionIfIntervalIsNotString() throws Exception {
+	public void shouldThrowExceptionIfIntervalIsNotStringIntervalOrInteger() throws Exception {
 		expectedException.expect(UDFArgumentException.class);
-		expectedException
-				.expectMessage("Only String is accepted for interval parameter but int is passed as sixth argument");
+		expectedException.expectMessage(
+				"Only String, interval_day_time or integer seconds are accepted for interval parameter but double is passed as sixth argument");
 
 		ObjectInspector[] objectInspector = new ObjectInspector[6];
 		objectInspector[0] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
@@ -269,7 +279,7 @@ public class DayOfTimeUnitUDFTest {
 		objectInspector[2] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
 		objectInspector[3] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
 		objectInspector[4] = PrimitiveObjectInspectorFactory.javaBooleanObjectInspector;
-		objectInspector[5] = PrimitiveObjectInspectorFactory.javaIntObjectInspector;
+		objectInspector[5] = PrimitiveObjectInspectorFactory.javaDoubleObjectInspector;
 
 		lastDayOfTimeUnitUDF.initialize(objectInspector);
 	}
@@ -496,6 +506,63 @@ public class DayOfTimeUnitUDFTest {
 		assertThat(outputDate.toString(), is("2011-01-22 23:22:22"));
 	}
 
+	@Test
+	public void shouldGetFirstDayWithAnIntervalDayTimeLiteral() throws Exception {
+
+		ObjectInspector[] objectInspector = new ObjectInspector[6];
+		objectInspector[0] = literal("DAY");
+		objectInspector[1] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[2] = literal("yyyy-MM-dd");
+		objectInspector[3] = literal("yyyy-MM-dd HH:mm:ss");
+		objectInspector[4] = PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(
+				TypeInfoFactory.booleanTypeInfo, new BooleanWritable(true));
+		// INTERVAL '23:22:22.5' HOUR TO SECOND
+		objectInspector[5] = PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(
+				TypeInfoFactory.intervalDayTimeTypeInfo,
+				new HiveIntervalDayTimeWritable(new HiveIntervalDayTime(0, 23, 22, 22, 500000000)));
+
+		firstDayOfTimeUnitUDF.initialize(objectInspector);
+
+		DeferredObject[] arguments = new DeferredObject[6];
+		arguments[1] = new DeferredArgument<String>("2011-01-22");
+		Text outputDate = (Text) firstDayOfTimeUnitUDF.evaluate(arguments);
+
+		assertThat(outputDate.toString(), is("2011-01-22 23:22:22"));
+		assertThat(firstDayOfTimeUnitUDF.getDisplayString(null), is(
+				"Gets first day of day/week/month/quarter/year for a provided date with optional interval timestamp value can be added. [evaluator: string/DAY/first/interval/printer]"));
+	}
+
+	@Test
+	public void shouldGetLastDayWithIntegerSecondsOfTheDay() throws Exception {
+
+		ObjectInspector[] objectInspector = new ObjectInspector[6];
+		objectInspector[0] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[1] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[2] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[3] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[4] = PrimitiveObjectInspectorFactory.javaBooleanObjectInspector;
+		objectInspector[5] = PrimitiveObjectInspectorFactory.javaIntObjectInspector;
+
+		lastDayOfTimeUnitUDF.initialize(objectInspector);
+
+		DeferredObject[] arguments = new DeferredObject[6];
+		arguments[0] = new DeferredArgument<String>("MONTH");
+		arguments[1] = new DeferredArgument<String>("2011-01-22");
+		arguments[2] = new DeferredArgument<String>("yyyy-MM-dd");
+		arguments[3] = new DeferredArgument<String>("yyyy-MM-dd HH:mm:ss");
+		arguments[4] = new DeferredArgument<BooleanWritable>(new BooleanWritable(true));
+		arguments[5] = new DeferredArgument<Integer>(84142);
+		assertThat(lastDayOfTimeUnitUDF.evaluate(arguments).toString(), is("2011-01-31 23:22:22"));
+
+		arguments[5] = new DeferredArgument<Integer>(0);
+		assertThat(lastDayOfTimeUnitUDF.evaluate(arguments).toString(), is("2011-01-31 00:00:00"));
+
+		expectedException.expect(UDFArgumentException.class);
+		expectedException.expectMessage("Invalid interval value 86400s. It should be in between 0 and 86399 seconds");
+		arguments[5] = new DeferredArgument<Integer>(86400);
+		lastDayOfTimeUnitUDF.evaluate(arguments);
+	}
+
 	@Test
 	public void shouldGetFirstDayWithIntervalIfBothIntervalFormatSpecifiedAndIncludeIntervalIsTrue() throws Exception {
 
@@ -954,6 +1021,28 @@ public class DayOfTimeUnitUDFTest {
 		assertThat(outputDate.toString(), is("1986-09-30"));
 	}
 
+	@Test
+	public void shouldGetLastDayOfFourthQuarter() throws Exception {
+
+		ObjectInspector[] objectInspector = new ObjectInspector[4];
+		objectInspector[0] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[1] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[2] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[3] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+
+		lastDayOfTimeUnitUDF.initialize(objectInspector);
+
+		DeferredObject[] arguments = new DeferredObject[4];
+		arguments[0] = new DeferredArgument<String>("QUARTER");
+		arguments[1] = new DeferredArgument<String>("1986-11-02");
+		arguments[2] = new DeferredArgument<String>("yyyy-MM-dd");
+		arguments[3] = new DeferredArgument<String>("yyyy-MM-dd");
+
+		Text outputDate = (Text) lastDayOfTimeUnitUDF.evaluate(arguments);
+
+		assertThat(outputDate.toString(), is("1986-12-31"));
+	}
+
 	@Test
 	public void shouldGetLastDayOfQuarterWithInterval() throws Exception {
 
@@ -1076,4 +1165,316 @@ public class DayOfTimeUnitUDFTest {
 		assertThat(outputDate.toString(), is("1970-12-31 23:22:22"));
 	}
 
+	@Test
+	public void shouldChooseEvaluatorForDateTypeWhenOtherArgumentsAreLiterals() throws Exception {
+
+		ObjectInspector[] objectInspector = new ObjectInspector[6];
+		objectInspector[0] = literal("QUARTER");
+		objectInspector[1] = PrimitiveObjectInspectorFactory.writableDateObjectInspector;
+		objectInspector[2] = literal("yyyy-MM-dd");
+		objectInspector[3] = literal("yyyy-MM-dd");
+		objectInspector[4] = PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(
+				TypeInfoFactory.booleanTypeInfo, new BooleanWritable(true));
+		objectInspector[5] = literal("23:22:22");
+
+		lastDayOfTimeUnitUDF.initialize(objectInspector);
+
+		DeferredObject[] arguments = new DeferredObject[6];
+		arguments[1] = new DeferredArgument<DateWritable>(new DateWritable(40));
+		Text outputDate = (Text) lastDayOfTimeUnitUDF.evaluate(arguments);
+
+		assertThat(outputDate.toString(), is("1970-03-31 23:22:22"));
+		assertThat(lastDayOfTimeUnitUDF.getDisplayString(null), is(
+				"Gets last day of day/week/month/quarter/year for a provided date with optional interval timestamp value can be added. [evaluator: date/QUARTER/last/interval/printer]"));
+	}
+
+	@Test
+	public void shouldChooseGenericEvaluatorWhenUnitIsAColumn() throws Exception {
+
+		ObjectInspector[] objectInspector = new ObjectInspector[3];
+		objectInspector[0] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[1] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[2] = literal("dd-MM-yyyy");
+
+		firstDayOfTimeUnitUDF.initialize(objectInspector);
+
+		DeferredObject[] arguments = new DeferredObject[3];
+		arguments[0] = new DeferredArgument<String>("MONTH");
+		arguments[1] = new DeferredArgument<String>("22-01-2011");
+		Text outputDate = (Text) firstDayOfTimeUnitUDF.evaluate(arguments);
+
+		assertThat(outputDate.toString(), is("2011-01-01"));
+		assertThat(firstDayOfTimeUnitUDF.getDisplayString(null), is(
+				"Gets first day of day/week/month/quarter/year for a provided date with optional interval timestamp value can be added. [evaluator: generic]"));
+	}
+
+	@Test
+	public void shouldReturnNullForUnparsableDateInNullErrorMode() throws Exception {
+		JobConf conf = new JobConf();
+		conf.set("dayextremes.error.mode", "null");
+		firstDayOfTimeUnitUDF.configure(MapredContext.init(true, conf));
+
+		ObjectInspector[] objectInspector = new ObjectInspector[2];
+		objectInspector[0] = literal("MONTH");
+		objectInspector[1] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		firstDayOfTimeUnitUDF.initialize(objectInspector);
+
+		DeferredObject[] arguments = new DeferredObject[2];
+		arguments[1] = new DeferredArgument<String>("22/01/2011");
+
+		assertThat(firstDayOfTimeUnitUDF.evaluate(arguments) == null, is(true));
+	}
+
+	@Test
+	public void shouldThrowExceptionForUnparsableDateInFailErrorMode() throws Exception {
+		expectedException.expect(UDFArgumentException.class);
+		expectedException.expectMessage("Unparsable date 22/01/2011 for input format yyyy-MM-dd");
+
+		JobConf conf = new JobConf();
+		conf.set("dayextremes.error.mode", "fail");
+		firstDayOfTimeUnitUDF.configure(MapredContext.init(true, conf));
+
+		ObjectInspector[] objectInspector = new ObjectInspector[2];
+		objectInspector[0] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[1] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		firstDayOfTimeUnitUDF.initialize(objectInspector);
+
+		DeferredObject[] arguments = new DeferredObject[2];
+		arguments[0] = new DeferredArgument<String>("MONTH");
+		arguments[1] = new DeferredArgument<String>("22/01/2011");
+		firstDayOfTimeUnitUDF.evaluate(arguments);
+	}
+
+	@Test
+	public void shouldThrowExceptionForAnInvalidErrorMode() throws Exception {
+		expectedException.expect(UDFArgumentException.class);
+		expectedException.expectMessage(
+				"Invalid dayextremes.error.mode nul, it can only be one of CURRENT_TIME, NULL, FAIL");
+
+		JobConf conf = new JobConf();
+		conf.set("dayextremes.error.mode", "nul");
+		firstDayOfTimeUnitUDF.configure(MapredContext.init(true, conf));
+
+		ObjectInspector[] objectInspector = new ObjectInspector[2];
+		objectInspector[0] = literal("MONTH");
+		objectInspector[1] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		firstDayOfTimeUnitUDF.initialize(objectInspector);
+	}
+
+	@Test
+	public void shouldThrowExceptionForAnUnknownTimeZoneOrNumber() throws Exception {
+		for (String[] setting : new String[][] { { "dayextremes.timezone", "Asia/Kolkatta",
+				"Unknown time zone Asia/Kolkatta in dayextremes.timezone" },
+				{ "dayextremes.cache.capacity", "1k", "Invalid dayextremes.cache.capacity 1k, it should be an integer" } }) {
+			JobConf conf = new JobConf();
+			conf.set(setting[0], setting[1]);
+			FirstDayOfTimeUnitUDF udf = new FirstDayOfTimeUnitUDF();
+			udf.configure(MapredContext.init(true, conf));
+
+			ObjectInspector[] objectInspector = new ObjectInspector[2];
+			objectInspector[0] = literal("MONTH");
+			objectInspector[1] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+			try {
+				udf.initialize(objectInspector);
+				fail("expected " + setting[2]);
+			} catch (UDFArgumentException exception) {
+				assertThat(exception.getMessage(), is(setting[2]));
+			}
+		}
+	}
+
+	@Test
+	public void shouldTakeTimestampBoundariesInTheConfiguredTimeZone() throws Exception {
+		JobConf conf = new JobConf();
+		conf.set("dayextremes.timezone", "Asia/Kolkata");
+		firstDayOfTimeUnitUDF.configure(MapredContext.init(true, conf));
+
+		ObjectInspector[] objectInspector = new ObjectInspector[2];
+		objectInspector[0] = literal("MONTH");
+		objectInspector[1] = PrimitiveObjectInspectorFactory.writableTimestampObjectInspector;
+		firstDayOfTimeUnitUDF.initialize(objectInspector);
+
+		DeferredObject[] arguments = new DeferredObject[2];
+		// 2011-04-01 04:00 in Kolkata
+		arguments[1] = new DeferredArgument<TimestampWritable>(
+				new TimestampWritable(new Timestamp(new DateTime(2011, 3, 31, 22, 30, 0, 0, DateTimeZone.UTC).getMillis())));
+		Text outputDate = (Text) firstDayOfTimeUnitUDF.evaluate(arguments);
+
+		assertThat(outputDate.toString(), is("2011-04-01"));
+	}
+
+	@Test
+	public void shouldTakeBigintDatesAsEpochMillisByDefault() throws Exception {
+		JobConf conf = new JobConf();
+		conf.set("dayextremes.timezone", "UTC");
+		firstDayOfTimeUnitUDF.configure(MapredContext.init(true, conf));
+
+		ObjectInspector[] objectInspector = new ObjectInspector[2];
+		objectInspector[0] = literal("MONTH");
+		objectInspector[1] = PrimitiveObjectInspectorFactory.writableLongObjectInspector;
+		firstDayOfTimeUnitUDF.initialize(objectInspector);
+
+		DeferredObject[] arguments = new DeferredObject[2];
+		// 2011-02-23 22:30 UTC
+		arguments[1] = new DeferredArgument<LongWritable>(new LongWritable(1298500200000L));
+		Text outputDate = (Text) firstDayOfTimeUnitUDF.evaluate(arguments);
+
+		assertThat(outputDate.toString(), is("2011-02-01"));
+		assertThat(firstDayOfTimeUnitUDF.getDisplayString(null), is(
+				"Gets first day of day/week/month/quarter/year for a provided date with optional interval timestamp value can be added. [evaluator: bigint/MONTH/first/no-interval/printer]"));
+	}
+
+	@Test
+	public void shouldTakeTheEpochUnitOfBigintDatesAsInputFormat() throws Exception {
+		JobConf conf = new JobConf();
+		conf.set("dayextremes.timezone", "Asia/Kolkata");
+		lastDayOfTimeUnitUDF.configure(MapredContext.init(true, conf));
+
+		ObjectInspector[] objectInspector = new ObjectInspector[3];
+		objectInspector[0] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[1] = PrimitiveObjectInspectorFactory.javaLongObjectInspector;
+		objectInspector[2] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		lastDayOfTimeUnitUDF.initialize(objectInspector);
+
+		DeferredObject[] arguments = new DeferredObject[3];
+		arguments[0] = new DeferredArgument<String>("MONTH");
+		// 2011-03-31 22:30 UTC, April 1st in Kolkata
+		arguments[1] = new DeferredArgument<Long>(1301610600L);
+		arguments[2] = new DeferredArgument<String>("seconds");
+		assertThat(lastDayOfTimeUnitUDF.evaluate(arguments).toString(), is("2011-04-30"));
+
+		arguments[1] = new DeferredArgument<Long>(1301610600000000L);
+		arguments[2] = new DeferredArgument<String>("MICROS");
+		assertThat(lastDayOfTimeUnitUDF.evaluate(arguments).toString(), is("2011-04-30"));
+
+		// a microsecond before midnight of 1970-01-01 in Kolkata
+		arguments[0] = new DeferredArgument<String>("DAY");
+		arguments[1] = new DeferredArgument<Long>(-19800000001L);
+		assertThat(lastDayOfTimeUnitUDF.evaluate(arguments).toString(), is("1969-12-31"));
+
+		expectedException.expect(UDFArgumentException.class);
+		expectedException.expectMessage("input_format of a BIGINT date can only be one of SECONDS, MILLIS, MICROS, got yyyy-MM-dd");
+		arguments[2] = new DeferredArgument<String>("yyyy-MM-dd");
+		lastDayOfTimeUnitUDF.evaluate(arguments);
+	}
+
+	@Test
+	public void shouldFollowSortedDatesAcrossPeriodBoundaries() throws Exception {
+
+		ObjectInspector[] objectInspector = new ObjectInspector[2];
+		objectInspector[0] = literal("MONTH");
+		objectInspector[1] = PrimitiveObjectInspectorFactory.writableDateObjectInspector;
+		lastDayOfTimeUnitUDF.initialize(objectInspector);
+
+		DeferredObject[] arguments = new DeferredObject[2];
+		StringBuilder lastDays = new StringBuilder();
+		// 2011-01-30 to 2011-03-01
+		for (int epochDay = 14999; epochDay <= 15034; epochDay++) {
+			arguments[1] = new DeferredArgument<DateWritable>(new DateWritable(epochDay));
+			String lastDay = lastDayOfTimeUnitUDF.evaluate(arguments).toString();
+			if (lastDays.indexOf(lastDay) < 0) {
+				lastDays.append(lastDay).append(' ');
+			}
+		}
+
+		assertThat(lastDays.toString(), is("2011-01-31 2011-02-28 2011-03-31 "));
+	}
+
+	@Test
+	public void shouldRenderTheTimeOfEachRowWithinTheSamePeriod() throws Exception {
+
+		ObjectInspector[] objectInspector = new ObjectInspector[4];
+		objectInspector[0] = literal("MONTH");
+		objectInspector[1] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[2] = literal("yyyy-MM-dd HH:mm:ss");
+		objectInspector[3] = literal("yyyy-MM-dd HH:mm:ss");
+		firstDayOfTimeUnitUDF.initialize(objectInspector);
+
+		DeferredObject[] arguments = new DeferredObject[4];
+		arguments[1] = new DeferredArgument<String>("2011-01-22 10:11:12");
+		assertThat(firstDayOfTimeUnitUDF.evaluate(arguments).toString(), is("2011-01-01 10:11:12"));
+		arguments[1] = new DeferredArgument<String>("2011-01-23 10:11:12");
+		assertThat(firstDayOfTimeUnitUDF.evaluate(arguments).toString(), is("2011-01-01 10:11:12"));
+		arguments[1] = new DeferredArgument<String>("2011-01-23 23:45:45");
+		assertThat(firstDayOfTimeUnitUDF.evaluate(arguments).toString(), is("2011-01-01 23:45:45"));
+	}
+
+	@Test
+	public void shouldGetTheBoundaryOfAPeriodOffsetFromTheDate() throws Exception {
+
+		ObjectInspector[] objectInspector = new ObjectInspector[7];
+		objectInspector[0] = literal("QUARTER");
+		objectInspector[1] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[2] = literal("yyyy-MM-dd");
+		objectInspector[3] = literal("yyyy-MM-dd");
+		objectInspector[4] = PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(
+				TypeInfoFactory.booleanTypeInfo, new BooleanWritable(false));
+		objectInspector[5] = literal("00:00:00");
+		objectInspector[6] = PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(
+				TypeInfoFactory.intTypeInfo, new IntWritable(-2));
+		lastDayOfTimeUnitUDF.initialize(objectInspector);
+
+		DeferredObject[] arguments = new DeferredObject[7];
+		arguments[1] = new DeferredArgument<String>("2011-02-22");
+		assertThat(lastDayOfTimeUnitUDF.evaluate(arguments).toString(), is("2010-09-30"));
+		arguments[1] = new DeferredArgument<String>("2011-12-31");
+		assertThat(lastDayOfTimeUnitUDF.evaluate(arguments).toString(), is("2011-06-30"));
+		assertThat(lastDayOfTimeUnitUDF.getDisplayString(null), is(
+				"Gets last day of day/week/month/quarter/year for a provided date with optional interval timestamp value can be added. [evaluator: string/QUARTER/last/no-interval/printer/offset -2]"));
+	}
+
+	@Test
+	public void shouldTakeTheOffsetOfEachRow() throws Exception {
+
+		ObjectInspector[] objectInspector = new ObjectInspector[7];
+		objectInspector[0] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[1] = PrimitiveObjectInspectorFactory.writableDateObjectInspector;
+		objectInspector[2] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[3] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[4] = PrimitiveObjectInspectorFactory.javaBooleanObjectInspector;
+		objectInspector[5] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[6] = PrimitiveObjectInspectorFactory.javaLongObjectInspector;
+		firstDayOfTimeUnitUDF.initialize(objectInspector);
+
+		DeferredObject[] arguments = new DeferredObject[7];
+		arguments[0] = new DeferredArgument<String>("MONTH");
+		// 2011-03-15
+		arguments[1] = new DeferredArgument<DateWritable>(new DateWritable(15048));
+		arguments[2] = new DeferredArgument<String>("yyyy-MM-dd");
+		arguments[3] = new DeferredArgument<String>("yyyy-MM-dd");
+		arguments[4] = new DeferredArgument<BooleanWritable>(new BooleanWritable(false));
+		arguments[5] = new DeferredArgument<String>("00:00:00");
+		arguments[6] = new DeferredArgument<Long>(-1L);
+		assertThat(firstDayOfTimeUnitUDF.evaluate(arguments).toString(), is("2011-02-01"));
+		arguments[6] = new DeferredArgument<Long>(10L);
+		assertThat(firstDayOfTimeUnitUDF.evaluate(arguments).toString(), is("2012-01-01"));
+		arguments[0] = new DeferredArgument<String>("WEEK");
+		arguments[6] = new DeferredArgument<Long>(1L);
+		assertThat(firstDayOfTimeUnitUDF.evaluate(arguments).toString(), is("2011-03-21"));
+
+		expectedException.expect(UDFArgumentException.class);
+		expectedException.expectMessage("Invalid offset 100001. It should be in between -100000 and 100000");
+		arguments[6] = new DeferredArgument<Long>(100001L);
+		firstDayOfTimeUnitUDF.evaluate(arguments);
+	}
+
+	@Test
+	public void shouldThrowExceptionIfOffsetIsNotAnInteger() throws Exception {
+		expectedException.expect(UDFArgumentTypeException.class);
+		expectedException.expectMessage(
+				"Only integers are accepted for offset parameter but string is passed as seventh argument");
+
+		ObjectInspector[] objectInspector = new ObjectInspector[7];
+		for (int i = 0; i < objectInspector.length; i++) {
+			objectInspector[i] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		}
+		objectInspector[4] = PrimitiveObjectInspectorFactory.javaBooleanObjectInspector;
+		firstDayOfTimeUnitUDF.initialize(objectInspector);
+	}
+
+	private static ObjectInspector literal(String value) {
+		return PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(
+				TypeInfoFactory.stringTypeInfo, new Text(value));
+	}
+
 }
@@ -0,0 +1,201 @@
+package unit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredObject;
+import org.apache.hadoop.hive.serde2.io.DateWritable;
+import org.apache.hadoop.hive.serde2.io.TimestampWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.apache.hadoop.io.BooleanWritable;
+import org.apache.hadoop.io.Text;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.bigdata.hive.udf.impl.AbstractDayOfTimeUnitUDF;
+import com.bigdata.hive.udf.impl.FirstDayOfTimeUnitUDF;
+import com.bigdata.hive.udf.impl.LastDayOfTimeUnitUDF;
+
+import model.DeferredArgument;
+
+/*
+ * Guards the allocation rate of evaluate() for every arity and date input type.
+ *
+ * Budgets are bytes allocated per row and can be overridden with
+ * -Dallocation.budget.<string|date|timestamp>=<bytes>.
+ */
+public class EvaluateAllocationBudgetTest {
+
+	private static final int WARMUP_ROWS = 20000;
+	private static final int MEASURED_ROWS = 100000;
+	private static final int DISTINCT_DATES = 1000;
+
+	// Hive's Text conversion of each string, plus a parse for the dates that collide in the direct-mapped
+	// date cache; measured at 672-728 bytes/row
+	private static final long STRING_BUDGET = budget("string", 768);
+	// typed dates are read straight from their writables and rendered into the reused output Text
+	private static final long DATE_BUDGET = budget("date", 0);
+	private static final long TIMESTAMP_BUDGET = budget("timestamp", 0);
+
+	private static final String[] UNITS = { "DAY", "WEEK", "MONTH", "QUARTER", "YEAR" };
+	private static final String LITERAL_UNIT = "MONTH";
+
+	private static com.sun.management.ThreadMXBean threadBean;
+
+	@BeforeClass
+	public static void checkAllocationCounterIsAvailable() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		threadBean = (com.sun.management.ThreadMXBean) bean;
+		assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+		threadBean.setThreadAllocatedMemoryEnabled(true);
+	}
+
+	@Test
+	public void shouldStayWithinBudgetForStringDates() throws Exception {
+		for (int arity = 2; arity <= 6; arity++) {
+			assertWithinBudget("string", arity, false, STRING_BUDGET,
+					PrimitiveObjectInspectorFactory.javaStringObjectInspector);
+		}
+	}
+
+	@Test
+	public void shouldStayWithinBudgetForDateDates() throws Exception {
+		for (int arity = 2; arity <= 6; arity++) {
+			assertWithinBudget("date", arity, false, DATE_BUDGET,
+					PrimitiveObjectInspectorFactory.writableDateObjectInspector);
+		}
+	}
+
+	@Test
+	public void shouldStayWithinBudgetForTimestampDates() throws Exception {
+		for (int arity = 2; arity <= 6; arity++) {
+			assertWithinBudget("timestamp", arity, false, TIMESTAMP_BUDGET,
+					PrimitiveObjectInspectorFactory.writableTimestampObjectInspector);
+		}
+	}
+
+	// literal arguments, as in most queries, run the evaluators specialized in initialize()
+	@Test
+	public void shouldStayWithinBudgetForStringDatesWithLiteralArguments() throws Exception {
+		for (int arity = 2; arity <= 6; arity++) {
+			assertWithinBudget("string", arity, true, STRING_BUDGET,
+					PrimitiveObjectInspectorFactory.javaStringObjectInspector);
+		}
+	}
+
+	@Test
+	public void shouldStayWithinBudgetForDateDatesWithLiteralArguments() throws Exception {
+		for (int arity = 2; arity <= 6; arity++) {
+			assertWithinBudget("date", arity, true, DATE_BUDGET,
+					PrimitiveObjectInspectorFactory.writableDateObjectInspector);
+		}
+	}
+
+	@Test
+	public void shouldStayWithinBudgetForTimestampDatesWithLiteralArguments() throws Exception {
+		for (int arity = 2; arity <= 6; arity++) {
+			assertWithinBudget("timestamp", arity, true, TIMESTAMP_BUDGET,
+					PrimitiveObjectInspectorFactory.writableTimestampObjectInspector);
+		}
+	}
+
+	private void assertWithinBudget(String type, int arity, boolean literals, long budget,
+			ObjectInspector dateInspector) throws Exception {
+		AbstractDayOfTimeUnitUDF[] udfs = { new FirstDayOfTimeUnitUDF(), new LastDayOfTimeUnitUDF() };
+		for (AbstractDayOfTimeUnitUDF udf : udfs) {
+			udf.initialize(inspectors(arity, literals, dateInspector));
+			List<DeferredObject[]> rows = rows(type, arity, literals);
+
+			run(udf, rows, WARMUP_ROWS);
+			long before = threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			run(udf, rows, MEASURED_ROWS);
+			long perRow = (threadBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - before)
+					/ MEASURED_ROWS;
+
+			String description = udf.getClass().getSimpleName() + " with " + arity + " " + type + " arguments"
+					+ (literals ? " and literals" : "") + " allocated " + perRow + " bytes/row, budget is " + budget;
+			assertThat(description, perRow <= budget, is(true));
+		}
+	}
+
+	private static void run(AbstractDayOfTimeUnitUDF udf, List<DeferredObject[]> rows, int count) throws Exception {
+		int size = rows.size();
+		for (int i = 0; i < count; i++) {
+			udf.evaluate(rows.get(i % size));
+		}
+	}
+
+	private static ObjectInspector[] inspectors(int arity, boolean literals, ObjectInspector dateInspector) {
+		ObjectInspector[] objectInspector = new ObjectInspector[arity];
+		objectInspector[0] = literals ? literal(LITERAL_UNIT) : PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[1] = dateInspector;
+		for (int i = 2; i < arity && i < 4; i++) {
+			objectInspector[i] = literals ? literal("yyyy-MM-dd")
+					: PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		}
+		if (arity > 4) {
+			objectInspector[4] = literals
+					? PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(
+							TypeInfoFactory.booleanTypeInfo, new BooleanWritable(true))
+					: PrimitiveObjectInspectorFactory.writableBooleanObjectInspector;
+		}
+		if (arity > 5) {
+			objectInspector[5] = literals ? literal("23:22:22")
+					: PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		}
+		return objectInspector;
+	}
+
+	private static ObjectInspector literal(String value) {
+		return PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(
+				TypeInfoFactory.stringTypeInfo, new Text(value));
+	}
+
+	private static List<DeferredObject[]> rows(String type, int arity, boolean literals) {
+		List<DeferredObject[]> rows = new ArrayList<DeferredObject[]>(DISTINCT_DATES);
+		long day = 24L * 60 * 60 * 1000;
+		long start = Timestamp.valueOf("2010-01-01 00:00:00").getTime();
+
+		for (int i = 0; i < DISTINCT_DATES; i++) {
+			Timestamp timestamp = new Timestamp(start + i * day + i * 1000L);
+			DeferredObject[] arguments = new DeferredObject[arity];
+			arguments[0] = new DeferredArgument<String>(literals ? LITERAL_UNIT : UNITS[i % UNITS.length]);
+			if ("string".equals(type)) {
+				arguments[1] = new DeferredArgument<String>(timestamp.toString().substring(0, 10));
+			} else if ("date".equals(type)) {
+				arguments[1] = new DeferredArgument<DateWritable>(new DateWritable(new Date(timestamp.getTime())));
+			} else {
+				arguments[1] = new DeferredArgument<TimestampWritable>(new TimestampWritable(timestamp));
+			}
+			if (arity > 2) {
+				arguments[2] = new DeferredArgument<String>("yyyy-MM-dd");
+			}
+			if (arity > 3) {
+				arguments[3] = new DeferredArgument<String>("yyyy-MM-dd");
+			}
+			if (arity > 4) {
+				arguments[4] = new DeferredArgument<BooleanWritable>(new BooleanWritable(true));
+			}
+			if (arity > 5) {
+				arguments[5] = new DeferredArgument<String>("23:22:22");
+			}
+			rows.add(arguments);
+		}
+		return rows;
+	}
+
+	private static long budget(String type, long defaultBudget) {
+		return Long.getLong("allocation.budget." + type, defaultBudget);
+	}
+
+}
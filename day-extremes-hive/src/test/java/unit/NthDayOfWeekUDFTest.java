@@ -0,0 +1,126 @@
+package unit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredObject;
+import org.apache.hadoop.hive.serde2.io.DateWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.Text;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.bigdata.hive.udf.impl.NthDayOfWeekUDF;
+
+import model.DeferredArgument;
+
+public class NthDayOfWeekUDFTest {
+
+	private NthDayOfWeekUDF nthDayOfWeekUDF = new NthDayOfWeekUDF();
+
+	@Rule
+	public ExpectedException expectedException = ExpectedException.none();
+
+	@Test
+	public void shouldThrowExceptionForLessThan4ArgumentsPassed() throws Exception {
+		expectedException.expect(UDFArgumentLengthException.class);
+		expectedException.expectMessage(
+				"Invalid function usage: Correct Usage => FunctionName(<String> unit, <String/Timestamp/Date/Bigint> date, <String> day_of_week, <Int> ordinal, <String> input_format[optional])");
+
+		nthDayOfWeekUDF.initialize(new ObjectInspector[3]);
+	}
+
+	@Test
+	public void shouldGetTheNthAndLastDayOfWeekOfThePeriod() throws Exception {
+		ObjectInspector[] objectInspector = new ObjectInspector[4];
+		objectInspector[0] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[1] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[2] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[3] = PrimitiveObjectInspectorFactory.javaIntObjectInspector;
+		nthDayOfWeekUDF.initialize(objectInspector);
+
+		assertThat(nthDayOfWeek("MONTH", "2011-02-22", "FRIDAY", -1), is("2011-02-25"));
+		assertThat(nthDayOfWeek("MONTH", "2011-02-22", "mon", 1), is("2011-02-07"));
+		// February 2011 starts on a Tuesday
+		assertThat(nthDayOfWeek("MONTH", "2011-02-22", "Tue", 4), is("2011-02-22"));
+		assertThat(nthDayOfWeek("QUARTER", "2011-02-22", "FRIDAY", -1), is("2011-03-25"));
+		assertThat(nthDayOfWeek("YEAR", "2011-02-22", "SATURDAY", 53), is("2011-12-31"));
+		assertThat(nthDayOfWeek("WEEK", "2011-02-22", "SUNDAY", 1), is("2011-02-27"));
+	}
+
+	@Test
+	public void shouldReturnNullWhenThePeriodHasNoSuchDay() throws Exception {
+		ObjectInspector[] objectInspector = new ObjectInspector[4];
+		objectInspector[0] = literal("MONTH");
+		objectInspector[1] = PrimitiveObjectInspectorFactory.writableDateObjectInspector;
+		objectInspector[2] = literal("MONDAY");
+		objectInspector[3] = PrimitiveObjectInspectorFactory
+				.getPrimitiveWritableConstantObjectInspector(TypeInfoFactory.intTypeInfo, new IntWritable(5));
+		nthDayOfWeekUDF.initialize(objectInspector);
+
+		DeferredObject[] arguments = new DeferredObject[4];
+		// 2011-02-22, a February with four Mondays
+		arguments[1] = new DeferredArgument<DateWritable>(new DateWritable(15027));
+		assertThat(nthDayOfWeekUDF.evaluate(arguments), is(nullValue()));
+
+		arguments[1] = new DeferredArgument<DateWritable>(null);
+		assertThat(nthDayOfWeekUDF.evaluate(arguments), is(nullValue()));
+
+		// 2011-01-31
+		arguments[1] = new DeferredArgument<DateWritable>(new DateWritable(15005));
+		assertThat(nthDayOfWeekUDF.evaluate(arguments).toString(), is("2011-01-31"));
+		assertThat(nthDayOfWeekUDF.getDisplayString(new String[] { "'MONTH'", "d", "'MONDAY'", "5" }),
+				is("nth_day_of_week('MONTH', d, 'MONDAY', 5)"));
+	}
+
+	@Test
+	public void shouldThrowExceptionForInvalidDayOfWeek() throws Exception {
+		expectedException.expect(UDFArgumentException.class);
+		expectedException.expectMessage(
+				"day_of_week can only be one of MONDAY, TUESDAY, WEDNESDAY, THURSDAY, FRIDAY, SATURDAY, SUNDAY");
+
+		ObjectInspector[] objectInspector = new ObjectInspector[4];
+		objectInspector[0] = literal("MONTH");
+		objectInspector[1] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[2] = literal("FRI-DAY");
+		objectInspector[3] = PrimitiveObjectInspectorFactory.javaIntObjectInspector;
+		nthDayOfWeekUDF.initialize(objectInspector);
+	}
+
+	@Test
+	public void shouldThrowExceptionForZeroOrdinal() throws Exception {
+		expectedException.expect(UDFArgumentException.class);
+		expectedException.expectMessage("Invalid ordinal 0. It should be in between 1 and 53, or -1 and -53 from the end");
+
+		ObjectInspector[] objectInspector = new ObjectInspector[4];
+		objectInspector[0] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[1] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[2] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[3] = PrimitiveObjectInspectorFactory.javaIntObjectInspector;
+		nthDayOfWeekUDF.initialize(objectInspector);
+
+		nthDayOfWeek("MONTH", "2011-02-22", "FRIDAY", 0);
+	}
+
+	private String nthDayOfWeek(String unit, String date, String dayOfWeek, int ordinal) throws Exception {
+		DeferredObject[] arguments = new DeferredObject[4];
+		arguments[0] = new DeferredArgument<String>(unit);
+		arguments[1] = new DeferredArgument<String>(date);
+		arguments[2] = new DeferredArgument<String>(dayOfWeek);
+		arguments[3] = new DeferredArgument<Integer>(ordinal);
+		return ((Text) nthDayOfWeekUDF.evaluate(arguments)).toString();
+	}
+
+	private static ObjectInspector literal(String value) {
+		return PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(
+				TypeInfoFactory.stringTypeInfo, new Text(value));
+	}
+
+}
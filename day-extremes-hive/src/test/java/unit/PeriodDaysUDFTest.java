@@ -0,0 +1,123 @@
+package unit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredObject;
+import org.apache.hadoop.hive.serde2.io.DateWritable;
+import org.apache.hadoop.hive.serde2.io.DoubleWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.Text;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.bigdata.hive.udf.impl.PeriodDaysUDF;
+
+import model.DeferredArgument;
+
+public class PeriodDaysUDFTest {
+
+	private PeriodDaysUDF periodDaysUDF = new PeriodDaysUDF();
+
+	@Rule
+	public ExpectedException expectedException = ExpectedException.none();
+
+	@Test
+	public void shouldCountDaysElapsedRemainingAndInThePeriod() throws Exception {
+		assertThat(days("MONTH", "2011-02-22", "ELAPSED"), is(21));
+		assertThat(days("MONTH", "2011-02-22", "REMAINING"), is(6));
+		assertThat(days("MONTH", "2011-02-22", "LENGTH"), is(28));
+		assertThat(days("QUARTER", "2012-02-29", "LENGTH"), is(91));
+		assertThat(days("YEAR", "2011-12-31", "REMAINING"), is(0));
+		// Monday
+		assertThat(days("WEEK", "2011-03-21", "ELAPSED"), is(0));
+		assertThat(days("DAY", "2011-03-21", "LENGTH"), is(1));
+	}
+
+	@Test
+	public void shouldGetTheFractionOfThePeriodElapsedAtTheTimeOfDay() throws Exception {
+		ObjectInspector[] objectInspector = new ObjectInspector[4];
+		objectInspector[0] = literal("WEEK");
+		objectInspector[1] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[2] = literal("fraction");
+		objectInspector[3] = literal("yyyy-MM-dd HH:mm:ss");
+		periodDaysUDF.initialize(objectInspector);
+
+		DeferredObject[] arguments = new DeferredObject[4];
+		// noon on the Thursday
+		arguments[1] = new DeferredArgument<String>("2011-03-24 12:00:00");
+		DoubleWritable fraction = (DoubleWritable) periodDaysUDF.evaluate(arguments);
+
+		assertThat(fraction.get(), is(0.5));
+		assertThat(periodDaysUDF.getDisplayString(new String[] { "'WEEK'", "ts", "'fraction'", "'yyyy-MM-dd HH:mm:ss'" }),
+				is("period_days('WEEK', ts, 'fraction', 'yyyy-MM-dd HH:mm:ss')"));
+	}
+
+	@Test
+	public void shouldReturnNullForANullDate() throws Exception {
+		ObjectInspector[] objectInspector = new ObjectInspector[3];
+		objectInspector[0] = literal("MONTH");
+		objectInspector[1] = PrimitiveObjectInspectorFactory.writableDateObjectInspector;
+		objectInspector[2] = literal("LENGTH");
+		periodDaysUDF.initialize(objectInspector);
+
+		DeferredObject[] arguments = new DeferredObject[3];
+		arguments[1] = new DeferredArgument<DateWritable>(null);
+		assertThat(periodDaysUDF.evaluate(arguments), is(nullValue()));
+
+		// 2011-04-30
+		arguments[1] = new DeferredArgument<DateWritable>(new DateWritable(15094));
+		assertThat(((IntWritable) periodDaysUDF.evaluate(arguments)).get(), is(30));
+	}
+
+	@Test
+	public void shouldThrowExceptionIfMeasureIsNotALiteral() throws Exception {
+		expectedException.expect(UDFArgumentTypeException.class);
+		expectedException.expectMessage(
+				"Only a String literal is accepted for measure parameter but string is passed as third argument");
+
+		ObjectInspector[] objectInspector = new ObjectInspector[3];
+		objectInspector[0] = literal("MONTH");
+		objectInspector[1] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[2] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		periodDaysUDF.initialize(objectInspector);
+	}
+
+	@Test
+	public void shouldThrowExceptionForUnknownMeasure() throws Exception {
+		expectedException.expect(UDFArgumentException.class);
+		expectedException.expectMessage("measure can only be one of ELAPSED, REMAINING, LENGTH, FRACTION");
+
+		ObjectInspector[] objectInspector = new ObjectInspector[3];
+		objectInspector[0] = literal("MONTH");
+		objectInspector[1] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[2] = literal("PERCENT");
+		periodDaysUDF.initialize(objectInspector);
+	}
+
+	private int days(String unit, String date, String measure) throws Exception {
+		ObjectInspector[] objectInspector = new ObjectInspector[3];
+		objectInspector[0] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[1] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[2] = literal(measure);
+		periodDaysUDF.initialize(objectInspector);
+
+		DeferredObject[] arguments = new DeferredObject[3];
+		arguments[0] = new DeferredArgument<String>(unit);
+		arguments[1] = new DeferredArgument<String>(date);
+		return ((IntWritable) periodDaysUDF.evaluate(arguments)).get();
+	}
+
+	private static ObjectInspector literal(String value) {
+		return PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(
+				TypeInfoFactory.stringTypeInfo, new Text(value));
+	}
+
+}
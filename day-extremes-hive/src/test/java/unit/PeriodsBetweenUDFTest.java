@@ -0,0 +1,193 @@
+package unit;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.hive.ql.exec.MapredContext;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizationContext;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.exec.vector.expressions.VectorExpression;
+import org.apache.hadoop.hive.ql.plan.ExprNodeColumnDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeConstantDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeGenericFuncDesc;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredObject;
+import org.apache.hadoop.hive.serde2.io.DateWritable;
+import org.apache.hadoop.hive.serde2.io.TimestampWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.JobConf;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.bigdata.hive.udf.impl.PeriodsBetweenDates;
+import com.bigdata.hive.udf.impl.PeriodsBetweenUDF;
+
+import model.DeferredArgument;
+
+public class PeriodsBetweenUDFTest {
+
+	private PeriodsBetweenUDF periodsBetweenUDF = new PeriodsBetweenUDF();
+
+	@Rule
+	public ExpectedException expectedException = ExpectedException.none();
+
+	@Test
+	public void shouldThrowExceptionForLessThan3ArgumentsPassed() throws Exception {
+		expectedException.expect(UDFArgumentLengthException.class);
+		expectedException.expectMessage(
+				"Invalid function usage: Correct Usage => FunctionName(<String> unit, <String/Timestamp/Date/Bigint> date1, <String/Timestamp/Date/Bigint> date2, <String> input_format[optional])");
+
+		periodsBetweenUDF.initialize(new ObjectInspector[2]);
+	}
+
+	@Test
+	public void shouldCountWholePeriodsBetweenStringDates() throws Exception {
+		ObjectInspector[] objectInspector = new ObjectInspector[3];
+		objectInspector[0] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[1] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[2] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		periodsBetweenUDF.initialize(objectInspector);
+
+		assertThat(periodsBetween("MONTH", "2011-01-31", "2011-02-01"), is(1));
+		assertThat(periodsBetween("MONTH", "2011-03-31", "2011-01-01"), is(-2));
+		assertThat(periodsBetween("DAY", "2011-02-27", "2011-03-01"), is(2));
+		// Sunday to the following Monday
+		assertThat(periodsBetween("WEEK", "2011-03-20", "2011-03-21"), is(1));
+		assertThat(periodsBetween("QUARTER", "2010-12-31", "2011-04-01"), is(2));
+		assertThat(periodsBetween("YEAR", "1969-12-31", "2011-01-01"), is(42));
+	}
+
+	@Test
+	public void shouldReadEachDateWithItsOwnType() throws Exception {
+		JobConf conf = new JobConf();
+		conf.set("dayextremes.timezone", "UTC");
+		periodsBetweenUDF.configure(MapredContext.init(true, conf));
+
+		ObjectInspector[] objectInspector = new ObjectInspector[4];
+		objectInspector[0] = literal("MONTH");
+		objectInspector[1] = PrimitiveObjectInspectorFactory.writableDateObjectInspector;
+		objectInspector[2] = PrimitiveObjectInspectorFactory.writableTimestampObjectInspector;
+		objectInspector[3] = literal("dd-MM-yyyy");
+		periodsBetweenUDF.initialize(objectInspector);
+
+		DeferredObject[] arguments = new DeferredObject[4];
+		// 2011-01-31
+		arguments[1] = new DeferredArgument<DateWritable>(new DateWritable(15005));
+		arguments[2] = new DeferredArgument<TimestampWritable>(new TimestampWritable(
+				new Timestamp(new DateTime(2012, 1, 1, 0, 30, 0, 0, DateTimeZone.UTC).getMillis())));
+		IntWritable periods = (IntWritable) periodsBetweenUDF.evaluate(arguments);
+
+		assertThat(periods.get(), is(12));
+		assertThat(periodsBetweenUDF.getDisplayString(new String[] { "'MONTH'", "d", "ts", "'dd-MM-yyyy'" }),
+				is("periods_between('MONTH', d, ts, 'dd-MM-yyyy')"));
+	}
+
+	@Test
+	public void shouldReturnNullForANullDate() throws Exception {
+		ObjectInspector[] objectInspector = new ObjectInspector[3];
+		objectInspector[0] = literal("YEAR");
+		objectInspector[1] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[2] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		periodsBetweenUDF.initialize(objectInspector);
+
+		DeferredObject[] arguments = new DeferredObject[3];
+		arguments[1] = new DeferredArgument<String>(null);
+		arguments[2] = new DeferredArgument<String>("2011-01-01");
+
+		assertThat(periodsBetweenUDF.evaluate(arguments), is(nullValue()));
+	}
+
+	@Test
+	public void shouldThrowExceptionForInvalidUnit() throws Exception {
+		expectedException.expect(UDFArgumentException.class);
+		expectedException.expectMessage("unit can only be one of DAY, WEEK, MONTH, QUARTER, YEAR");
+
+		ObjectInspector[] objectInspector = new ObjectInspector[3];
+		objectInspector[0] = literal("FORTNIGHT");
+		objectInspector[1] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		objectInspector[2] = PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+		periodsBetweenUDF.initialize(objectInspector);
+
+		DeferredObject[] arguments = new DeferredObject[3];
+		arguments[0] = new DeferredArgument<String>("FORTNIGHT");
+		arguments[1] = new DeferredArgument<String>("2011-01-01");
+		arguments[2] = new DeferredArgument<String>("2011-01-01");
+		periodsBetweenUDF.evaluate(arguments);
+	}
+
+	@Test
+	public void shouldVectorizeOverDateColumns() throws Exception {
+		List<ExprNodeDesc> children = new ArrayList<ExprNodeDesc>();
+		children.add(new ExprNodeConstantDesc(TypeInfoFactory.stringTypeInfo, "MONTH"));
+		children.add(new ExprNodeColumnDesc(TypeInfoFactory.dateTypeInfo, "signup", "t", false));
+		children.add(new ExprNodeColumnDesc(TypeInfoFactory.dateTypeInfo, "event", "t", false));
+		ExprNodeGenericFuncDesc expression = new ExprNodeGenericFuncDesc(TypeInfoFactory.intTypeInfo,
+				new PeriodsBetweenUDF(), children);
+
+		VectorizationContext context = new VectorizationContext("periods", Arrays.asList("signup", "event"));
+		VectorExpression vectorExpression = context.getVectorExpression(expression);
+		assertThat(vectorExpression, instanceOf(PeriodsBetweenDates.class));
+
+		VectorizedRowBatch batch = new VectorizedRowBatch(3);
+		LongColumnVector signup = new LongColumnVector();
+		LongColumnVector event = new LongColumnVector();
+		batch.cols[0] = signup;
+		batch.cols[1] = event;
+		batch.cols[vectorExpression.getOutputColumn()] = new LongColumnVector();
+		// 2011-01-31 to 2011-02-01, 2011-03-31 to 2011-01-01, then a null signup
+		signup.vector[0] = 15005;
+		event.vector[0] = 15006;
+		signup.vector[1] = 15064;
+		event.vector[1] = 14975;
+		signup.noNulls = false;
+		signup.isNull[2] = true;
+		event.vector[2] = 15006;
+		batch.size = 3;
+
+		vectorExpression.evaluate(batch);
+
+		LongColumnVector periods = (LongColumnVector) batch.cols[vectorExpression.getOutputColumn()];
+		assertThat(periods.vector[0], is(1L));
+		assertThat(periods.vector[1], is(-2L));
+		assertThat(periods.isNull[2], is(true));
+
+		// every signup in the same month
+		signup.isRepeating = true;
+		signup.noNulls = true;
+		signup.vector[0] = 14975;
+		vectorExpression.evaluate(batch);
+		assertThat(periods.vector[1], is(0L));
+		assertThat(periods.vector[2], is(1L));
+	}
+
+	private int periodsBetween(String unit, String from, String to) throws Exception {
+		DeferredObject[] arguments = new DeferredObject[3];
+		arguments[0] = new DeferredArgument<String>(unit);
+		arguments[1] = new DeferredArgument<String>(from);
+		arguments[2] = new DeferredArgument<String>(to);
+		return ((IntWritable) periodsBetweenUDF.evaluate(arguments)).get();
+	}
+
+	private static ObjectInspector literal(String value) {
+		return PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(
+				TypeInfoFactory.stringTypeInfo, new Text(value));
+	}
+
+}
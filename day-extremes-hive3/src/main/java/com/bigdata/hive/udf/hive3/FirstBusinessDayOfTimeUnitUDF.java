@@ -0,0 +1,24 @@
+package com.bigdata.hive.udf.hive3;
+
+import java.util.TimeZone;
+
+import org.apache.hadoop.hive.ql.exec.Description;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
+
+/*
+ * first_business_day_of for Hive 3, reading TimestampWritableV2 and DateWritableV2 as first_day_of does.
+ */
+@Description(name = com.bigdata.hive.udf.impl.FirstBusinessDayOfTimeUnitUDF.NAME, value = com.bigdata.hive.udf.impl.FirstBusinessDayOfTimeUnitUDF.VALUE, extended = com.bigdata.hive.udf.impl.FirstBusinessDayOfTimeUnitUDF.EXTENDED)
+public class FirstBusinessDayOfTimeUnitUDF extends com.bigdata.hive.udf.impl.FirstBusinessDayOfTimeUnitUDF {
+
+	@Override
+	protected long timestampLocalMillis(PrimitiveObjectInspector inspector, Object dateArgument, TimeZone zone) {
+		return Hive3Writables.timestampLocalMillis(inspector, dateArgument);
+	}
+
+	@Override
+	protected long dateLocalMillis(PrimitiveObjectInspector inspector, Object dateArgument) {
+		return Hive3Writables.dateLocalMillis(inspector, dateArgument);
+	}
+
+}
@@ -0,0 +1,26 @@
+package com.bigdata.hive.udf.hive3;
+
+import java.util.TimeZone;
+
+import org.apache.hadoop.hive.ql.exec.Description;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
+
+/*
+ * first_day_of for Hive 3, reading TimestampWritableV2 and DateWritableV2. Strings, settings and
+ * metrics are as in the Hive 1.x/2.x function; TIMESTAMP is wall-clock time in Hive 3, so
+ * dayextremes.timezone only applies to date strings.
+ */
+@Description(name = com.bigdata.hive.udf.impl.FirstDayOfTimeUnitUDF.NAME, value = com.bigdata.hive.udf.impl.FirstDayOfTimeUnitUDF.VALUE, extended = com.bigdata.hive.udf.impl.FirstDayOfTimeUnitUDF.EXTENDED)
+public class FirstDayOfTimeUnitUDF extends com.bigdata.hive.udf.impl.FirstDayOfTimeUnitUDF {
+
+	@Override
+	protected long timestampLocalMillis(PrimitiveObjectInspector inspector, Object dateArgument, TimeZone zone) {
+		return Hive3Writables.timestampLocalMillis(inspector, dateArgument);
+	}
+
+	@Override
+	protected long dateLocalMillis(PrimitiveObjectInspector inspector, Object dateArgument) {
+		return Hive3Writables.dateLocalMillis(inspector, dateArgument);
+	}
+
+}
@@ -0,0 +1,33 @@
+package com.bigdata.hive.udf.hive3;
+
+import org.apache.hadoop.hive.serde2.io.DateWritableV2;
+import org.apache.hadoop.hive.serde2.io.TimestampWritableV2;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.WritableDateObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.WritableTimestampObjectInspector;
+
+import com.bigdata.hive.udf.engine.PeriodRenderer;
+
+/*
+ * Reads Hive 3's TIMESTAMP and DATE writables. Both hold wall-clock values on epoch primitives in
+ * the proleptic Gregorian calendar, which is what the period engine works on: no java.sql object
+ * is created, no zone is applied and dates before 1582 are not rebased from the Julian calendar.
+ */
+final class Hive3Writables {
+
+	private Hive3Writables() {
+	}
+
+	static long timestampLocalMillis(PrimitiveObjectInspector inspector, Object dateArgument) {
+		TimestampWritableV2 timestamp = ((WritableTimestampObjectInspector) inspector)
+				.getPrimitiveWritableObject(dateArgument);
+		// seconds and nanos are read from the serialized bytes when the row has not been deserialized
+		return timestamp.getSeconds() * 1000 + timestamp.getNanos() / 1000000;
+	}
+
+	static long dateLocalMillis(PrimitiveObjectInspector inspector, Object dateArgument) {
+		DateWritableV2 date = ((WritableDateObjectInspector) inspector).getPrimitiveWritableObject(dateArgument);
+		return date.getDays() * (long) PeriodRenderer.MILLIS_PER_DAY;
+	}
+
+}
@@ -0,0 +1,24 @@
+package com.bigdata.hive.udf.hive3;
+
+import java.util.TimeZone;
+
+import org.apache.hadoop.hive.ql.exec.Description;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
+
+/*
+ * last_business_day_of for Hive 3, reading TimestampWritableV2 and DateWritableV2 as first_day_of does.
+ */
+@Description(name = com.bigdata.hive.udf.impl.LastBusinessDayOfTimeUnitUDF.NAME, value = com.bigdata.hive.udf.impl.LastBusinessDayOfTimeUnitUDF.VALUE, extended = com.bigdata.hive.udf.impl.LastBusinessDayOfTimeUnitUDF.EXTENDED)
+public class LastBusinessDayOfTimeUnitUDF extends com.bigdata.hive.udf.impl.LastBusinessDayOfTimeUnitUDF {
+
+	@Override
+	protected long timestampLocalMillis(PrimitiveObjectInspector inspector, Object dateArgument, TimeZone zone) {
+		return Hive3Writables.timestampLocalMillis(inspector, dateArgument);
+	}
+
+	@Override
+	protected long dateLocalMillis(PrimitiveObjectInspector inspector, Object dateArgument) {
+		return Hive3Writables.dateLocalMillis(inspector, dateArgument);
+	}
+
+}
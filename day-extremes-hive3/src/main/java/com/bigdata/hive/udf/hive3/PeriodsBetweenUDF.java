@@ -0,0 +1,25 @@
+package com.bigdata.hive.udf.hive3;
+
+import java.util.TimeZone;
+
+import org.apache.hadoop.hive.ql.exec.Description;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
+
+/*
+ * periods_between for Hive 3, reading TimestampWritableV2 and DateWritableV2 as first_day_of does.
+ * Runs in row mode: the vectorized DATE variant is written against Hive 1.x/2.x's VectorExpression.
+ */
+@Description(name = com.bigdata.hive.udf.impl.PeriodsBetweenUDF.NAME, value = com.bigdata.hive.udf.impl.PeriodsBetweenUDF.VALUE, extended = com.bigdata.hive.udf.impl.PeriodsBetweenUDF.EXTENDED)
+public class PeriodsBetweenUDF extends com.bigdata.hive.udf.impl.PeriodsBetweenUDF {
+
+	@Override
+	protected long timestampLocalMillis(PrimitiveObjectInspector inspector, Object dateArgument, TimeZone zone) {
+		return Hive3Writables.timestampLocalMillis(inspector, dateArgument);
+	}
+
+	@Override
+	protected long dateLocalMillis(PrimitiveObjectInspector inspector, Object dateArgument) {
+		return Hive3Writables.dateLocalMillis(inspector, dateArgument);
+	}
+
+}
@@ -0,0 +1,93 @@
+package unit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.apache.hadoop.hive.common.type.Date;
+import org.apache.hadoop.hive.common.type.Timestamp;
+import org.apache.hadoop.hive.ql.exec.Description;
+import org.apache.hadoop.hive.ql.exec.MapredContext;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredJavaObject;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredObject;
+import org.apache.hadoop.hive.serde2.io.DateWritableV2;
+import org.apache.hadoop.hive.serde2.io.TimestampWritableV2;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.JobConf;
+import org.junit.Test;
+
+import com.bigdata.hive.udf.hive3.FirstDayOfTimeUnitUDF;
+import com.bigdata.hive.udf.hive3.LastDayOfTimeUnitUDF;
+import com.bigdata.hive.udf.hive3.PeriodsBetweenUDF;
+
+public class Hive3DayOfTimeUnitUDFTest {
+
+	@Test
+	public void shouldTakeTimestampsAsWallClockTime() throws Exception {
+		JobConf conf = new JobConf();
+		conf.set("dayextremes.timezone", "Asia/Kolkata");
+		FirstDayOfTimeUnitUDF udf = new FirstDayOfTimeUnitUDF();
+		udf.configure(MapredContext.init(true, conf));
+		udf.initialize(new ObjectInspector[] { literal("MONTH"),
+				PrimitiveObjectInspectorFactory.writableTimestampObjectInspector, literal("yyyy-MM-dd"),
+				literal("yyyy-MM-dd HH:mm:ss") });
+
+		// would be April 1st in Kolkata if it were an instant in UTC
+		Text outputDate = (Text) udf.evaluate(new DeferredObject[] { null,
+				new DeferredJavaObject(new TimestampWritableV2(Timestamp.valueOf("2011-03-31 22:30:00"))) });
+
+		assertThat(outputDate.toString(), is("2011-03-01 22:30:00"));
+	}
+
+	@Test
+	public void shouldReadDatesBeforeTheGregorianCutoverWithoutRebasing() throws Exception {
+		FirstDayOfTimeUnitUDF udf = new FirstDayOfTimeUnitUDF();
+		// the unit is a column, so rows go through the generic evaluator
+		udf.initialize(new ObjectInspector[] { PrimitiveObjectInspectorFactory.javaStringObjectInspector,
+				PrimitiveObjectInspectorFactory.writableDateObjectInspector });
+
+		Text outputDate = (Text) udf.evaluate(new DeferredObject[] { new DeferredJavaObject("WEEK"),
+				new DeferredJavaObject(new DateWritableV2(Date.of(1500, 6, 15))) });
+
+		// a Friday in the proleptic Gregorian calendar
+		assertThat(outputDate.toString(), is("1500-06-11"));
+	}
+
+	@Test
+	public void shouldDescribeItselfAsTheHiveFunction() throws Exception {
+		LastDayOfTimeUnitUDF udf = new LastDayOfTimeUnitUDF();
+		udf.initialize(new ObjectInspector[] { literal("QUARTER"),
+				PrimitiveObjectInspectorFactory.writableDateObjectInspector });
+
+		Text outputDate = (Text) udf.evaluate(
+				new DeferredObject[] { null, new DeferredJavaObject(new DateWritableV2(Date.of(2011, 2, 22))) });
+
+		assertThat(outputDate.toString(), is("2011-03-31"));
+		assertThat(LastDayOfTimeUnitUDF.class.getAnnotation(Description.class).name(), is("last_day_of"));
+		assertThat(udf.getDisplayString(null), is(
+				"Gets last day of day/week/month/quarter/year for a provided date with optional interval timestamp value can be added. [evaluator: date/QUARTER/last/no-interval/printer]"));
+	}
+
+	@Test
+	public void shouldCountPeriodsBetweenHive3Dates() throws Exception {
+		PeriodsBetweenUDF udf = new PeriodsBetweenUDF();
+		udf.initialize(new ObjectInspector[] { literal("QUARTER"),
+				PrimitiveObjectInspectorFactory.writableDateObjectInspector,
+				PrimitiveObjectInspectorFactory.writableDateObjectInspector });
+
+		IntWritable periods = (IntWritable) udf.evaluate(new DeferredObject[] { null,
+				new DeferredJavaObject(new DateWritableV2(Date.of(2010, 12, 31))),
+				new DeferredJavaObject(new DateWritableV2(Date.of(2011, 4, 1))) });
+
+		assertThat(periods.get(), is(2));
+	}
+
+	private static ObjectInspector literal(String value) {
+		return PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(
+				TypeInfoFactory.stringTypeInfo, new Text(value));
+	}
+
+}